@@ -0,0 +1,38 @@
+package com.vg.benchmark;
+
+import com.vg.LibraryKataApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without a web server against a fresh in-memory H2 database,
+ * reached by R2DBC and, in the {@code jdbc} profile, by JDBC, with logging turned down so it
+ * does not dominate the measurements.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        String database = "bench-" + UUID.randomUUID();
+        List<String> all = new ArrayList<>(List.of(
+                "spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";DB_CLOSE_DELAY=-1",
+                "library.jdbc.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN",
+                "logging.level.com.vg=WARN",
+                "logging.level.org.springframework.r2dbc.core=WARN",
+                // H2 warns on every read-only transaction Spring Data opens for repository reads
+                "logging.level.io.r2dbc.h2=ERROR"));
+        all.addAll(List.of(properties));
+        // As command line arguments, so they win over application.yml and the profile files
+        return new SpringApplicationBuilder(LibraryKataApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+}
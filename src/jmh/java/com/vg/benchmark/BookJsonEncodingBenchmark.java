@@ -0,0 +1,87 @@
+package com.vg.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.cache.BookJsonCache;
+import com.vg.cache.BookJsonEncoder;
+import com.vg.config.BookJsonCacheProperties;
+import com.vg.dto.BookResponseDTO;
+import com.vg.model.Book;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.vg.mapper.BookMappers.bookToDto;
+
+/**
+ * A {@code GET /library/books} page from mapped books to pooled Netty buffers, through Spring's
+ * Jackson encoder and through {@link BookJsonEncoder} with a warm {@link BookJsonCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookJsonEncodingBenchmark {
+
+    private static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(BookResponseDTO.class);
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private List<Book> page;
+    private NettyDataBufferFactory bufferFactory;
+    private Jackson2JsonEncoder jacksonEncoder;
+    private BookJsonEncoder cachedEncoder;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        jacksonEncoder = new Jackson2JsonEncoder(objectMapper);
+        cachedEncoder = new BookJsonEncoder(objectMapper,
+                new BookJsonCache(objectMapper, new BookJsonCacheProperties(DataSize.ofMegabytes(32))));
+        page = IntStream.range(0, pageSize)
+                .mapToObj(i -> new Book(UUID.randomUUID(), "Title " + i, "Author " + i, i % 2 == 0, (long) i))
+                .toList();
+        encode(cachedEncoder);
+    }
+
+    @Benchmark
+    public long jackson() {
+        return encode(jacksonEncoder);
+    }
+
+    @Benchmark
+    public long cached() {
+        return encode(cachedEncoder);
+    }
+
+    private long encode(Jackson2JsonEncoder encoder) {
+        return encoder.encode(Flux.fromIterable(page).map(bookToDto), bufferFactory, ELEMENT_TYPE,
+                        MediaType.APPLICATION_JSON, Map.of())
+                .map(BookJsonEncodingBenchmark::release)
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    private static long release(DataBuffer buffer) {
+        long size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
@@ -0,0 +1,85 @@
+package com.vg.benchmark;
+
+import com.vg.model.Book;
+import com.vg.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LibraryService} calls from many threads at different connection pool
+ * sizes. Runs with more threads than the smallest pool so acquisition waits show up.
+ * <p>
+ * Calls are subscribed on virtual threads and the JMH threads only wait for them: H2's R2DBC
+ * driver completes inline, so a JMH thread releasing a connection would go on running the
+ * pipelines of queued callers and never end its iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000;
+
+    @Param({"2", "8", "32"})
+    public int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private Scheduler callers;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        callers = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "callers");
+        context = BenchmarkContexts.start(
+                "spring.r2dbc.pool.initial-size=" + poolSize,
+                "spring.r2dbc.pool.max-size=" + poolSize);
+        libraryService = context.getBean(LibraryService.class);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            libraryService.addBook(new Book(null, "Title " + i, "Author " + i, true, null)).block();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+        callers.dispose();
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        private final UUID userId = UUID.randomUUID();
+        private UUID bookId;
+
+        @Setup(Level.Trial)
+        public void addOwnBook(ConnectionPoolBenchmark benchmark) {
+            bookId = benchmark.libraryService.addBook(new Book(null, "Own book", "Bench", true, null))
+                    .block()
+                    .getId();
+        }
+    }
+
+    @Benchmark
+    public Book borrowAndReturn(Reader reader) {
+        return libraryService.borrowBook(reader.bookId, reader.userId)
+                .then(Mono.defer(() -> libraryService.returnBook(reader.bookId, reader.userId)))
+                .subscribeOn(callers)
+                .block();
+    }
+
+    @Benchmark
+    public List<Book> listPageByCursor() {
+        return libraryService.findBooksAfter(null, 10).collectList().subscribeOn(callers).block();
+    }
+}
@@ -0,0 +1,71 @@
+package com.vg.benchmark;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vg.advice.GlobalWebFluxExceptionHandler;
+import com.vg.exception.BookUnavailableException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a rejected borrow, from creating the exception a few dozen frames down to the
+ * written 409 body. {@code stacklessTemplate} is the current path. {@code stackTraceMapper} is
+ * the earlier one: the exception fills in its stack trace and the body is built by the
+ * ObjectMapper, which the handler still does for a mapper that writes numeric timestamps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    // Roughly the depth of a Reactor pipeline at the point a borrow is rejected
+    private static final int STACK_DEPTH = 64;
+
+    // Shared like they are in the running server; building them per exchange would dominate
+    private final ServerCodecConfigurer codecs = ServerCodecConfigurer.create();
+    private final DefaultWebSessionManager sessions = new DefaultWebSessionManager();
+    private final AcceptHeaderLocaleContextResolver locales = new AcceptHeaderLocaleContextResolver();
+
+    private GlobalWebFluxExceptionHandler templateHandler;
+    private GlobalWebFluxExceptionHandler mapperHandler;
+
+    @Setup
+    public void setUp() {
+        templateHandler = new GlobalWebFluxExceptionHandler(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+        mapperHandler = new GlobalWebFluxExceptionHandler(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Benchmark
+    public int stacklessTemplate() {
+        return conflict(templateHandler);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dlibrary.exceptions.stack-traces=true")
+    public int stackTraceMapper() {
+        return conflict(mapperHandler);
+    }
+
+    private int conflict(GlobalWebFluxExceptionHandler handler) {
+        DefaultServerWebExchange exchange = new DefaultServerWebExchange(MockServerHttpRequest.put("/library/borrow/1").build(),
+                new MockServerHttpResponse(), sessions, codecs, locales);
+        handler.handle(exchange, reject(STACK_DEPTH)).block();
+        return exchange.getResponse().getStatusCode().value();
+    }
+
+    private static BookUnavailableException reject(int depth) {
+        return depth == 0 ? new BookUnavailableException("Book is already borrowed.") : reject(depth - 1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.vg.benchmark;
+
+import com.vg.model.Book;
+import com.vg.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link LibraryService} operations against in-memory H2 through R2DBC.
+ * Each benchmark thread borrows and returns its own book, so the numbers measure the
+ * round trips rather than contention on a single row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkContexts.start();
+        libraryService = context.getBean(LibraryService.class);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            libraryService.addBook(new Book(null, "Title " + i, "Author " + i, true, null)).block();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+        private final UUID userId = UUID.randomUUID();
+        private UUID bookId;
+
+        @Setup(Level.Trial)
+        public void addOwnBook(LibraryServiceBenchmark benchmark) {
+            bookId = benchmark.libraryService.addBook(new Book(null, "Own book", "Bench", true, null))
+                    .block()
+                    .getId();
+        }
+    }
+
+    @Benchmark
+    public Book borrowAndReturn(Reader reader) {
+        libraryService.borrowBook(reader.bookId, reader.userId).block();
+        return libraryService.returnBook(reader.bookId, reader.userId).block();
+    }
+
+    @Benchmark
+    public List<Book> listFirstPage() {
+        return libraryService.findAllBooks(0, 10).collectList().block();
+    }
+
+    @Benchmark
+    public List<Book> listDeepOffsetPage() {
+        return libraryService.findAllBooks(90, 10).collectList().block();
+    }
+
+    @Benchmark
+    public List<Book> listPageByCursor() {
+        return libraryService.findBooksAfter(null, 10).collectList().block();
+    }
+}
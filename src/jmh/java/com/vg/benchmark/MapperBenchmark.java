@@ -0,0 +1,59 @@
+package com.vg.benchmark;
+
+import com.vg.dto.BookRequestDTO;
+import com.vg.dto.BookResponseDTO;
+import com.vg.dto.BorrowedBookViewDTO;
+import com.vg.mapper.BookMappers;
+import com.vg.mapper.BorrowedBookMappers;
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private Book book;
+    private BookRequestDTO request;
+    private BorrowedBook borrowedBook;
+    private BorrowedBookDetails borrowedBookDetails;
+
+    @Setup
+    public void setUp() {
+        UUID bookId = UUID.randomUUID();
+        book = new Book(bookId, "Effective Java", "Joshua Bloch", true, 3L);
+        request = new BookRequestDTO("Effective Java", "Joshua Bloch");
+        borrowedBook = new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), bookId, LocalDateTime.now());
+        borrowedBookDetails = new BorrowedBookDetails(UUID.randomUUID(), bookId, "Effective Java", "Joshua Bloch",
+                LocalDateTime.now(), false);
+    }
+
+    @Benchmark
+    public BookResponseDTO bookToDto() {
+        return BookMappers.bookToDto.apply(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return BookMappers.toEntity.apply(request);
+    }
+
+    @Benchmark
+    public BorrowedBookViewDTO borrowedBookToDto() {
+        return BorrowedBookMappers.borrowedBookToDto.apply(borrowedBook, book);
+    }
+
+    @Benchmark
+    public BorrowedBookViewDTO borrowedBookDetailsToDto() {
+        return BorrowedBookMappers.borrowedBookDetailsToDto.apply(borrowedBookDetails);
+    }
+}
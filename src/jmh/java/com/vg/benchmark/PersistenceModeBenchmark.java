@@ -0,0 +1,102 @@
+package com.vg.benchmark;
+
+import com.vg.model.Book;
+import com.vg.repository.jdbc.JdbcPersistence;
+import com.vg.service.LibraryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same concurrent workload against R2DBC and against blocking JDBC on virtual threads
+ * (the {@code jdbc} profile). Half the threads borrow and return their own book while the other
+ * half list catalog pages, all at once and through the same connection pool size; sample time
+ * reports the latency percentiles of each operation.
+ * <p>
+ * Each call is subscribed on a virtual thread of its own rather than on the JMH thread. H2's
+ * R2DBC driver completes synchronously, so the thread that releases a pooled connection runs
+ * the queued callers' pipelines inline for as long as others keep arriving; on a JMH thread that
+ * call would never return and the iteration would never end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceModeBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000;
+    private static final int PAGE_SIZE = 10;
+    private static final int THREADS_PER_OPERATION = 16;
+    private static final int POOL_SIZE = 20;
+
+    @Param({"r2dbc", JdbcPersistence.PROFILE})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private LibraryService libraryService;
+    private Scheduler callers;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        callers = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "callers");
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.r2dbc.pool.max-size=" + POOL_SIZE,
+                "library.jdbc.max-connections=" + POOL_SIZE));
+        if (mode.equals(JdbcPersistence.PROFILE)) {
+            properties.add("spring.profiles.active=" + JdbcPersistence.PROFILE);
+        }
+        context = BenchmarkContexts.start(properties.toArray(String[]::new));
+        libraryService = context.getBean(LibraryService.class);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            libraryService.addBook(new Book(null, "Title " + i, "Author " + i, true, null)).block();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+        callers.dispose();
+    }
+
+    @State(Scope.Thread)
+    public static class Borrower {
+        private final UUID userId = UUID.randomUUID();
+        private UUID bookId;
+
+        @Setup(Level.Trial)
+        public void addOwnBook(PersistenceModeBenchmark benchmark) {
+            bookId = benchmark.libraryService.addBook(new Book(null, "Own book", "Bench", true, null))
+                    .block()
+                    .getId();
+        }
+    }
+
+    @Benchmark
+    @Group("borrowAndList")
+    @GroupThreads(THREADS_PER_OPERATION)
+    public Book borrowAndReturn(Borrower borrower) {
+        return libraryService.borrowBook(borrower.bookId, borrower.userId)
+                .then(Mono.defer(() -> libraryService.returnBook(borrower.bookId, borrower.userId)))
+                .subscribeOn(callers)
+                .block();
+    }
+
+    @Benchmark
+    @Group("borrowAndList")
+    @GroupThreads(THREADS_PER_OPERATION)
+    public List<Book> listPage() {
+        int page = ThreadLocalRandom.current().nextInt(CATALOG_SIZE / PAGE_SIZE);
+        return libraryService.findAllBooks(page, PAGE_SIZE).collectList().subscribeOn(callers).block();
+    }
+}
@@ -0,0 +1,57 @@
+package com.vg.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.vg.config.BinaryCodecsConfiguration;
+import com.vg.dto.BookResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Jackson encoding of a {@code GET /library/books} page, using the same ObjectMapper
+ * defaults Spring Boot applies to WebFlux, as JSON and as the CBOR and Smile bodies served
+ * for {@code Accept: application/cbor} and {@code application/x-jackson-smile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private List<BookResponseDTO> page;
+    private ObjectWriter listWriter;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = switch (format) {
+            case "cbor" -> BinaryCodecsConfiguration.cborMapper(Jackson2ObjectMapperBuilder.json().build());
+            case "smile" -> BinaryCodecsConfiguration.smileMapper(Jackson2ObjectMapperBuilder.json().build());
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        listWriter = objectMapper.writerFor(TypeFactory.defaultInstance()
+                .constructCollectionType(List.class, BookResponseDTO.class));
+        page = IntStream.range(0, pageSize)
+                .mapToObj(i -> new BookResponseDTO(UUID.randomUUID(), "Title " + i, "Author " + i, i % 2 == 0))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeBookPage() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,161 @@
+package com.vg.admission;
+
+import com.vg.config.AdmissionProperties;
+import com.vg.exception.ServiceBusyException;
+import com.vg.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns away write requests the service would only answer slowly, before they reach a controller
+ * or take a database connection.
+ * <p>
+ * A request to one of the {@code library.admission.endpoints} first takes a slot of the endpoint's
+ * concurrency limit, shared by all users; with every slot taken it gets {@code 503}. It then takes a
+ * token from the bucket of its {@code userId}, if it names one; a user out of tokens gets {@code 429}
+ * with the time until the next token in {@code Retry-After}, or no {@code Retry-After} if tokens are
+ * never refilled. A request turned away by the concurrency limit thus keeps the user's token. Slots
+ * are given back when the response completes, fails or is cancelled, or when the user is rate limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "library.admission", name = "enabled", havingValue = "true")
+public class AdmissionControlFilter implements WebFilter {
+
+    static final String REQUESTS = "library.admission.requests";
+    static final String IN_FLIGHT = "library.admission.in-flight";
+    static final String TRACKED_USERS = "library.admission.tracked-users";
+
+    static final String ACCEPTED = "accepted";
+    static final String RATE_LIMITED = "rate_limited";
+    static final String OVERLOADED = "overloaded";
+
+    private static final String USER_ID = "userId";
+
+    private final List<Endpoint> endpoints;
+    private final UserRateLimiter rateLimiter;
+    private final String retryAfter;
+
+    public AdmissionControlFilter(AdmissionProperties properties, MeterRegistry registry) {
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        this.endpoints = properties.endpoints().stream()
+                .map(endpoint -> new Endpoint(endpoint, parser.parse(endpoint.path()), registry))
+                .toList();
+        this.rateLimiter = new UserRateLimiter(properties);
+        this.retryAfter = Long.toString(Math.max(1, properties.retryAfter().toSeconds()));
+        Gauge.builder(TRACKED_USERS, rateLimiter, UserRateLimiter::trackedUsers)
+                .description("Users with a rate limit bucket")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Endpoint endpoint = match(exchange.getRequest());
+        if (endpoint == null) {
+            return chain.filter(exchange);
+        }
+
+        if (!endpoint.tryAcquire()) {
+            endpoint.overloaded.increment();
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return Mono.error(new ServiceBusyException("Too many concurrent requests to " + endpoint.name));
+        }
+
+        String userId = exchange.getRequest().getQueryParams().getFirst(USER_ID);
+        if (userId != null) {
+            long waitNanos = rateLimiter.tryAcquire(userId);
+            if (waitNanos > 0) {
+                endpoint.release();
+                endpoint.rateLimited.increment();
+                if (waitNanos != UserRateLimiter.NEVER) {
+                    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, seconds(waitNanos));
+                }
+                return Mono.error(new TooManyRequestsException("Too many requests for user " + userId));
+            }
+        }
+        endpoint.accepted.increment();
+        return chain.filter(exchange).doFinally(signal -> endpoint.release());
+    }
+
+    private Endpoint match(ServerHttpRequest request) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.method.equals(request.getMethod()) && endpoint.pattern.matches(request.getPath().pathWithinApplication())) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    // Rounds up without adding to nanos, which may be close to Long.MAX_VALUE
+    private static String seconds(long nanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        long whole = nanos / second;
+        return Long.toString(Math.max(1, nanos % second == 0 ? whole : whole + 1));
+    }
+
+    private static final class Endpoint {
+        private final HttpMethod method;
+        private final PathPattern pattern;
+        private final String name;
+        private final int maxConcurrent;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter accepted;
+        private final Counter rateLimited;
+        private final Counter overloaded;
+
+        Endpoint(AdmissionProperties.Endpoint endpoint, PathPattern pattern, MeterRegistry registry) {
+            this.method = endpoint.method();
+            this.pattern = pattern;
+            this.name = endpoint.method().name() + " " + endpoint.path();
+            this.maxConcurrent = endpoint.maxConcurrent();
+            this.accepted = counter(registry, ACCEPTED);
+            this.rateLimited = counter(registry, RATE_LIMITED);
+            this.overloaded = counter(registry, OVERLOADED);
+            Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                    .description("Admitted requests still running")
+                    .tag("endpoint", name)
+                    .register(registry);
+        }
+
+        boolean tryAcquire() {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= maxConcurrent) {
+                    return false;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+
+        private Counter counter(MeterRegistry registry, String outcome) {
+            return Counter.builder(REQUESTS)
+                    .description("Requests to limited endpoints by admission outcome")
+                    .tag("endpoint", name)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.vg.admission;
+
+import com.vg.config.AdmissionProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per user, refilled continuously at {@code library.admission.user-rate} up to
+ * {@code library.admission.user-burst}.
+ * <p>
+ * Users are spread over a fixed number of stripes, each a small access-ordered map behind its own
+ * lock, so users on different stripes never contend. Each stripe holds its share of
+ * {@code library.admission.max-tracked-users} and drops its least recently seen user when full.
+ * A dropped user starts again with a full bucket.
+ */
+public class UserRateLimiter {
+
+    /**
+     * Returned by {@link #tryAcquire} when {@code library.admission.user-rate} is zero, so a user's
+     * tokens never come back.
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final double tokensPerNano;
+    private final double burst;
+    private final LongSupplier nanoClock;
+
+    public UserRateLimiter(AdmissionProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    UserRateLimiter(AdmissionProperties properties, LongSupplier nanoClock) {
+        int count = properties.stripes() <= 1 ? 1 : Integer.highestOneBit(properties.stripes() - 1) << 1;
+        int perStripe = Math.max(1, properties.maxTrackedUsers() / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.mask = count - 1;
+        this.tokensPerNano = properties.userRate() / NANOS_PER_SECOND;
+        this.burst = Math.max(1, properties.userBurst());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token for the user.
+     *
+     * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next one is available,
+     *         or {@link #NEVER}
+     */
+    public long tryAcquire(String userId) {
+        return stripeFor(userId).tryAcquire(userId, nanoClock.getAsLong());
+    }
+
+    public int trackedUsers() {
+        int users = 0;
+        for (Stripe stripe : stripes) {
+            users += stripe.size();
+        }
+        return users;
+    }
+
+    private Stripe stripeFor(String userId) {
+        int hash = userId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets;
+
+        Stripe(int capacity) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        long tryAcquire(String userId, long now) {
+            lock.lock();
+            try {
+                Bucket bucket = buckets.get(userId);
+                if (bucket == null) {
+                    buckets.put(userId, new Bucket(burst - 1, now));
+                    return 0;
+                }
+                bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+                if (bucket.tokens >= 1) {
+                    bucket.tokens -= 1;
+                    return 0;
+                }
+                return tokensPerNano > 0 ? (long) Math.ceil((1 - bucket.tokens) / tokensPerNano) : NEVER;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return buckets.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
@@ -1,70 +1,171 @@
 package com.vg.advice;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.vg.exception.BookConcurrencyException;
+import com.vg.config.BinaryCodecsConfiguration;
 import com.vg.exception.BookNotFoundException;
 import com.vg.exception.BookUnavailableException;
 import com.vg.exception.BorrowRecordNotFoundException;
+import com.vg.exception.InvalidCursorException;
+import com.vg.exception.InvalidPageRequestException;
+import com.vg.exception.SearchIndexNotReadyException;
+import com.vg.exception.ServiceBusyException;
+import com.vg.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 @Order(-2)
 public class GlobalWebFluxExceptionHandler implements ErrorWebExceptionHandler {
 
-    private final ObjectMapper objectMapper;
+    private static final Logger log = LoggerFactory.getLogger(GlobalWebFluxExceptionHandler.class);
+
+    private static final Map<Class<?>, HttpStatus> STATUS_BY_TYPE = Map.of(
+            BookNotFoundException.class, HttpStatus.NOT_FOUND,
+            BookUnavailableException.class, HttpStatus.CONFLICT,
+            BorrowRecordNotFoundException.class, HttpStatus.CONFLICT,
+            InvalidCursorException.class, HttpStatus.BAD_REQUEST,
+            InvalidPageRequestException.class, HttpStatus.BAD_REQUEST,
+            SearchIndexNotReadyException.class, HttpStatus.SERVICE_UNAVAILABLE,
+            TooManyRequestsException.class, HttpStatus.TOO_MANY_REQUESTS,
+            ServiceBusyException.class, HttpStatus.SERVICE_UNAVAILABLE);
+
+    // Resolved once per exception class, then a field read
+    private static final ClassValue<HttpStatus> STATUS = new ClassValue<>() {
+        @Override
+        protected HttpStatus computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                HttpStatus status = STATUS_BY_TYPE.get(current);
+                if (status != null) {
+                    return status;
+                }
+            }
+            return HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+    };
+
+    // JSON first: it is the answer to */* and to an Accept header naming nothing we produce
+    private final List<ErrorEncoding> encodings;
+    private final Map<HttpStatus, JsonErrorTemplate> jsonTemplates;
 
     public GlobalWebFluxExceptionHandler(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+        this.encodings = List.of(
+                new ErrorEncoding(MediaType.APPLICATION_JSON, objectMapper),
+                new ErrorEncoding(MediaType.APPLICATION_CBOR, BinaryCodecsConfiguration.cborMapper(objectMapper)),
+                new ErrorEncoding(BinaryCodecsConfiguration.APPLICATION_SMILE, BinaryCodecsConfiguration.smileMapper(objectMapper)));
+        this.jsonTemplates = JsonErrorTemplate.forStatuses(objectMapper);
     }
 
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
-        return Mono.just(exchange)
-                .doOnNext(e -> prepareResponse(e, ex))
-                .flatMap(e -> serializeError(ex))
-                .flatMap(bytes -> writeResponse(exchange, bytes))
-                .onErrorResume(JsonProcessingException.class, this::handleSerializationError);
-    }
+        HttpStatus status = STATUS.get(ex.getClass());
+        ErrorEncoding encoding = negotiate(exchange);
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(encoding.mediaType());
 
-    private void prepareResponse(ServerWebExchange exchange, Throwable ex) {
-        HttpStatus status = determineStatus(ex);
-        exchange.getResponse().setStatusCode(status);
-        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        JsonErrorTemplate template = encoding == encodings.get(0) ? jsonTemplates.get(status) : null;
+        if (template != null && ex.getMessage() != null) {
+            return response.writeWith(Mono.just(template.render(ex.getMessage(), Instant.now(), response)));
+        }
+        return Mono.fromCallable(() -> encoding.mapper().writeValueAsBytes(new ErrorResponse(ex.getMessage(), status)))
+                .flatMap(bytes -> response.writeWith(Mono.just(response.bufferFactory().wrap(bytes))));
     }
 
-    private Mono<byte[]> serializeError(Throwable ex) {
-        return Mono.fromCallable(() ->
-                objectMapper.writeValueAsBytes(
-                        new ErrorResponse(ex.getMessage(), determineStatus(ex))
-                ));
+    private ErrorEncoding negotiate(ServerWebExchange exchange) {
+        List<MediaType> accepted = exchange.getRequest().getHeaders().getAccept();
+        if (accepted.isEmpty()) {
+            return encodings.get(0);
+        }
+        accepted = new ArrayList<>(accepted);
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            for (ErrorEncoding encoding : encodings) {
+                if (mediaType.isCompatibleWith(encoding.mediaType())) {
+                    return encoding;
+                }
+            }
+        }
+        return encodings.get(0);
     }
 
-    private Mono<Void> writeResponse(ServerWebExchange exchange, byte[] bytes) {
-        return exchange.getResponse()
-                .writeWith(Mono.just(exchange.getResponse()
-                        .bufferFactory()
-                        .wrap(bytes)));
+    private record ErrorEncoding(MediaType mediaType, ObjectMapper mapper) {
     }
 
-    private Mono<Void> handleSerializationError(JsonProcessingException ex) {
-        return Mono.error(ex);
-    }
+    /**
+     * A JSON error body for one status, encoded once by the application's ObjectMapper with
+     * placeholders, so that only the message and the timestamp are written per error.
+     */
+    private record JsonErrorTemplate(byte[] head, byte[] middle, byte[] tail) {
+
+        private static final String MESSAGE_PLACEHOLDER = "MESSAGE_PLACEHOLDER";
+        private static final String TIMESTAMP_PLACEHOLDER = DateTimeFormatter.ISO_INSTANT.format(Instant.EPOCH);
+
+        /**
+         * Templates for every status the handler answers with. Empty when the mapper does not write
+         * the timestamp as an ISO string, in which case every body goes through the mapper.
+         */
+        static Map<HttpStatus, JsonErrorTemplate> forStatuses(ObjectMapper mapper) {
+            Map<HttpStatus, JsonErrorTemplate> templates = new EnumMap<>(HttpStatus.class);
+            try {
+                for (HttpStatus status : List.of(HttpStatus.NOT_FOUND, HttpStatus.CONFLICT,
+                        HttpStatus.BAD_REQUEST, HttpStatus.TOO_MANY_REQUESTS, HttpStatus.SERVICE_UNAVAILABLE,
+                        HttpStatus.INTERNAL_SERVER_ERROR)) {
+                    String json = mapper.writeValueAsString(new ErrorResponse(
+                            MESSAGE_PLACEHOLDER, status.getReasonPhrase(), status.value(), Instant.EPOCH));
+                    int message = json == null ? -1 : json.indexOf(MESSAGE_PLACEHOLDER);
+                    int timestamp = message < 0 ? -1 : json.indexOf(TIMESTAMP_PLACEHOLDER, message);
+                    if (timestamp < 0) {
+                        log.info("Error bodies are encoded per request; the ObjectMapper does not write ISO timestamps");
+                        return Map.of();
+                    }
+                    templates.put(status, new JsonErrorTemplate(
+                            bytes(json.substring(0, message)),
+                            bytes(json.substring(message + MESSAGE_PLACEHOLDER.length(), timestamp)),
+                            bytes(json.substring(timestamp + TIMESTAMP_PLACEHOLDER.length()))));
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("Could not prepare error body templates", e);
+                return Map.of();
+            }
+            return templates;
+        }
 
-    private HttpStatus determineStatus(Throwable ex) {
-        if (ex instanceof BookNotFoundException) return HttpStatus.NOT_FOUND;
-        if (ex instanceof BookConcurrencyException) return HttpStatus.CONFLICT;
-        if (ex instanceof BookUnavailableException) return HttpStatus.CONFLICT;
-        if (ex instanceof BorrowRecordNotFoundException) return HttpStatus.CONFLICT;
-        return HttpStatus.INTERNAL_SERVER_ERROR;
+        DataBuffer render(String message, Instant timestamp, ServerHttpResponse response) {
+            byte[] escapedMessage = JsonStringEncoder.getInstance().quoteAsUTF8(message);
+            byte[] formattedTimestamp = bytes(DateTimeFormatter.ISO_INSTANT.format(timestamp));
+            return response.bufferFactory()
+                    .allocateBuffer(head.length + escapedMessage.length + middle.length
+                            + formattedTimestamp.length + tail.length)
+                    .write(head)
+                    .write(escapedMessage)
+                    .write(middle)
+                    .write(formattedTimestamp)
+                    .write(tail);
+        }
+
+        private static byte[] bytes(String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
     }
 
     public record ErrorResponse(
@@ -82,4 +183,4 @@ public class GlobalWebFluxExceptionHandler implements ErrorWebExceptionHandler {
             );
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package com.vg.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.vg.config.BookCacheProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Read-through cache of {@link Book} by id in front of {@link BookRepository}.
+ * <p>
+ * Entries are only ever replaced by a book with the same or a higher {@code version},
+ * so a slow read that started before a borrow or return cannot overwrite the newer
+ * state written by it. Books are copied on the way in and out because the entity is mutable.
+ * Concurrent misses for the same id share one database read.
+ */
+@Component
+public class BookCache implements MeterBinder {
+
+    static final String CACHE_NAME = "books";
+
+    private final BookRepository bookRepository;
+    private final ReadCoalescer coalescer;
+    private final Cache<UUID, Book> cache;
+
+    public BookCache(BookRepository bookRepository, ReadCoalescer coalescer, BookCacheProperties properties) {
+        this.bookRepository = bookRepository;
+        this.coalescer = coalescer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    public Mono<Book> findById(UUID id) {
+        Book cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Mono.just(copy(cached));
+        }
+        return coalescer.coalesce("findBookById", id, () -> bookRepository.findById(id).doOnNext(this::put))
+                .map(BookCache::copy);
+    }
+
+    /**
+     * Looks up several books in the order of {@code ids}, loading all misses with one query.
+     * Ids that are not stored are skipped.
+     */
+    public Flux<Book> findAllById(List<UUID> ids) {
+        return Flux.defer(() -> {
+            Map<UUID, Book> found = new HashMap<>();
+            List<UUID> misses = new ArrayList<>();
+            for (UUID id : ids) {
+                Book cached = cache.getIfPresent(id);
+                if (cached != null) {
+                    found.put(id, copy(cached));
+                } else {
+                    misses.add(id);
+                }
+            }
+            Mono<Map<UUID, Book>> loaded = misses.isEmpty()
+                    ? Mono.just(found)
+                    : bookRepository.findAllById(misses)
+                            .doOnNext(this::put)
+                            .collect(() -> found, (books, book) -> books.put(book.getId(), copy(book)));
+            return loaded.flatMapIterable(books -> ids.stream()
+                    .map(books::get)
+                    .filter(Objects::nonNull)
+                    .toList());
+        });
+    }
+
+    public void put(Book book) {
+        cache.asMap().merge(book.getId(), copy(book), BookCache::newer);
+    }
+
+    public void evict(UUID id) {
+        cache.invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private static Book newer(Book current, Book candidate) {
+        return version(candidate) >= version(current) ? candidate : current;
+    }
+
+    private static long version(Book book) {
+        return book.getVersion() == null ? -1L : book.getVersion();
+    }
+
+    private static Book copy(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.isAvailable(), book.getVersion());
+    }
+}
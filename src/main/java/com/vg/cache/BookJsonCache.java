@@ -0,0 +1,75 @@
+package com.vg.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.vg.config.BookJsonCacheProperties;
+import com.vg.dto.BookResponseDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.stereotype.Component;
+
+/**
+ * JSON bytes of {@link BookResponseDTO}s, so a book that has not changed is not serialized again.
+ * <p>
+ * The cache is keyed by the DTO itself: its fields are exactly what the bytes are made of, so a
+ * borrow or return looks up a different entry instead of serving stale bytes, and a book that goes
+ * back to a state it had before finds that entry again. Entries are weighed by their encoded size.
+ * The cached arrays are shared and must not be modified.
+ */
+@Component
+public class BookJsonCache implements MeterBinder {
+
+    static final String CACHE_NAME = "book-json";
+
+    private final ObjectWriter writer;
+    private final Cache<BookResponseDTO, byte[]> cache;
+
+    public BookJsonCache(ObjectMapper objectMapper, BookJsonCacheProperties properties) {
+        this.writer = objectMapper.writerFor(BookResponseDTO.class);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maximumSize().toBytes())
+                .weigher((BookResponseDTO book, byte[] json) -> json.length)
+                .recordStats()
+                .build();
+    }
+
+    public byte[] encode(BookResponseDTO book) {
+        return cache.get(book, this::serialize);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long bytes() {
+        // Weights are applied by Caffeine's maintenance; run what is pending so the figure is current
+        cache.cleanUp();
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        Gauge.builder("library.cache.book-json.bytes", this, BookJsonCache::bytes)
+                .description("Encoded JSON bytes held for books")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private byte[] serialize(BookResponseDTO book) {
+        try {
+            return writer.writeValueAsBytes(book);
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("Could not encode book " + book.id(), e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.vg.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.dto.BookResponseDTO;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON encoder that writes {@link BookResponseDTO}s from {@link BookJsonCache} instead of running
+ * Jackson for every book. A list of books is copied into one buffer of its exact size. Other types,
+ * other charsets and streaming media types take the regular Jackson path.
+ */
+public class BookJsonEncoder extends Jackson2JsonEncoder {
+
+    private final BookJsonCache cache;
+
+    public BookJsonEncoder(ObjectMapper mapper, BookJsonCache cache) {
+        super(mapper);
+        this.cache = cache;
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono || !fromCache(elementType, mimeType)) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+        return Flux.from(inputStream)
+                .collectList()
+                .map(books -> array(books, bufferFactory))
+                .flux();
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        if (value instanceof BookResponseDTO book && fromCache(valueType, mimeType)) {
+            byte[] json = cache.encode(book);
+            return bufferFactory.allocateBuffer(json.length).write(json);
+        }
+        return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+    }
+
+    private DataBuffer array(List<?> books, DataBufferFactory bufferFactory) {
+        // Look everything up before allocating, so a failed encode cannot leak the buffer
+        byte[][] encoded = new byte[books.size()][];
+        int size = 2 + Math.max(0, books.size() - 1);
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = cache.encode((BookResponseDTO) books.get(i));
+            size += encoded[i].length;
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(size);
+        buffer.write((byte) '[');
+        for (int i = 0; i < encoded.length; i++) {
+            if (i > 0) {
+                buffer.write((byte) ',');
+            }
+            buffer.write(encoded[i]);
+        }
+        return buffer.write((byte) ']');
+    }
+
+    private static boolean fromCache(ResolvableType type, MimeType mimeType) {
+        return type.toClass() == BookResponseDTO.class
+                && (mimeType == null || (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mimeType)
+                && (mimeType.getCharset() == null || StandardCharsets.UTF_8.equals(mimeType.getCharset()))));
+    }
+}
@@ -0,0 +1,77 @@
+package com.vg.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vg.config.ETagProperties;
+import com.vg.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters behind the ETags of catalog and borrowed-books reads, so an unchanged response
+ * can be recognised without running its query.
+ * <p>
+ * The catalog counter moves on every add, borrow and return; a user's counter moves when that user
+ * borrows or returns. Counters are bumped after the change is committed, so a tag is never newer
+ * than the data read after it. Every user change takes the next value of one shared sequence, and a
+ * user without a tracked counter (never seen, or evicted) starts from the current sequence value,
+ * which is at least as new as anything that user changed. Tags start with a random epoch so that they never
+ * match across restarts.
+ */
+@Component
+public class CatalogVersions {
+
+    private final boolean enabled;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong catalog = new AtomicLong();
+    private final AtomicLong userSequence = new AtomicLong();
+    private final Cache<UUID, Long> users;
+
+    public CatalogVersions(ETagProperties properties) {
+        this.enabled = properties.enabled();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.maxTrackedUsers())
+                .build();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String catalogTag() {
+        return weak("c" + epoch + "-" + catalog.get());
+    }
+
+    public String userTag(UUID userId) {
+        return weak("u" + epoch + "-" + users.get(userId, id -> userSequence.get()));
+    }
+
+    public static String bookTag(Book book) {
+        return weak("b" + book.getVersion() + (book.isAvailable() ? "a" : "b"));
+    }
+
+    public void catalogChanged() {
+        catalog.incrementAndGet();
+    }
+
+    public void userChanged(UUID userId) {
+        catalog.incrementAndGet();
+        users.asMap().merge(userId, userSequence.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * For changes to {@code borrowed_book} that are not tied to one user, such as a journal replay.
+     */
+    public void allUsersChanged() {
+        users.invalidateAll();
+        userSequence.incrementAndGet();
+        catalog.incrementAndGet();
+    }
+
+    private static String weak(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+}
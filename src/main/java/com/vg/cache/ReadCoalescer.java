@@ -0,0 +1,77 @@
+package com.vg.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical reads that run at the same time share one query.
+ * <p>
+ * The first caller for a key starts the query; callers with the same key arriving while it runs
+ * subscribe to the same execution and get every element it emitted so far, then the rest. Once
+ * the query terminates the key is forgotten, so nothing is kept past completion and the next
+ * caller queries again. The query is cancelled only when every caller sharing it has cancelled.
+ * <p>
+ * Elements are handed to all callers as the same instances; callers copy mutable values if they
+ * hand them on.
+ */
+@Component
+public class ReadCoalescer {
+
+    static final String COALESCED = "library.reads.coalesced";
+
+    private final Map<Key, Flux<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public ReadCoalescer(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> Mono<T> coalesce(String operation, Object key, Supplier<Mono<T>> query) {
+        return coalesceMany(operation, key, () -> query.get().flux()).next();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> coalesceMany(String operation, Object key, Supplier<Flux<T>> query) {
+        return Flux.defer(() -> {
+            Key flightKey = new Key(operation, key);
+            Flux<?> running = inFlight.get(flightKey);
+            if (running == null) {
+                AtomicReference<Flux<T>> self = new AtomicReference<>();
+                Flux<T> flight = query.get()
+                        .doFinally(signal -> inFlight.remove(flightKey, self.get()))
+                        .replay()
+                        .refCount();
+                self.set(flight);
+                running = inFlight.putIfAbsent(flightKey, flight);
+                if (running == null) {
+                    return flight;
+                }
+            }
+            counter(operation).increment();
+            return (Flux<T>) running;
+        });
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private Counter counter(String operation) {
+        return coalesced.computeIfAbsent(operation, name -> Counter.builder(COALESCED)
+                .description("Reads answered by a query another caller had already started")
+                .tag("operation", name)
+                .register(registry));
+    }
+
+    private record Key(String operation, Object key) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.vg.command;
+
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Runs a command that changes one book, such as a borrow or a return.
+ */
+public interface BookCommandExecutor {
+
+    <T> Mono<T> execute(UUID bookId, Mono<T> command);
+}
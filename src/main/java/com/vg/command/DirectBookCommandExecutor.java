@@ -0,0 +1,21 @@
+package com.vg.command;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Runs commands as soon as they are subscribed; concurrent changes to a book are settled by the
+ * conditional updates in the database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.commands", name = "serialized", havingValue = "false", matchIfMissing = true)
+public class DirectBookCommandExecutor implements BookCommandExecutor {
+
+    @Override
+    public <T> Mono<T> execute(UUID bookId, Mono<T> command) {
+        return command;
+    }
+}
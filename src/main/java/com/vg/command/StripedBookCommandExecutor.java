@@ -0,0 +1,154 @@
+package com.vg.command;
+
+import com.vg.config.BookCommandProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs commands for the same book one after another, so racing borrows of a popular book are
+ * answered in turn instead of all hitting the database at once and all but one failing.
+ * <p>
+ * Book ids are spread over a fixed number of stripes. Each stripe is a lock-free queue with a
+ * work-in-progress counter: whoever takes the counter from zero starts the next command, and the
+ * completion of a command starts the one after it. No thread is ever blocked waiting for a turn.
+ * Books on different stripes run fully in parallel; two books only wait for each other if their
+ * ids share a stripe.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.commands", name = "serialized", havingValue = "true")
+public class StripedBookCommandExecutor implements BookCommandExecutor {
+
+    static final String QUEUE_DEPTH = "library.commands.queue.depth";
+    static final String QUEUE_WAIT = "library.commands.queue.wait";
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Timer waitTimer;
+
+    public StripedBookCommandExecutor(BookCommandProperties properties, MeterRegistry registry) {
+        int count = properties.stripes() <= 1 ? 1 : Integer.highestOneBit(properties.stripes() - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+        Gauge.builder(QUEUE_DEPTH, depth, AtomicInteger::get)
+                .description("Book commands queued or running")
+                .register(registry);
+        this.waitTimer = Timer.builder(QUEUE_WAIT)
+                .description("Time a book command waited for earlier commands on the same stripe")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public <T> Mono<T> execute(UUID bookId, Mono<T> command) {
+        return Mono.create(sink -> {
+            Task<T> task = new Task<>(command, sink);
+            sink.onCancel(task::cancel);
+            stripeFor(bookId).submit(task);
+        });
+    }
+
+    int stripeIndex(UUID bookId) {
+        int hash = bookId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private Stripe stripeFor(UUID bookId) {
+        return stripes[stripeIndex(bookId)];
+    }
+
+    private final class Stripe {
+        private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        void submit(Task<?> task) {
+            depth.incrementAndGet();
+            queue.offer(task);
+            if (wip.getAndIncrement() == 0) {
+                drain();
+            }
+        }
+
+        // Loops while commands complete synchronously, so a long queue does not grow the stack
+        private void drain() {
+            do {
+                if (!queue.poll().start(this::next)) {
+                    return;
+                }
+            } while (wip.decrementAndGet() > 0);
+        }
+
+        private void next() {
+            if (wip.decrementAndGet() > 0) {
+                drain();
+            }
+        }
+    }
+
+    private final class Task<T> {
+        private final Mono<T> command;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt = System.nanoTime();
+        // Start and completion each take a turn; whichever comes second moves the stripe on
+        private final AtomicInteger handoff = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Disposable running;
+        private Runnable next;
+
+        Task(Mono<T> command, MonoSink<T> sink) {
+            this.command = command;
+            this.sink = sink;
+        }
+
+        /**
+         * @return {@code true} if the command already completed, {@code false} if its completion will call {@code next}
+         */
+        boolean start(Runnable next) {
+            this.next = next;
+            waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            if (cancelled) {
+                finished();
+            } else {
+                // Started by whichever caller drains the stripe, so carry over this caller's context
+                running = command
+                        .doFinally(signal -> finished())
+                        .contextWrite(sink.contextView())
+                        .subscribe(sink::success, sink::error, sink::success);
+                if (cancelled) {
+                    running.dispose();
+                }
+            }
+            return handoff.getAndIncrement() == 1;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Disposable current = running;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+
+        private void finished() {
+            depth.decrementAndGet();
+            if (handoff.getAndIncrement() == 1) {
+                next.run();
+            }
+        }
+    }
+}
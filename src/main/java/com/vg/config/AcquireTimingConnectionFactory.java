@@ -0,0 +1,67 @@
+package com.vg.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long callers wait to acquire a connection from the pool as the
+ * {@code r2dbc.pool.acquire} timer. r2dbc-pool itself only reports the size gauges.
+ * <p>
+ * Implements {@link Wrapped} so the actuator still finds the underlying {@link ConnectionPool}
+ * and binds its {@code r2dbc.pool.acquired/idle/pending/...} gauges.
+ */
+public class AcquireTimingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    static final String ACQUIRE_TIMER = "r2dbc.pool.acquire";
+
+    private final ConnectionPool pool;
+    private final Timer acquired;
+    private final Timer failed;
+
+    public AcquireTimingConnectionFactory(ConnectionPool pool, String poolName, MeterRegistry registry) {
+        this.pool = pool;
+        this.acquired = acquireTimer(poolName, "success", registry);
+        this.failed = acquireTimer(poolName, "failure", registry);
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return pool.create()
+                    .doOnSuccess(connection -> acquired.record(System.nanoTime() - started, TimeUnit.NANOSECONDS))
+                    .doOnError(ex -> failed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return pool;
+    }
+
+    public void dispose() {
+        pool.dispose();
+    }
+
+    private static Timer acquireTimer(String poolName, String outcome, MeterRegistry registry) {
+        return Timer.builder(ACQUIRE_TIMER)
+                .description("Time spent waiting to acquire a pooled R2DBC connection")
+                .tag("name", poolName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,53 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for admission control on write endpoints.
+ *
+ * @param enabled         reject excess requests before they reach a controller
+ * @param userRate        requests per second each {@code userId} may send to a limited endpoint, on average
+ * @param userBurst       requests a {@code userId} may send at once after being idle
+ * @param maxTrackedUsers number of users whose bucket is kept; the least recently seen are dropped first
+ *                        and start again with a full bucket
+ * @param stripes         number of independently locked parts the buckets are spread over; rounded up to
+ *                        a power of two
+ * @param retryAfter      {@code Retry-After} sent when an endpoint is at its concurrency limit
+ * @param endpoints       endpoints that are limited, each with the most requests it may run at once
+ */
+@ConfigurationProperties("library.admission")
+public record AdmissionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("20") double userRate,
+        @DefaultValue("40") int userBurst,
+        @DefaultValue("100000") int maxTrackedUsers,
+        @DefaultValue("64") int stripes,
+        @DefaultValue("1s") Duration retryAfter,
+        List<Endpoint> endpoints
+) {
+
+    public static final List<Endpoint> DEFAULT_ENDPOINTS = List.of(
+            new Endpoint(HttpMethod.PUT, "/library/borrow/{bookId}", 64),
+            new Endpoint(HttpMethod.PUT, "/library/return/{bookId}", 64),
+            new Endpoint(HttpMethod.PUT, "/library/borrow", 16),
+            new Endpoint(HttpMethod.PUT, "/library/return", 16),
+            new Endpoint(HttpMethod.POST, "/library/book", 16),
+            new Endpoint(HttpMethod.POST, "/library/books/bulk", 2));
+
+    public AdmissionProperties {
+        endpoints = endpoints == null || endpoints.isEmpty() ? DEFAULT_ENDPOINTS : List.copyOf(endpoints);
+    }
+
+    /**
+     * @param method        HTTP method the limit applies to
+     * @param path          path pattern, as in the controller mapping
+     * @param maxConcurrent requests to this endpoint that may run at once across all users
+     */
+    public record Endpoint(HttpMethod method, String path, int maxConcurrent) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.vg.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.vg.cache.BookJsonCache;
+import com.vg.cache.BookJsonEncoder;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets clients ask for CBOR ({@code application/cbor}) or Smile ({@code application/x-jackson-smile})
+ * instead of JSON. Both are binary encodings of the same Jackson model, so the DTOs are unchanged
+ * and the payload shrinks by skipping quoting and number formatting.
+ * <p>
+ * The binary mappers are copies of the application's JSON {@link ObjectMapper}, so they share its
+ * modules and settings. JSON itself is written by {@link BookJsonEncoder}, which serves books from
+ * {@link BookJsonCache}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryCodecsConfiguration {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Bean
+    public CodecCustomizer binaryCodecsCustomizer(ObjectMapper objectMapper, BookJsonCache bookJsonCache) {
+        return configurer -> register(configurer, objectMapper, new BookJsonEncoder(objectMapper, bookJsonCache));
+    }
+
+    public static void register(CodecConfigurer configurer, ObjectMapper objectMapper) {
+        register(configurer, objectMapper, new Jackson2JsonEncoder(objectMapper));
+    }
+
+    public static void register(CodecConfigurer configurer, ObjectMapper objectMapper, Jackson2JsonEncoder jsonEncoder) {
+        ObjectMapper cbor = cborMapper(objectMapper);
+        ObjectMapper smile = smileMapper(objectMapper);
+        // Custom writers are consulted before the defaults, so JSON goes first to stay the answer for "*/*".
+        configurer.customCodecs().register(jsonEncoder);
+        configurer.customCodecs().register(new ArrayCborEncoder(cbor));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cbor, MediaType.APPLICATION_CBOR));
+        configurer.defaultCodecs().jackson2SmileEncoder(new ArraySmileEncoder(smile));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile, APPLICATION_SMILE));
+    }
+
+    public static ObjectMapper cborMapper(ObjectMapper objectMapper) {
+        return objectMapper.copyWith(new CBORFactory());
+    }
+
+    public static ObjectMapper smileMapper(ObjectMapper objectMapper) {
+        return objectMapper.copyWith(new SmileFactory());
+    }
+
+    /**
+     * Spring's CBOR encoder only writes single values, and its Smile encoder joins multiple values
+     * with JSON array punctuation. Both encoders below collect a multi-value body into one array
+     * instead, as the JSON encoder does for a non-streaming response.
+     */
+    static final class ArrayCborEncoder extends Jackson2CborEncoder {
+
+        ArrayCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            return encodeAsArray(this, inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+
+    static final class ArraySmileEncoder extends Jackson2SmileEncoder {
+
+        ArraySmileEncoder(ObjectMapper mapper) {
+            super(mapper, APPLICATION_SMILE);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            return encodeAsArray(this, inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+
+    private static Flux<DataBuffer> encodeAsArray(AbstractJackson2Encoder encoder, Publisher<?> inputStream,
+                                                  DataBufferFactory bufferFactory, ResolvableType elementType,
+                                                  MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encoder.encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(inputStream)
+                .collectList()
+                .map(values -> encoder.encodeValue(values, bufferFactory, listType, mimeType, hints))
+                .flux();
+    }
+}
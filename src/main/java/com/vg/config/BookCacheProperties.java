@@ -0,0 +1,19 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-process {@code Book} cache.
+ *
+ * @param maximumSize      number of books kept before the least recently used are evicted
+ * @param expireAfterWrite how long an entry may be served before it is read again from the database
+ */
+@ConfigurationProperties("library.cache.books")
+public record BookCacheProperties(
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("10m") Duration expireAfterWrite
+) {
+}
@@ -0,0 +1,18 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for running borrow and return commands.
+ *
+ * @param serialized run commands for the same book one after another in process instead of letting
+ *                   them race in the database
+ * @param stripes    number of queues book ids are spread over when serialized; rounded up to a power of two
+ */
+@ConfigurationProperties("library.commands")
+public record BookCommandProperties(
+        @DefaultValue("false") boolean serialized,
+        @DefaultValue("256") int stripes
+) {
+}
@@ -0,0 +1,16 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for the cache of books already encoded as JSON.
+ *
+ * @param maximumSize encoded bytes kept before the least recently used books are evicted
+ */
+@ConfigurationProperties("library.cache.book-json")
+public record BookJsonCacheProperties(
+        @DefaultValue("32MB") DataSize maximumSize
+) {
+}
@@ -0,0 +1,19 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the in-memory title/author search index.
+ *
+ * @param maxPostings         upper bound on the number of (term, book) entries held by the index; books
+ *                            that would exceed it are not indexed. It is a count, not a size: heap use
+ *                            also grows with the number of distinct terms, so it does not bound memory
+ * @param maxPrefixExpansions how many indexed terms the last, possibly unfinished, query word may expand to
+ */
+@ConfigurationProperties("library.search")
+public record BookSearchProperties(
+        @DefaultValue("1000000") long maxPostings,
+        @DefaultValue("50") int maxPrefixExpansions
+) {
+}
@@ -0,0 +1,20 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for conditional {@code GET}s on catalog and borrowed-books reads.
+ *
+ * @param enabled         whether list responses carry change-counter ETags; the counters only see
+ *                        changes made through this instance, so turn it off when several instances
+ *                        share one database
+ * @param maxTrackedUsers number of users whose borrowed-books counter is kept; a user that is not
+ *                        tracked gets a tag that changes with any user's borrow or return
+ */
+@ConfigurationProperties("library.etags")
+public record ETagProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maxTrackedUsers
+) {
+}
@@ -0,0 +1,13 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for streaming catalog export.
+ *
+ * @param batchSize number of books read by one keyset query; at most one batch is read ahead of the client
+ */
+@ConfigurationProperties("library.export")
+public record ExportProperties(@DefaultValue("500") int batchSize) {
+}
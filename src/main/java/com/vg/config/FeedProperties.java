@@ -0,0 +1,13 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the live availability feed.
+ *
+ * @param bufferSize events held for one slow subscriber before the oldest are dropped
+ */
+@ConfigurationProperties("library.feed")
+public record FeedProperties(@DefaultValue("256") int bufferSize) {
+}
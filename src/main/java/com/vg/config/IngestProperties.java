@@ -0,0 +1,13 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for bulk catalog ingestion.
+ *
+ * @param chunkSize number of books written by one multi-row INSERT
+ */
+@ConfigurationProperties("library.ingest")
+public record IngestProperties(@DefaultValue("500") int chunkSize) {
+}
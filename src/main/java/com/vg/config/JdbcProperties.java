@@ -0,0 +1,27 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the {@code jdbc} profile, which reaches the database through blocking JDBC calls
+ * on virtual threads instead of R2DBC.
+ *
+ * @param url            JDBC URL; must name the same database as {@code spring.r2dbc.url}, which still
+ *                       creates the schema and loads the seed data
+ * @param username       database user
+ * @param password       database password
+ * @param maxConnections connections kept open; callers beyond it wait for one to be released
+ * @param acquireTimeout how long a caller waits for a connection before failing
+ */
+@ConfigurationProperties("library.jdbc")
+public record JdbcProperties(
+        @DefaultValue("jdbc:h2:mem:librarydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE") String url,
+        @DefaultValue("sa") String username,
+        @DefaultValue("") String password,
+        @DefaultValue("20") int maxConnections,
+        @DefaultValue("5s") Duration acquireTimeout
+) {
+}
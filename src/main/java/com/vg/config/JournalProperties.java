@@ -0,0 +1,28 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the append-only journal of borrows and returns.
+ *
+ * @param enabled          write every borrow and return to the journal
+ * @param directory        where segment files are kept
+ * @param segmentSize      size of each memory-mapped segment file; a full segment is closed and a new one started
+ * @param flushInterval    how often appended events are forced to disk together; a borrow or return is answered
+ *                         once the flush covering it has completed
+ * @param retainedSegments closed segments kept in full; older ones are compacted down to the loans still open
+ */
+@ConfigurationProperties("library.journal")
+public record JournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("journal") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("5ms") Duration flushInterval,
+        @DefaultValue("16") int retainedSegments
+) {
+}
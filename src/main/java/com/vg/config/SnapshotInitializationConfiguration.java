@@ -0,0 +1,33 @@
+package com.vg.config;
+
+import com.vg.repository.memory.InMemoryPersistence;
+import com.vg.snapshot.CatalogSnapshots;
+import com.vg.snapshot.SnapshotDatabaseInitializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces Boot's SQL script initializer with one that seeds from the catalog snapshot when there
+ * is one. Boot backs off as soon as this bean exists, so the {@code spring.sql.init.*} properties
+ * are bound here instead.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!" + InMemoryPersistence.PROFILE)
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class SnapshotInitializationConfiguration {
+
+    @Bean
+    public SnapshotDatabaseInitializer snapshotDatabaseInitializer(ConnectionFactory connectionFactory,
+                                                                   SqlInitializationProperties initializationProperties,
+                                                                   CatalogSnapshots snapshots,
+                                                                   SnapshotProperties snapshotProperties,
+                                                                   MeterRegistry meterRegistry) {
+        return new SnapshotDatabaseInitializer(connectionFactory, initializationProperties, snapshots,
+                snapshotProperties, meterRegistry);
+    }
+}
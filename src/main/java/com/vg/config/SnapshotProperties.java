@@ -0,0 +1,21 @@
+package com.vg.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for binary snapshots of the catalog.
+ *
+ * @param file          where snapshots are written and read from
+ * @param loadOnStartup load the snapshot, if the file exists, instead of running {@code data.sql}
+ * @param batchSize     rows bound into one statement batch while loading
+ */
+@ConfigurationProperties("library.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("snapshot/catalog.snapshot") Path file,
+        @DefaultValue("true") boolean loadOnStartup,
+        @DefaultValue("1000") int batchSize
+) {
+}
@@ -0,0 +1,35 @@
+package com.vg.controller;
+
+import com.vg.dto.BookAvailabilityEventDTO;
+import com.vg.feed.BookAvailabilityFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/library")
+@Tag(name = "Availability Feed API", description = "Live changes to book availability")
+public class AvailabilityFeedController {
+
+    private final BookAvailabilityFeed availabilityFeed;
+
+    public AvailabilityFeedController(BookAvailabilityFeed availabilityFeed) {
+        this.availabilityFeed = availabilityFeed;
+    }
+
+    @Operation(summary = "Follow books being added, borrowed and returned; repeat bookId to follow only those books")
+    @GetMapping(value = "/books/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BookAvailabilityEventDTO>> followAvailability(
+            @RequestParam(required = false) List<UUID> bookId) {
+        return availabilityFeed.subscribe(bookId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.change().name().toLowerCase())
+                        .build());
+    }
+}
@@ -0,0 +1,40 @@
+package com.vg.controller;
+
+import com.vg.dto.JournalEntryDTO;
+import com.vg.journal.BorrowJournalReplay;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/library/journal")
+@ConditionalOnProperty(prefix = "library.journal", name = "enabled", havingValue = "true")
+@Tag(name = "Borrow Journal API", description = "History of borrows and returns, and recovery of open loans")
+public class BorrowJournalController {
+
+    private final BorrowJournalReplay journalReplay;
+
+    public BorrowJournalController(BorrowJournalReplay journalReplay) {
+        this.journalReplay = journalReplay;
+    }
+
+    @Operation(summary = "Stream the borrows and returns of a book and/or a user, oldest first")
+    @GetMapping(value = "/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<JournalEntryDTO> history(@RequestParam(required = false) UUID bookId,
+                                         @RequestParam(required = false) UUID userId) {
+        return journalReplay.history(bookId, userId)
+                .map(entry -> new JournalEntryDTO(entry.type().name(), entry.userId(), entry.bookId(), entry.at()));
+    }
+
+    @Operation(summary = "Rebuild the borrowed books and book availability from the journal; returns the number of open loans. Run only while the library is closed")
+    @PostMapping("/replay")
+    public Mono<Long> rebuildBorrowedBooks() {
+        return journalReplay.rebuildBorrowedBooks();
+    }
+}
@@ -0,0 +1,54 @@
+package com.vg.controller;
+
+import com.vg.dto.BookExportDTO;
+import com.vg.dto.BookResponseDTO;
+import com.vg.mapper.BookCursors;
+import com.vg.service.CatalogExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+import static com.vg.mapper.BookMappers.bookToDto;
+
+@RestController
+@RequestMapping("/library")
+@Tag(name = "Catalog Export API", description = "Streaming the whole catalog to mirrors")
+public class CatalogExportController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final CatalogExportService catalogExportService;
+
+    public CatalogExportController(CatalogExportService catalogExportService) {
+        this.catalogExportService = catalogExportService;
+    }
+
+    @Operation(summary = "Stream all books as newline-delimited JSON, each with a checkpoint to resume after")
+    @GetMapping(value = "/books/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookExportDTO> exportNdjson(@RequestParam(required = false) String after) {
+        return catalogExportService.export(decode(after))
+                .map(book -> new BookExportDTO(BookCursors.encode(book.getId()), bookToDto.apply(book)));
+    }
+
+    @Operation(summary = "Stream all books as server-sent events; the event id is the checkpoint")
+    @GetMapping(value = "/books/export", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BookResponseDTO>> exportEvents(
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        // A reconnecting EventSource sends the id of the last event it saw
+        String checkpoint = lastEventId != null ? lastEventId : after;
+        return catalogExportService.export(decode(checkpoint))
+                .map(book -> ServerSentEvent.builder(bookToDto.apply(book))
+                        .id(BookCursors.encode(book.getId()))
+                        .build());
+    }
+
+    private static UUID decode(String checkpoint) {
+        return checkpoint == null ? null : BookCursors.decode(checkpoint);
+    }
+}
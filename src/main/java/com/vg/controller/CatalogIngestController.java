@@ -0,0 +1,48 @@
+package com.vg.controller;
+
+import com.vg.dto.BookIngestProgressDTO;
+import com.vg.dto.BookRequestDTO;
+import com.vg.mapper.BookCsvMappers;
+import com.vg.service.CatalogIngestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import static com.vg.mapper.BookCsvMappers.csvLineToDto;
+import static com.vg.mapper.BookMappers.toEntity;
+
+@RestController
+@RequestMapping("/library")
+@Tag(name = "Catalog Ingest API", description = "Bulk loading of books into the catalog")
+public class CatalogIngestController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final CatalogIngestService catalogIngestService;
+
+    public CatalogIngestController(CatalogIngestService catalogIngestService) {
+        this.catalogIngestService = catalogIngestService;
+    }
+
+    @Operation(summary = "Bulk add books from newline-delimited JSON")
+    @PostMapping(value = "/books/bulk",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookIngestProgressDTO> ingestNdjson(@RequestBody Flux<BookRequestDTO> books) {
+        return catalogIngestService.ingest(books.map(toEntity));
+    }
+
+    @Operation(summary = "Bulk add books from CSV with title,author columns")
+    @PostMapping(value = "/books/bulk",
+            consumes = TEXT_CSV_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookIngestProgressDTO> ingestCsv(@RequestBody Flux<String> lines) {
+        return catalogIngestService.ingest(lines
+                .filter(line -> !line.isBlank())
+                .filter(line -> !line.trim().equalsIgnoreCase(BookCsvMappers.HEADER))
+                .map(csvLineToDto)
+                .map(toEntity));
+    }
+}
@@ -0,0 +1,31 @@
+package com.vg.controller;
+
+import com.vg.dto.CatalogSnapshotDTO;
+import com.vg.repository.memory.InMemoryPersistence;
+import com.vg.snapshot.CatalogSnapshots;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/library")
+@Profile("!" + InMemoryPersistence.PROFILE)
+@Tag(name = "Catalog Snapshot API", description = "Binary snapshots of the catalog for fast restarts")
+public class CatalogSnapshotController {
+
+    private final CatalogSnapshots catalogSnapshots;
+
+    public CatalogSnapshotController(CatalogSnapshots catalogSnapshots) {
+        this.catalogSnapshots = catalogSnapshots;
+    }
+
+    @Operation(summary = "Write all books and borrow records to the snapshot file loaded at the next startup")
+    @PostMapping("/snapshot")
+    public Mono<CatalogSnapshotDTO> dump() {
+        return catalogSnapshots.dump()
+                .map(summary -> new CatalogSnapshotDTO(summary.file().toString(), summary.books(),
+                        summary.borrowedBooks(), summary.bytes(), summary.took().toMillis()));
+    }
+}
@@ -1,22 +1,31 @@
 package com.vg.controller;
 
+import com.vg.cache.CatalogVersions;
+import com.vg.dto.BookBatchResultDTO;
+import com.vg.dto.BookCursorPageDTO;
 import com.vg.dto.BookRequestDTO;
 import com.vg.dto.BookResponseDTO;
 import com.vg.dto.BorrowedBookViewDTO;
+import com.vg.mapper.BookCursors;
+import com.vg.mapper.BookPages;
 import com.vg.model.Book;
 import com.vg.repository.BookRepository;
 import com.vg.service.LibraryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import static com.vg.mapper.BookMappers.toEntity;
+import static com.vg.mapper.BookMappers.batchResultToDto;
 import static com.vg.mapper.BookMappers.bookToDto;
-import static com.vg.mapper.BorrowedBookMappers.borrowedBookToDto;
+import static com.vg.mapper.BorrowedBookMappers.borrowedBookDetailsToDto;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/library")
@@ -24,17 +33,51 @@ import java.util.UUID;
 public class LibraryController {
 
     private final LibraryService libraryService;
+    private final CatalogVersions versions;
 
-    public LibraryController(LibraryService libraryService) {
+    public LibraryController(LibraryService libraryService, CatalogVersions versions) {
         this.libraryService = libraryService;
+        this.versions = versions;
     }
 
     @Operation(summary = "List of books")
     @GetMapping("/books")
-    public Flux<BookResponseDTO> getAllBooks(
+    public ResponseEntity<Flux<BookResponseDTO>> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return libraryService.findAllBooks(page, size).map(bookToDto);
+        return tagged(versions::catalogTag, libraryService.findAllBooks(page, size).map(bookToDto));
+    }
+
+    @Operation(summary = "List of books using a cursor from the previous page")
+    @GetMapping("/books/cursor")
+    public ResponseEntity<Mono<BookCursorPageDTO>> getBooksAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size) {
+        UUID afterId = after == null ? null : BookCursors.decode(after);
+        int limit = BookPages.size(size);
+        // Ask for one extra row so the last page does not hand out a cursor to an empty page
+        return tagged(versions::catalogTag, libraryService.findBooksAfter(afterId, limit + 1)
+                .map(bookToDto)
+                .collectList()
+                .map(books -> toCursorPage(books, limit)));
+    }
+
+    @Operation(summary = "Search books by title and author, best match first")
+    @GetMapping("/books/search")
+    public ResponseEntity<Flux<BookResponseDTO>> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return tagged(versions::catalogTag, libraryService.searchBooks(q, page, size).map(bookToDto));
+    }
+
+    @Operation(summary = "Get a book by ID")
+    @GetMapping("/books/{bookId}")
+    public Mono<ResponseEntity<BookResponseDTO>> getBook(@PathVariable UUID bookId) {
+        return libraryService.findBook(bookId)
+                .map(book -> ResponseEntity.ok()
+                        .eTag(CatalogVersions.bookTag(book))
+                        .body(bookToDto.apply(book)));
     }
 
     @Operation(summary = "Add a new book to the library")
@@ -56,10 +99,40 @@ public class LibraryController {
         return libraryService.returnBook(bookId, userId).map(bookToDto);
     }
 
+    @Operation(summary = "Borrow several books for a user in one transaction, with a result per book")
+    @PutMapping("/borrow")
+    public Flux<BookBatchResultDTO> borrowBooks(@RequestParam UUID userId, @RequestBody List<UUID> bookIds) {
+        return libraryService.borrowBooks(bookIds, userId).map(batchResultToDto);
+    }
+
+    @Operation(summary = "Return several books for a user in one transaction, with a result per book")
+    @PutMapping("/return")
+    public Flux<BookBatchResultDTO> returnBooks(@RequestParam UUID userId, @RequestBody List<UUID> bookIds) {
+        return libraryService.returnBooks(bookIds, userId).map(batchResultToDto);
+    }
+
     @Operation(summary = "Get list of books currently borrowed by a user")
     @GetMapping("/borrowed-books")
-    public Flux<BorrowedBookViewDTO> getBorrowedBooksByUser(@RequestParam UUID userId) {
-        return libraryService.findBorrowedBooksByUser(userId)
-                .map(tuple -> borrowedBookToDto.apply(tuple.getT1(), tuple.getT2()));
+    public ResponseEntity<Flux<BorrowedBookViewDTO>> getBorrowedBooksByUser(@RequestParam UUID userId) {
+        return tagged(() -> versions.userTag(userId),
+                libraryService.findBorrowedBooksByUser(userId).map(borrowedBookDetailsToDto));
+    }
+
+    // The tag is taken before the body is subscribed to, so a matching If-None-Match
+    // is answered with 304 without running the query
+    private <T> ResponseEntity<T> tagged(Supplier<String> tag, T body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (versions.enabled()) {
+            response.eTag(tag.get());
+        }
+        return response.body(body);
+    }
+
+    private BookCursorPageDTO toCursorPage(List<BookResponseDTO> books, int size) {
+        if (books.size() <= size) {
+            return new BookCursorPageDTO(books, null);
+        }
+        List<BookResponseDTO> page = books.subList(0, size);
+        return new BookCursorPageDTO(page, BookCursors.encode(page.get(size - 1).id()));
     }
 }
@@ -0,0 +1,8 @@
+package com.vg.dto;
+
+import java.util.UUID;
+
+public record BookAvailabilityEventDTO(UUID id, Change change, boolean available, Long version) {
+
+    public enum Change { ADDED, BORROWED, RETURNED }
+}
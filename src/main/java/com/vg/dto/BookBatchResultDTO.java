@@ -0,0 +1,5 @@
+package com.vg.dto;
+
+import java.util.UUID;
+
+public record BookBatchResultDTO(UUID bookId, String status, String message, BookResponseDTO book) {}
@@ -0,0 +1,5 @@
+package com.vg.dto;
+
+import java.util.List;
+
+public record BookCursorPageDTO(List<BookResponseDTO> items, String next) {}
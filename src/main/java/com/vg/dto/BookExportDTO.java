@@ -0,0 +1,3 @@
+package com.vg.dto;
+
+public record BookExportDTO(String checkpoint, BookResponseDTO book) {}
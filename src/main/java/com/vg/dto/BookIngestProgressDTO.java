@@ -0,0 +1,10 @@
+package com.vg.dto;
+
+public record BookIngestProgressDTO(
+        long chunk,
+        int inserted,
+        int failed,
+        long totalInserted,
+        long totalFailed,
+        String error
+) {}
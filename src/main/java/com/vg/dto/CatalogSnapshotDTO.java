@@ -0,0 +1,3 @@
+package com.vg.dto;
+
+public record CatalogSnapshotDTO(String file, long books, long borrowedBooks, long bytes, long millis) {}
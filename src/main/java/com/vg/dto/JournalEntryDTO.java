@@ -0,0 +1,6 @@
+package com.vg.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record JournalEntryDTO(String type, UUID userId, UUID bookId, Instant at) {}
@@ -1,7 +0,0 @@
-package com.vg.exception;
-
-public class BookConcurrencyException extends RuntimeException {
-    public BookConcurrencyException(String message) {
-        super(message);
-    }
-}
\ No newline at end of file
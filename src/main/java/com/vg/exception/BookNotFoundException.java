@@ -1,6 +1,6 @@
 package com.vg.exception;
 
-public class BookNotFoundException extends RuntimeException {
+public class BookNotFoundException extends LibraryException {
     public BookNotFoundException(String message) {
         super(message);
     }
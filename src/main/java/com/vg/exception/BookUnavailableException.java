@@ -1,6 +1,6 @@
 package com.vg.exception;
 
-public class BookUnavailableException extends RuntimeException {
+public class BookUnavailableException extends LibraryException {
     public BookUnavailableException(String message) {
         super(message);
     }
@@ -1,6 +1,6 @@
 package com.vg.exception;
 
-public class BorrowRecordNotFoundException extends RuntimeException {
+public class BorrowRecordNotFoundException extends LibraryException {
     public BorrowRecordNotFoundException(String message) {
         super(message);
     }
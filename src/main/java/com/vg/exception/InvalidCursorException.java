@@ -0,0 +1,7 @@
+package com.vg.exception;
+
+public class InvalidCursorException extends LibraryException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
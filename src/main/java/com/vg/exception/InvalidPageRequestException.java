@@ -0,0 +1,7 @@
+package com.vg.exception;
+
+public class InvalidPageRequestException extends LibraryException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
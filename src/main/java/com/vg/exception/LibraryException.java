@@ -0,0 +1,16 @@
+package com.vg.exception;
+
+/**
+ * Base of the library's domain exceptions. These are expected outcomes under contention, such as
+ * a book that is already borrowed, so they skip the stack trace by default: it would be filled in
+ * for every rejected request and never read. Start with
+ * {@code -Dlibrary.exceptions.stack-traces=true} to capture it while debugging.
+ */
+public abstract class LibraryException extends RuntimeException {
+
+    private static final boolean STACK_TRACES = Boolean.getBoolean("library.exceptions.stack-traces");
+
+    protected LibraryException(String message) {
+        super(message, null, true, STACK_TRACES);
+    }
+}
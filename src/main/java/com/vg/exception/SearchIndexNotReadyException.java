@@ -0,0 +1,7 @@
+package com.vg.exception;
+
+public class SearchIndexNotReadyException extends LibraryException {
+    public SearchIndexNotReadyException(String message) {
+        super(message);
+    }
+}
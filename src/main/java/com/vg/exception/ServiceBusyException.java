@@ -0,0 +1,7 @@
+package com.vg.exception;
+
+public class ServiceBusyException extends LibraryException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.vg.exception;
+
+public class TooManyRequestsException extends LibraryException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package com.vg.feed;
+
+import com.vg.config.FeedProperties;
+import com.vg.dto.BookAvailabilityEventDTO;
+import com.vg.dto.BookAvailabilityEventDTO.Change;
+import com.vg.model.Book;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of book changes to live subscribers.
+ * <p>
+ * Subscribers to all books share one multicast sink. Subscribers to specific books get a sink per
+ * book that exists only while someone listens to it, so a change is handed only to the clients
+ * that asked for that book and idle clients are never visited. Each subscriber has its own bounded
+ * buffer; when a client cannot keep up, its oldest events are dropped instead of holding up others.
+ */
+@Component
+public class BookAvailabilityFeed implements MeterBinder {
+
+    private final FeedProperties properties;
+    private final Sinks.Many<BookAvailabilityEventDTO> allBooks = Sinks.many().multicast().directBestEffort();
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Queue<BookAvailabilityEventDTO> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger emitting = new AtomicInteger();
+
+    public BookAvailabilityFeed(FeedProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Hands a change to the subscribers. Called after a write has committed, so it never blocks
+     * and never throws: an event that a sink refuses is counted and dropped.
+     */
+    public void publish(Change change, Book book) {
+        pending.offer(new BookAvailabilityEventDTO(book.getId(), change, book.isAvailable(), book.getVersion()));
+        // Borrows and returns complete on different threads, but a sink accepts one emission at a time.
+        // Whoever finds no emission in progress emits the queued events of everyone, so no publisher waits.
+        if (emitting.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            for (BookAvailabilityEventDTO event = pending.poll(); event != null; event = pending.poll()) {
+                emit(allBooks, event);
+                Channel channel = channels.get(event.id());
+                if (channel != null) {
+                    emit(channel.sink(), event);
+                }
+            }
+            missed = emitting.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Follows changes to the given books, or to every book when none are given.
+     */
+    public Flux<BookAvailabilityEventDTO> subscribe(Collection<UUID> bookIds) {
+        Flux<BookAvailabilityEventDTO> events = bookIds == null || bookIds.isEmpty()
+                ? allBooks.asFlux()
+                : Flux.fromIterable(bookIds).distinct().flatMap(this::follow, Integer.MAX_VALUE);
+        return events
+                .onBackpressureBuffer(properties.bufferSize(), event -> dropped.incrementAndGet(),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    int channelCount() {
+        return channels.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.feed.subscribers", subscribers, AtomicInteger::get)
+                .description("Open availability feed subscriptions")
+                .register(registry);
+        Gauge.builder("library.feed.channels", channels, Map::size)
+                .description("Books with at least one feed subscriber")
+                .register(registry);
+        FunctionCounter.builder("library.feed.dropped", dropped, AtomicLong::get)
+                .description("Events dropped because a subscriber fell behind")
+                .register(registry);
+        FunctionCounter.builder("library.feed.failed", failed, AtomicLong::get)
+                .description("Events a feed sink refused")
+                .register(registry);
+    }
+
+    private void emit(Sinks.Many<BookAvailabilityEventDTO> sink, BookAvailabilityEventDTO event) {
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            failed.incrementAndGet();
+        }
+    }
+
+    private Flux<BookAvailabilityEventDTO> follow(UUID bookId) {
+        return Flux.defer(() -> channels.compute(bookId, (id, channel) -> {
+                    Channel joined = channel == null ? new Channel() : channel;
+                    joined.listeners().incrementAndGet();
+                    return joined;
+                }).sink().asFlux())
+                .doFinally(signal -> channels.computeIfPresent(bookId, (id, channel) ->
+                        channel.listeners().decrementAndGet() == 0 ? null : channel));
+    }
+
+    // The listener count is only changed inside Map.compute, so a channel is never removed
+    // between a new subscriber finding it and subscribing to it
+    private record Channel(Sinks.Many<BookAvailabilityEventDTO> sink, AtomicInteger listeners) {
+        Channel() {
+            this(Sinks.many().multicast().directBestEffort(), new AtomicInteger());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.vg.journal;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Append-only history of borrows and returns, kept next to the {@code borrowed_book} table, which
+ * only holds the loans currently open.
+ * <p>
+ * Appends are cheap and not yet durable; {@link #sync()} waits until everything appended before it
+ * is on disk. The service appends and syncs only after its transaction commits, so a rollback never
+ * leaves an event behind. Two commits on one book can therefore reach the journal in either order;
+ * each event carries the time it took effect, taken after the book changed, and replay goes by that.
+ */
+public interface BorrowJournal {
+
+    Mono<Void> append(List<JournalEntry> entries);
+
+    Mono<Void> sync();
+
+    /**
+     * Every retained event, oldest first.
+     */
+    Flux<JournalEntry> entries();
+
+    default Mono<Void> append(JournalEntry entry) {
+        return append(List.of(entry));
+    }
+}
@@ -0,0 +1,164 @@
+package com.vg.journal;
+
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.repository.BookRepository;
+import com.vg.repository.BorrowedBookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the journal back: history queries that the {@code borrowed_book} table cannot answer, and
+ * rebuilding that table from the loans the journal says are open.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.journal", name = "enabled", havingValue = "true")
+public class BorrowJournalReplay {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowJournalReplay.class);
+
+    // Bounds the IN list of each availability update
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    private final BorrowJournal journal;
+    private final BookRepository bookRepository;
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final BookCache bookCache;
+    private final CatalogVersions versions;
+
+    public BorrowJournalReplay(BorrowJournal journal,
+                               BookRepository bookRepository,
+                               BorrowedBookRepository borrowedBookRepository,
+                               TransactionalOperator transactionalOperator,
+                               BookCache bookCache,
+                               CatalogVersions versions) {
+        this.journal = journal;
+        this.bookRepository = bookRepository;
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.bookCache = bookCache;
+        this.versions = versions;
+    }
+
+    /**
+     * Events for a book, a user, or both, oldest first; {@code null} matches any.
+     */
+    public Flux<JournalEntry> history(UUID bookId, UUID userId) {
+        return journal.entries()
+                .filter(entry -> (bookId == null || bookId.equals(entry.bookId()))
+                        && (userId == null || userId.equals(entry.userId())));
+    }
+
+    /**
+     * Open loans by book id, as of the last event in the journal.
+     */
+    public Mono<Map<UUID, JournalEntry>> openLoans() {
+        return journal.entries()
+                .reduceWith(LinkedHashMap<UUID, JournalEntry>::new, (latest, entry) -> {
+                    apply(latest, entry);
+                    return latest;
+                })
+                .map(BorrowJournalReplay::openLoans);
+    }
+
+    /**
+     * Replaces the contents of {@code borrowed_book} with the open loans in the journal and makes
+     * exactly the books with an open loan unavailable, in one transaction, then evicts the books
+     * it changed from the cache. Emits the number of loan records written. Borrows and returns that
+     * run meanwhile may be lost, so run it while the library is closed.
+     */
+    public Mono<Long> rebuildBorrowedBooks() {
+        return openLoans()
+                .flatMap(open -> replaceBorrowRecords(open)
+                        .zipWith(matchAvailability(open.keySet()), Rebuilt::new))
+                .as(transactionalOperator::transactional)
+                .doOnNext(rebuilt -> {
+                    rebuilt.changedBooks().forEach(bookCache::evict);
+                    versions.allUsersChanged();
+                    log.info("Rebuilt borrowed_book from the journal with {} open loans; changed availability of {} books",
+                            rebuilt.openLoans(), rebuilt.changedBooks().size());
+                })
+                .map(Rebuilt::openLoans);
+    }
+
+    private Mono<Long> replaceBorrowRecords(Map<UUID, JournalEntry> open) {
+        List<BorrowedBook> records = open.values().stream()
+                .map(loan -> new BorrowedBook(UUID.randomUUID(), loan.userId(), loan.bookId(),
+                        LocalDateTime.ofInstant(loan.at(), ZoneId.systemDefault())))
+                .toList();
+        return borrowedBookRepository.deleteAll()
+                .thenMany(borrowedBookRepository.saveAll(records))
+                .count();
+    }
+
+    /**
+     * Flips every book whose availability disagrees with the open loans and emits their ids. Reads
+     * the whole catalog, since nothing indexes availability.
+     */
+    private Mono<List<UUID>> matchAvailability(Set<UUID> borrowed) {
+        return bookRepository.findAll()
+                .filter(book -> book.isAvailable() == borrowed.contains(book.getId()))
+                .collect(Collectors.partitioningBy(Book::isAvailable,
+                        Collectors.mapping(Book::getId, Collectors.toList())))
+                .flatMapMany(mismatched -> Flux.concat(
+                        inBatches(mismatched.get(true), bookRepository::markAllBorrowed),
+                        inBatches(mismatched.get(false), bookRepository::markAllReturned)))
+                .map(Book::getId)
+                .collectList();
+    }
+
+    private static Flux<Book> inBatches(List<UUID> ids, Function<List<UUID>, Flux<Book>> update) {
+        return Flux.fromIterable(ids)
+                .buffer(UPDATE_BATCH_SIZE)
+                .concatMap(update);
+    }
+
+    /**
+     * Folds an event into the latest event per book. Events are appended after their transaction
+     * commits, so they may arrive out of order: one older than the event held for its book is
+     * ignored, and a return only closes the loan of the user holding the book.
+     */
+    static void apply(Map<UUID, JournalEntry> latest, JournalEntry entry) {
+        latest.merge(entry.bookId(), entry, (held, next) -> {
+            if (next.at().isBefore(held.at())) {
+                return held;
+            }
+            boolean returnedByOther = next.type() == JournalEntry.Type.RETURNED
+                    && held.type() == JournalEntry.Type.BORROWED
+                    && !held.userId().equals(next.userId());
+            return returnedByOther ? held : next;
+        });
+    }
+
+    /**
+     * Drops the returned books from the result of {@link #apply}, leaving the open loans.
+     */
+    static Map<UUID, JournalEntry> openLoans(Map<UUID, JournalEntry> latest) {
+        latest.values().removeIf(entry -> entry.type() == JournalEntry.Type.RETURNED);
+        return latest;
+    }
+
+    /**
+     * The loan records a rebuild wrote and the books whose availability it changed.
+     */
+    private record Rebuilt(long openLoans, List<UUID> changedBooks) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.vg.journal;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One borrow or return, as recorded in the journal.
+ */
+public record JournalEntry(Type type, UUID userId, UUID bookId, Instant at) {
+
+    public enum Type { BORROWED, RETURNED }
+
+    public static JournalEntry borrowed(UUID userId, UUID bookId, Instant at) {
+        return new JournalEntry(Type.BORROWED, userId, bookId, at);
+    }
+
+    public static JournalEntry returned(UUID userId, UUID bookId, Instant at) {
+        return new JournalEntry(Type.RETURNED, userId, bookId, at);
+    }
+}
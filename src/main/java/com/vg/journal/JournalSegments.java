@@ -0,0 +1,137 @@
+package com.vg.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk format of the journal. A segment file is a run of fixed-size records followed by zeros:
+ * <pre>
+ *  0  int   CRC32C of bytes 4..47
+ *  4  byte  type (1 borrowed, 2 returned)
+ *  5  3 bytes padding
+ *  8  long  epoch millis
+ * 16  long  user id, most significant bits
+ * 24  long  user id, least significant bits
+ * 32  long  book id, most significant bits
+ * 40  long  book id, least significant bits
+ * </pre>
+ * Reading stops at the first record whose checksum does not match, which is either the end of the
+ * written part or a record torn by a crash. Segments are named after the number of records written
+ * before them, so sorting by name gives write order.
+ */
+final class JournalSegments {
+
+    static final int RECORD_SIZE = 48;
+    static final String SUFFIX = ".journal";
+
+    private JournalSegments() {
+    }
+
+    static void encode(JournalEntry entry, ByteBuffer buffer, int offset) {
+        buffer.put(offset + 4, (byte) (entry.type().ordinal() + 1));
+        buffer.put(offset + 5, (byte) 0).put(offset + 6, (byte) 0).put(offset + 7, (byte) 0);
+        buffer.putLong(offset + 8, entry.at().toEpochMilli());
+        buffer.putLong(offset + 16, entry.userId().getMostSignificantBits());
+        buffer.putLong(offset + 24, entry.userId().getLeastSignificantBits());
+        buffer.putLong(offset + 32, entry.bookId().getMostSignificantBits());
+        buffer.putLong(offset + 40, entry.bookId().getLeastSignificantBits());
+        buffer.putInt(offset, checksum(buffer, offset));
+    }
+
+    /**
+     * Returns the record at {@code offset}, or {@code null} if there is no intact record there.
+     */
+    static JournalEntry decode(ByteBuffer buffer, int offset) {
+        if (offset + RECORD_SIZE > buffer.limit()) {
+            return null;
+        }
+        int type = buffer.get(offset + 4);
+        if (type < 1 || type > JournalEntry.Type.values().length || buffer.getInt(offset) != checksum(buffer, offset)) {
+            return null;
+        }
+        return new JournalEntry(
+                JournalEntry.Type.values()[type - 1],
+                new UUID(buffer.getLong(offset + 16), buffer.getLong(offset + 24)),
+                new UUID(buffer.getLong(offset + 32), buffer.getLong(offset + 40)),
+                Instant.ofEpochMilli(buffer.getLong(offset + 8)));
+    }
+
+    /**
+     * Number of bytes taken by the intact records at the start of {@code buffer}.
+     */
+    static int validLength(ByteBuffer buffer) {
+        int offset = 0;
+        while (decode(buffer, offset) != null) {
+            offset += RECORD_SIZE;
+        }
+        return offset;
+    }
+
+    static void forEach(Path segment, Consumer<JournalEntry> action) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; ; offset += RECORD_SIZE) {
+                JournalEntry entry = decode(buffer, offset);
+                if (entry == null) {
+                    return;
+                }
+                action.accept(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read journal segment " + segment, e);
+        }
+    }
+
+    static void write(Path file, List<JournalEntry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+        for (int i = 0; i < entries.size(); i++) {
+            encode(entries.get(i), buffer, i * RECORD_SIZE);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    static List<Path> list(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list journal segments in " + directory, e);
+        }
+    }
+
+    static Path segmentPath(Path directory, long firstRecord) {
+        return directory.resolve(String.format("%020d%s", firstRecord, SUFFIX));
+    }
+
+    static long firstRecord(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 4, RECORD_SIZE - 4));
+        return (int) crc.getValue();
+    }
+}
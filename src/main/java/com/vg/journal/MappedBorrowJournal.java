@@ -0,0 +1,325 @@
+package com.vg.journal;
+
+import com.vg.config.JournalProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link BorrowJournal} written to memory-mapped segment files.
+ * <p>
+ * An append copies a 48-byte record into the mapped segment under a short lock and returns; the
+ * page cache does the rest. A flusher thread forces the written range to disk every
+ * {@code flushInterval} and then completes every {@link #sync()} it covered, so concurrent borrows
+ * share one fsync instead of paying for one each. A full segment is forced, closed and replaced by
+ * a new one. Once more than {@code retainedSegments} closed segments exist, the oldest are folded
+ * into a single segment holding only the borrows still open at its end; that history is gone, but
+ * the open loans can still be rebuilt from the journal.
+ * <p>
+ * On startup the last segment is scanned for its last intact record and appending resumes after
+ * it, discarding a record torn by a crash.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.journal", name = "enabled", havingValue = "true")
+public class MappedBorrowJournal implements BorrowJournal, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedBorrowJournal.class);
+
+    static final String APPENDS = "library.journal.appends";
+    static final String FLUSH = "library.journal.flush";
+
+    private final Path directory;
+    private final int segmentCapacity;
+    private final int retainedSegments;
+    private final ScheduledExecutorService flusher;
+    private final Counter appends;
+    private final Timer flushTimer;
+
+    // Guards readers against compaction deleting the segments they are reading
+    private final StampedLock segmentsLock = new StampedLock();
+    private final Queue<SyncRequest> syncRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Object compactionLock = new Object();
+
+    // Written under synchronized(this)
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentFirstRecord;
+    private int writeOffset;
+    private int unflushedFrom;
+    private long appended;
+
+    private volatile long flushed;
+
+    public MappedBorrowJournal(JournalProperties properties, MeterRegistry registry) {
+        this.directory = properties.directory();
+        this.segmentCapacity = (int) Math.max(JournalSegments.RECORD_SIZE,
+                Math.min(Integer.MAX_VALUE, properties.segmentSize().toBytes())
+                        / JournalSegments.RECORD_SIZE * JournalSegments.RECORD_SIZE);
+        this.retainedSegments = Math.max(0, properties.retainedSegments());
+        this.appends = Counter.builder(APPENDS)
+                .description("Borrow and return events appended to the journal")
+                .register(registry);
+        this.flushTimer = Timer.builder(FLUSH)
+                .description("Time to force appended journal events to disk")
+                .register(registry);
+        open();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, properties.flushInterval().toNanos());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Mono<Void> append(List<JournalEntry> entries) {
+        return Mono.fromRunnable(() -> {
+            boolean rolled = false;
+            synchronized (this) {
+                for (JournalEntry entry : entries) {
+                    if (writeOffset + JournalSegments.RECORD_SIZE > segmentCapacity) {
+                        roll();
+                        rolled = true;
+                    }
+                    JournalSegments.encode(entry, segment, writeOffset);
+                    writeOffset += JournalSegments.RECORD_SIZE;
+                    appended++;
+                }
+            }
+            appends.increment(entries.size());
+            if (rolled && compacting.compareAndSet(false, true)) {
+                Schedulers.boundedElastic().schedule(this::compactQuietly);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> sync() {
+        return Mono.create(sink -> {
+            long target;
+            synchronized (this) {
+                target = appended;
+            }
+            if (flushed >= target) {
+                sink.success();
+            } else {
+                // Picked up by the next flush, even if one finished in between
+                syncRequests.add(new SyncRequest(target, sink));
+            }
+        });
+    }
+
+    @Override
+    public Flux<JournalEntry> entries() {
+        return Flux.using(segmentsLock::readLock,
+                        stamp -> Flux.fromIterable(JournalSegments.list(directory))
+                                .concatMapIterable(segment -> {
+                                    List<JournalEntry> entries = new ArrayList<>();
+                                    JournalSegments.forEach(segment, entries::add);
+                                    return entries;
+                                }, 1),
+                        segmentsLock::unlockRead)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (this) {
+            closeSegment();
+        }
+    }
+
+    void flush() {
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        long target;
+        synchronized (this) {
+            buffer = segment;
+            from = unflushedFrom;
+            to = writeOffset;
+            target = appended;
+            unflushedFrom = writeOffset;
+        }
+        try {
+            if (to > from) {
+                flushTimer.record(() -> buffer.force(from, to - from));
+            }
+        } catch (RuntimeException e) {
+            complete(target, e);
+            throw e;
+        }
+        // Segments before the current one were forced when they were closed
+        flushed = target;
+        complete(target, null);
+    }
+
+    /**
+     * Folds the oldest closed segments into one holding only the loans open at its end, once more
+     * than {@code retainedSegments} closed segments exist. The folded segment replaces the oldest
+     * one before the others are deleted, so a crash part-way leaves events that replay to the same
+     * open loans.
+     */
+    void compact() throws IOException {
+        synchronized (compactionLock) {
+            compactClosedSegments();
+        }
+    }
+
+    private void compactClosedSegments() throws IOException {
+        List<Path> closed = JournalSegments.list(directory);
+        closed.remove(JournalSegments.segmentPath(directory, currentSegmentFirstRecord()));
+        if (closed.size() <= retainedSegments) {
+            return;
+        }
+        List<Path> folded = closed.subList(0, closed.size() - retainedSegments);
+        Map<UUID, JournalEntry> latest = new LinkedHashMap<>();
+        folded.forEach(segment -> JournalSegments.forEach(segment, entry -> BorrowJournalReplay.apply(latest, entry)));
+        Map<UUID, JournalEntry> openLoans = BorrowJournalReplay.openLoans(latest);
+
+        Path target = folded.get(0);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        JournalSegments.write(temporary, new ArrayList<>(openLoans.values()));
+
+        long stamp = segmentsLock.writeLock();
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (Path segment : folded.subList(1, folded.size())) {
+                Files.delete(segment);
+            }
+        } finally {
+            segmentsLock.unlockWrite(stamp);
+        }
+        log.info("Compacted {} journal segments into {} open loans", folded.size(), openLoans.size());
+    }
+
+    private void complete(long target, Throwable error) {
+        syncRequests.removeIf(request -> {
+            if (request.target() > target) {
+                return false;
+            }
+            if (error == null) {
+                request.sink().success();
+            } else {
+                request.sink().error(error);
+            }
+            return true;
+        });
+    }
+
+    private synchronized long currentSegmentFirstRecord() {
+        return segmentFirstRecord;
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = JournalSegments.list(directory);
+            if (segments.isEmpty()) {
+                mapSegment(0, segmentCapacity);
+                return;
+            }
+            Path last = segments.get(segments.size() - 1);
+            mapSegment(JournalSegments.firstRecord(last), Math.max(segmentCapacity, (int) Files.size(last)));
+            writeOffset = JournalSegments.validLength(segment);
+            // Zero whatever follows, so records from before a crash cannot reappear behind new ones
+            for (int offset = writeOffset; offset < segment.capacity(); offset++) {
+                segment.put(offset, (byte) 0);
+            }
+            segment.force();
+            unflushedFrom = writeOffset;
+            log.info("Journal opened at {} with {} segments; resuming after {} records in {}",
+                    directory, segments.size(), writeOffset / JournalSegments.RECORD_SIZE, last.getFileName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal in " + directory, e);
+        }
+    }
+
+    private void roll() {
+        segment.force();
+        long next = segmentFirstRecord + writeOffset / JournalSegments.RECORD_SIZE;
+        closeSegment();
+        try {
+            mapSegment(next, segmentCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start journal segment " + next, e);
+        }
+        writeOffset = 0;
+        unflushedFrom = 0;
+    }
+
+    private void mapSegment(long firstRecord, int capacity) throws IOException {
+        channel = FileChannel.open(JournalSegments.segmentPath(directory, firstRecord),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        segmentFirstRecord = firstRecord;
+    }
+
+    private void closeSegment() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush journal", e);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to compact journal", e);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private record SyncRequest(long target, MonoSink<Void> sink) {
+    }
+}
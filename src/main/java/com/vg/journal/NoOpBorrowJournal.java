@@ -0,0 +1,31 @@
+package com.vg.journal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Used when the journal is disabled: nothing is recorded and there is no history to read.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.journal", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpBorrowJournal implements BorrowJournal {
+
+    @Override
+    public Mono<Void> append(List<JournalEntry> entries) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> sync() {
+        return Mono.empty();
+    }
+
+    @Override
+    public Flux<JournalEntry> entries() {
+        return Flux.empty();
+    }
+}
@@ -0,0 +1,52 @@
+package com.vg.mapper;
+
+import com.vg.dto.BookRequestDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Maps one {@code title,author} CSV line to a {@link BookRequestDTO}. Fields may be
+ * quoted, with {@code ""} as an escaped quote. Missing columns map to {@code null}.
+ */
+public class BookCsvMappers {
+
+    public static final String HEADER = "title,author";
+
+    public static final Function<String, BookRequestDTO> csvLineToDto = line -> {
+        List<String> fields = split(line);
+        return new BookRequestDTO(
+            fields.size() > 0 ? fields.get(0) : null,
+            fields.size() > 1 ? fields.get(1) : null
+        );
+    };
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
@@ -0,0 +1,38 @@
+package com.vg.mapper;
+
+import com.vg.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes the keyset position of a book page as an opaque, URL-safe token.
+ */
+public class BookCursors {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int UUID_BYTES = 16;
+
+    public static String encode(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(UUID_BYTES);
+        buffer.putLong(lastId.getMostSignificantBits());
+        buffer.putLong(lastId.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        if (bytes.length != UUID_BYTES) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
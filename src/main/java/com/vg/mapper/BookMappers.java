@@ -1,8 +1,10 @@
 package com.vg.mapper;
 
+import com.vg.dto.BookBatchResultDTO;
 import com.vg.dto.BookRequestDTO;
 import com.vg.dto.BookResponseDTO;
 import com.vg.model.Book;
+import com.vg.model.BookBatchResult;
 
 import java.util.UUID;
 import java.util.function.Function;
@@ -19,4 +21,12 @@ public class BookMappers {
     public static final Function<BookRequestDTO, Book> toEntity = dto ->
             new Book(UUID.randomUUID(), dto.title(), dto.author(), true, null);
 
+    public static final Function<BookBatchResult, BookBatchResultDTO> batchResultToDto = result ->
+        new BookBatchResultDTO(
+            result.bookId(),
+            result.status().name(),
+            result.message(),
+            result.book() == null ? null : bookToDto.apply(result.book())
+        );
+
 }
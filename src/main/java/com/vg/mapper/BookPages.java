@@ -0,0 +1,28 @@
+package com.vg.mapper;
+
+import com.vg.exception.InvalidPageRequestException;
+
+/**
+ * Checks the paging parameters of book listings before they reach a query.
+ */
+public class BookPages {
+
+    public static final int MAX_SIZE = 1_000;
+
+    public static int page(int page) {
+        if (page < 0) {
+            throw new InvalidPageRequestException("Page must not be negative: " + page);
+        }
+        return page;
+    }
+
+    /**
+     * Returns the page size to query, at most {@link #MAX_SIZE}.
+     */
+    public static int size(int size) {
+        if (size < 1) {
+            throw new InvalidPageRequestException("Page size must be at least 1: " + size);
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
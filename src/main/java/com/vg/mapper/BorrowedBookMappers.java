@@ -3,8 +3,10 @@ package com.vg.mapper;
 import com.vg.dto.BorrowedBookViewDTO;
 import com.vg.model.Book;
 import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
 
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class BorrowedBookMappers {
     public static final BiFunction<BorrowedBook, Book, BorrowedBookViewDTO> borrowedBookToDto = (borrowed, book) ->
@@ -14,4 +16,12 @@ public class BorrowedBookMappers {
             book.getAuthor(),
             borrowed.getBorrowedAt()
         );
+
+    public static final Function<BorrowedBookDetails, BorrowedBookViewDTO> borrowedBookDetailsToDto = details ->
+        new BorrowedBookViewDTO(
+            details.bookId(),
+            details.title(),
+            details.author(),
+            details.borrowedAt()
+        );
 }
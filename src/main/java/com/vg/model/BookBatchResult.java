@@ -0,0 +1,20 @@
+package com.vg.model;
+
+import java.util.UUID;
+
+/**
+ * Outcome for one book of a multi-book borrow or return. {@code book} holds the changed
+ * book when {@code status} is {@link Status#OK}, otherwise {@code message} says why not.
+ */
+public record BookBatchResult(UUID bookId, Status status, Book book, String message) {
+
+    public enum Status { OK, NOT_FOUND, UNAVAILABLE }
+
+    public static BookBatchResult ok(Book book) {
+        return new BookBatchResult(book.getId(), Status.OK, book, null);
+    }
+
+    public static BookBatchResult failed(UUID bookId, Status status, String message) {
+        return new BookBatchResult(bookId, status, null, message);
+    }
+}
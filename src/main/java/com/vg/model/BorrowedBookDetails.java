@@ -0,0 +1,17 @@
+package com.vg.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read model for a borrow record joined with its book. {@code orphaned} is set
+ * when the borrow record points at a book that no longer exists.
+ */
+public record BorrowedBookDetails(
+        UUID id,
+        UUID bookId,
+        String title,
+        String author,
+        LocalDateTime borrowedAt,
+        boolean orphaned
+) {}
@@ -1,12 +1,37 @@
 package com.vg.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import com.vg.model.Book;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.UUID;
 
-public interface BookRepository extends R2dbcRepository<Book, UUID> {
+public interface BookRepository extends R2dbcRepository<Book, UUID>, BookRepositoryCustom {
     // Add custom paged query
     Flux<Book> findAllBy(Pageable pageable);
+
+    // Keyset pagination: seeks on the primary key index instead of skipping OFFSET rows
+    @Query("SELECT * FROM book ORDER BY id LIMIT :limit")
+    Flux<Book> findFirstPage(int limit);
+
+    @Query("SELECT * FROM book WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Book> findPageAfter(UUID after, int limit);
+
+    // Conditional updates: the FINAL TABLE delta holds the affected row, so an empty
+    // result means the guard on availability failed and nothing was changed
+    @Query("SELECT * FROM FINAL TABLE (UPDATE book SET available = FALSE, version = version + 1 WHERE id = :id AND available = TRUE)")
+    Mono<Book> markBorrowed(UUID id);
+
+    @Query("SELECT * FROM FINAL TABLE (UPDATE book SET available = TRUE, version = version + 1 WHERE id = :id AND available = FALSE)")
+    Mono<Book> markReturned(UUID id);
+
+    // Set-based variants for multi-book requests: one statement for the whole list
+    @Query("SELECT * FROM FINAL TABLE (UPDATE book SET available = FALSE, version = version + 1 WHERE id IN (:ids) AND available = TRUE)")
+    Flux<Book> markAllBorrowed(Collection<UUID> ids);
+
+    @Query("SELECT * FROM FINAL TABLE (UPDATE book SET available = TRUE, version = version + 1 WHERE id IN (:ids) AND available = FALSE)")
+    Flux<Book> markAllReturned(Collection<UUID> ids);
 }
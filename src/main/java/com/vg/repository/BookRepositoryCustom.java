@@ -0,0 +1,13 @@
+package com.vg.repository;
+
+import com.vg.model.Book;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface BookRepositoryCustom {
+    /**
+     * Inserts all books with a single multi-row INSERT and emits the number of rows written.
+     */
+    Mono<Long> insertAll(List<Book> books);
+}
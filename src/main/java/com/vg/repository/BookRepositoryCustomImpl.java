@@ -0,0 +1,49 @@
+package com.vg.repository;
+
+import com.vg.model.Book;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String INSERT_PREFIX = "INSERT INTO book (id, title, author, available, version) VALUES ";
+
+    private final DatabaseClient databaseClient;
+
+    public BookRepositoryCustomImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<Long> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Mono.just(0L);
+        }
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        for (int i = 0; i < books.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                    .append(", :title").append(i)
+                    .append(", :author").append(i)
+                    .append(", :available").append(i)
+                    .append(", :version").append(i)
+                    .append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            spec = spec.bind("id" + i, book.getId())
+                    .bind("available" + i, book.isAvailable())
+                    .bind("version" + i, book.getVersion() == null ? 0L : book.getVersion());
+            spec = book.getTitle() == null ? spec.bindNull("title" + i, String.class) : spec.bind("title" + i, book.getTitle());
+            spec = book.getAuthor() == null ? spec.bindNull("author" + i, String.class) : spec.bind("author" + i, book.getAuthor());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+}
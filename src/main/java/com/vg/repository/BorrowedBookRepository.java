@@ -1,12 +1,42 @@
 package com.vg.repository;
 
 import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface BorrowedBookRepository extends ReactiveCrudRepository<BorrowedBook, UUID> {
     Flux<BorrowedBook> findByUserId(UUID userId);
 
     Flux<BorrowedBook> findByUserIdAndBookId(UUID userId, UUID bookId);
+
+    @Modifying
+    @Query("DELETE FROM borrowed_book WHERE user_id = :userId AND book_id = :bookId")
+    Mono<Integer> deleteByUserIdAndBookId(UUID userId, UUID bookId);
+
+    @Modifying
+    @Query("""
+            INSERT INTO borrowed_book (id, user_id, book_id, borrowed_at)
+            SELECT RANDOM_UUID(), :userId, id, :borrowedAt FROM book WHERE id IN (:bookIds)
+            """)
+    Mono<Integer> insertAllForUser(UUID userId, Collection<UUID> bookIds, LocalDateTime borrowedAt);
+
+    // The OLD TABLE delta returns the deleted rows, so callers learn which books had a record
+    @Query("SELECT book_id FROM OLD TABLE (DELETE FROM borrowed_book WHERE user_id = :userId AND book_id IN (:bookIds))")
+    Flux<UUID> deleteAllForUser(UUID userId, Collection<UUID> bookIds);
+
+    // Single round trip for the borrowed-books view; LEFT JOIN keeps orphaned records visible
+    @Query("""
+            SELECT bb.id, bb.book_id, b.title, b.author, bb.borrowed_at, b.id IS NULL AS orphaned
+            FROM borrowed_book bb
+            LEFT JOIN book b ON b.id = bb.book_id
+            WHERE bb.user_id = :userId
+            """)
+    Flux<BorrowedBookDetails> findDetailsByUserId(UUID userId);
 }
@@ -0,0 +1,120 @@
+package com.vg.repository;
+
+import org.reactivestreams.Publisher;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.repository.query.FluentQuery.ReactiveFluentQuery;
+import org.springframework.data.repository.query.ReactiveQueryByExampleExecutor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Query-by-example for repositories that do not implement it, such as the hand-written JDBC and
+ * in-memory ones. Every query fails when subscribed with {@link InvalidDataAccessApiUsageException},
+ * the same way an unsupported sort does, rather than throwing while the pipeline is assembled.
+ */
+public interface QueryByExampleUnsupported<T> extends ReactiveQueryByExampleExecutor<T> {
+
+    @Override
+    default <S extends T> Mono<S> findOne(Example<S> example) {
+        return Mono.error(unsupported());
+    }
+
+    @Override
+    default <S extends T> Flux<S> findAll(Example<S> example) {
+        return Flux.error(unsupported());
+    }
+
+    @Override
+    default <S extends T> Flux<S> findAll(Example<S> example, Sort sort) {
+        return Flux.error(unsupported());
+    }
+
+    @Override
+    default <S extends T> Mono<Long> count(Example<S> example) {
+        return Mono.error(unsupported());
+    }
+
+    @Override
+    default <S extends T> Mono<Boolean> exists(Example<S> example) {
+        return Mono.error(unsupported());
+    }
+
+    @Override
+    default <S extends T, R, P extends Publisher<R>> P findBy(
+            Example<S> example, Function<ReactiveFluentQuery<S>, P> queryFunction) {
+        return queryFunction.apply(unsupportedQuery());
+    }
+
+    private static InvalidDataAccessApiUsageException unsupported() {
+        return new InvalidDataAccessApiUsageException("Query by example is not supported by this repository");
+    }
+
+    // Lets the caller build its query as usual; only the terminal operation fails
+    private static <S> ReactiveFluentQuery<S> unsupportedQuery() {
+        return new ReactiveFluentQuery<>() {
+            @Override
+            public ReactiveFluentQuery<S> sortBy(Sort sort) {
+                return this;
+            }
+
+            @Override
+            public ReactiveFluentQuery<S> limit(int limit) {
+                return this;
+            }
+
+            @Override
+            public <R> ReactiveFluentQuery<R> as(Class<R> resultType) {
+                return unsupportedQuery();
+            }
+
+            @Override
+            public ReactiveFluentQuery<S> project(Collection<String> properties) {
+                return this;
+            }
+
+            @Override
+            public Mono<S> one() {
+                return Mono.error(unsupported());
+            }
+
+            @Override
+            public Mono<S> first() {
+                return Mono.error(unsupported());
+            }
+
+            @Override
+            public Flux<S> all() {
+                return Flux.error(unsupported());
+            }
+
+            @Override
+            public Mono<Page<S>> page(Pageable pageable) {
+                return Mono.error(unsupported());
+            }
+
+            @Override
+            public Mono<Window<S>> scroll(ScrollPosition scrollPosition) {
+                return Mono.error(unsupported());
+            }
+
+            @Override
+            public Mono<Long> count() {
+                return Mono.error(unsupported());
+            }
+
+            @Override
+            public Mono<Boolean> exists() {
+                return Mono.error(unsupported());
+            }
+        };
+    }
+}
@@ -0,0 +1,260 @@
+package com.vg.repository.jdbc;
+
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.repository.QueryByExampleUnsupported;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * {@link BookRepository} over blocking JDBC on virtual threads. Runs the same statements as the
+ * R2DBC repository, including the conditional {@code FINAL TABLE} updates, and fails with the same
+ * exceptions, so the service cannot tell the two apart.
+ */
+@Repository
+@Profile(JdbcPersistence.PROFILE)
+public class JdbcBookRepository implements BookRepository, QueryByExampleUnsupported<Book> {
+
+    private static final Set<String> COLUMNS = Set.of("id", "title", "author", "available", "version");
+
+    private static final String INSERT = "INSERT INTO book (id, title, author, available, version) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE =
+            "UPDATE book SET title = ?, author = ?, available = ?, version = ? WHERE id = ? AND version = ?";
+
+    private final VirtualThreadJdbc jdbc;
+
+    public JdbcBookRepository(VirtualThreadJdbc jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Flux<Book> findAllBy(Pageable pageable) {
+        // Deferred so an unsupported sort fails the subscriber instead of the caller
+        return Flux.defer(() -> {
+            String sql = "SELECT * FROM book" + orderBy(pageable.getSort());
+            if (pageable.isUnpaged()) {
+                return jdbc.query(sql, JdbcBookRepository::book);
+            }
+            return jdbc.query(sql + " LIMIT ? OFFSET ?", JdbcBookRepository::book, pageable.getPageSize(), pageable.getOffset());
+        });
+    }
+
+    @Override
+    public Flux<Book> findFirstPage(int limit) {
+        return jdbc.query("SELECT * FROM book ORDER BY id LIMIT ?", JdbcBookRepository::book, limit);
+    }
+
+    @Override
+    public Flux<Book> findPageAfter(UUID after, int limit) {
+        return jdbc.query("SELECT * FROM book WHERE id > ? ORDER BY id LIMIT ?", JdbcBookRepository::book, after, limit);
+    }
+
+    @Override
+    public Mono<Book> markBorrowed(UUID id) {
+        return jdbc.queryForObject(
+                "SELECT * FROM FINAL TABLE (UPDATE book SET available = FALSE, version = version + 1 WHERE id = ? AND available = TRUE)",
+                JdbcBookRepository::book, id);
+    }
+
+    @Override
+    public Mono<Book> markReturned(UUID id) {
+        return jdbc.queryForObject(
+                "SELECT * FROM FINAL TABLE (UPDATE book SET available = TRUE, version = version + 1 WHERE id = ? AND available = FALSE)",
+                JdbcBookRepository::book, id);
+    }
+
+    @Override
+    public Flux<Book> markAllBorrowed(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return jdbc.query("SELECT * FROM FINAL TABLE (UPDATE book SET available = FALSE, version = version + 1 WHERE id IN ("
+                + VirtualThreadJdbc.placeholders(ids.size()) + ") AND available = TRUE)", JdbcBookRepository::book, ids.toArray());
+    }
+
+    @Override
+    public Flux<Book> markAllReturned(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return jdbc.query("SELECT * FROM FINAL TABLE (UPDATE book SET available = TRUE, version = version + 1 WHERE id IN ("
+                + VirtualThreadJdbc.placeholders(ids.size()) + ") AND available = FALSE)", JdbcBookRepository::book, ids.toArray());
+    }
+
+    @Override
+    public Mono<Long> insertAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Mono.just(0L);
+        }
+        String sql = "INSERT INTO book (id, title, author, available, version) VALUES "
+                + String.join(", ", Collections.nCopies(books.size(), "(?, ?, ?, ?, ?)"));
+        List<Object> args = new ArrayList<>(books.size() * 5);
+        for (Book book : books) {
+            args.add(book.getId());
+            args.add(book.getTitle());
+            args.add(book.getAuthor());
+            args.add(book.isAvailable());
+            args.add(book.getVersion() == null ? 0L : book.getVersion());
+        }
+        return jdbc.update(sql, args.toArray()).map(Integer::longValue);
+    }
+
+    @Override
+    public <S extends Book> Mono<S> save(S entity) {
+        if (entity.getVersion() == null) {
+            return jdbc.update(INSERT, entity.getId(), entity.getTitle(), entity.getAuthor(), entity.isAvailable(), 0L)
+                    .map(rows -> {
+                        entity.setVersion(0L);
+                        return entity;
+                    });
+        }
+        long expected = entity.getVersion();
+        return jdbc.update(UPDATE, entity.getTitle(), entity.getAuthor(), entity.isAvailable(), expected + 1,
+                        entity.getId(), expected)
+                .handle((rows, sink) -> {
+                    if (rows == 0) {
+                        sink.error(new OptimisticLockingFailureException(
+                                "Failed to update versioned entity with id '" + entity.getId() + "' (version " + expected + ")"));
+                        return;
+                    }
+                    entity.setVersion(expected + 1);
+                    sink.next(entity);
+                });
+    }
+
+    @Override
+    public <S extends Book> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends Book> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Book> findById(UUID id) {
+        return jdbc.queryForObject("SELECT * FROM book WHERE id = ?", JdbcBookRepository::book, id);
+    }
+
+    @Override
+    public Mono<Book> findById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(UUID id) {
+        return jdbc.queryForObject("SELECT 1 FROM book WHERE id = ?", resultSet -> true, id).defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Book> findAll() {
+        return jdbc.query("SELECT * FROM book", JdbcBookRepository::book);
+    }
+
+    @Override
+    public Flux<Book> findAll(Sort sort) {
+        return Flux.defer(() -> jdbc.query("SELECT * FROM book" + orderBy(sort), JdbcBookRepository::book));
+    }
+
+    @Override
+    public Flux<Book> findAllById(Iterable<UUID> ids) {
+        List<UUID> list = new ArrayList<>();
+        ids.forEach(list::add);
+        if (list.isEmpty()) {
+            return Flux.empty();
+        }
+        return jdbc.query("SELECT * FROM book WHERE id IN (" + VirtualThreadJdbc.placeholders(list.size()) + ")",
+                JdbcBookRepository::book, list.toArray());
+    }
+
+    @Override
+    public Flux<Book> findAllById(Publisher<UUID> idStream) {
+        return Flux.from(idStream).collectList().flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM book", resultSet -> resultSet.getLong(1));
+    }
+
+    @Override
+    public Mono<Void> deleteById(UUID id) {
+        return jdbc.update("DELETE FROM book WHERE id = ?", id).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Book entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Book> entities) {
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Book> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return jdbc.update("DELETE FROM book").then();
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> {
+                    if (!COLUMNS.contains(order.getProperty())) {
+                        throw new InvalidDataAccessApiUsageException("Books cannot be sorted by " + order.getProperty());
+                    }
+                    return order.getProperty() + (order.isAscending() ? " ASC" : " DESC");
+                })
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+    static Book book(ResultSet resultSet) throws SQLException {
+        return new Book(
+                resultSet.getObject("id", UUID.class),
+                resultSet.getString("title"),
+                resultSet.getString("author"),
+                resultSet.getBoolean("available"),
+                resultSet.getObject("version", Long.class));
+    }
+}
@@ -0,0 +1,208 @@
+package com.vg.repository.jdbc;
+
+import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
+import com.vg.repository.BorrowedBookRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link BorrowedBookRepository} over blocking JDBC on virtual threads, running the same statements
+ * as the R2DBC repository.
+ */
+@Repository
+@Profile(JdbcPersistence.PROFILE)
+public class JdbcBorrowedBookRepository implements BorrowedBookRepository {
+
+    private final VirtualThreadJdbc jdbc;
+
+    public JdbcBorrowedBookRepository(VirtualThreadJdbc jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Flux<BorrowedBook> findByUserId(UUID userId) {
+        return jdbc.query("SELECT * FROM borrowed_book WHERE user_id = ?", JdbcBorrowedBookRepository::record, userId);
+    }
+
+    @Override
+    public Flux<BorrowedBook> findByUserIdAndBookId(UUID userId, UUID bookId) {
+        return jdbc.query("SELECT * FROM borrowed_book WHERE user_id = ? AND book_id = ?",
+                JdbcBorrowedBookRepository::record, userId, bookId);
+    }
+
+    @Override
+    public Mono<Integer> deleteByUserIdAndBookId(UUID userId, UUID bookId) {
+        return jdbc.update("DELETE FROM borrowed_book WHERE user_id = ? AND book_id = ?", userId, bookId);
+    }
+
+    @Override
+    public Mono<Integer> insertAllForUser(UUID userId, Collection<UUID> bookIds, LocalDateTime borrowedAt) {
+        if (bookIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        return jdbc.update("INSERT INTO borrowed_book (id, user_id, book_id, borrowed_at) "
+                        + "SELECT RANDOM_UUID(), ?, id, ? FROM book WHERE id IN (" + VirtualThreadJdbc.placeholders(bookIds.size()) + ")",
+                VirtualThreadJdbc.args(bookIds, userId, borrowedAt));
+    }
+
+    @Override
+    public Flux<UUID> deleteAllForUser(UUID userId, Collection<UUID> bookIds) {
+        if (bookIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return jdbc.query("SELECT book_id FROM OLD TABLE (DELETE FROM borrowed_book WHERE user_id = ? AND book_id IN ("
+                        + VirtualThreadJdbc.placeholders(bookIds.size()) + "))",
+                resultSet -> resultSet.getObject("book_id", UUID.class), VirtualThreadJdbc.args(bookIds, userId));
+    }
+
+    @Override
+    public Flux<BorrowedBookDetails> findDetailsByUserId(UUID userId) {
+        return jdbc.query("""
+                        SELECT bb.id, bb.book_id, b.title, b.author, bb.borrowed_at, b.id IS NULL AS orphaned
+                        FROM borrowed_book bb
+                        LEFT JOIN book b ON b.id = bb.book_id
+                        WHERE bb.user_id = ?
+                        """,
+                resultSet -> new BorrowedBookDetails(
+                        resultSet.getObject("id", UUID.class),
+                        resultSet.getObject("book_id", UUID.class),
+                        resultSet.getString("title"),
+                        resultSet.getString("author"),
+                        resultSet.getObject("borrowed_at", LocalDateTime.class),
+                        resultSet.getBoolean("orphaned")),
+                userId);
+    }
+
+    @Override
+    public <S extends BorrowedBook> Mono<S> save(S entity) {
+        if (entity.isNew()) {
+            return jdbc.update("INSERT INTO borrowed_book (id, user_id, book_id, borrowed_at) VALUES (?, ?, ?, ?)",
+                            entity.getId(), entity.getUserId(), entity.getBookId(), entity.getBorrowedAt())
+                    .thenReturn(entity);
+        }
+        return jdbc.update("UPDATE borrowed_book SET user_id = ?, book_id = ?, borrowed_at = ? WHERE id = ?",
+                        entity.getUserId(), entity.getBookId(), entity.getBorrowedAt(), entity.getId())
+                .handle((rows, sink) -> {
+                    if (rows == 0) {
+                        sink.error(new TransientDataAccessResourceException(
+                                "Failed to update table [borrowed_book]; Row with Id [" + entity.getId() + "] does not exist"));
+                        return;
+                    }
+                    sink.next(entity);
+                });
+    }
+
+    @Override
+    public <S extends BorrowedBook> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends BorrowedBook> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<BorrowedBook> findById(UUID id) {
+        return jdbc.queryForObject("SELECT * FROM borrowed_book WHERE id = ?", JdbcBorrowedBookRepository::record, id);
+    }
+
+    @Override
+    public Mono<BorrowedBook> findById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(UUID id) {
+        return jdbc.queryForObject("SELECT 1 FROM borrowed_book WHERE id = ?", resultSet -> true, id).defaultIfEmpty(false);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<BorrowedBook> findAll() {
+        return jdbc.query("SELECT * FROM borrowed_book", JdbcBorrowedBookRepository::record);
+    }
+
+    @Override
+    public Flux<BorrowedBook> findAllById(Iterable<UUID> ids) {
+        List<UUID> list = new ArrayList<>();
+        ids.forEach(list::add);
+        if (list.isEmpty()) {
+            return Flux.empty();
+        }
+        return jdbc.query("SELECT * FROM borrowed_book WHERE id IN (" + VirtualThreadJdbc.placeholders(list.size()) + ")",
+                JdbcBorrowedBookRepository::record, list.toArray());
+    }
+
+    @Override
+    public Flux<BorrowedBook> findAllById(Publisher<UUID> idStream) {
+        return Flux.from(idStream).collectList().flatMapMany(this::findAllById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM borrowed_book", resultSet -> resultSet.getLong(1));
+    }
+
+    @Override
+    public Mono<Void> deleteById(UUID id) {
+        return jdbc.update("DELETE FROM borrowed_book WHERE id = ?", id).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(BorrowedBook entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends BorrowedBook> entities) {
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends BorrowedBook> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return jdbc.update("DELETE FROM borrowed_book").then();
+    }
+
+    private static BorrowedBook record(ResultSet resultSet) throws SQLException {
+        BorrowedBook record = new BorrowedBook(
+                resultSet.getObject("id", UUID.class),
+                resultSet.getObject("user_id", UUID.class),
+                resultSet.getObject("book_id", UUID.class),
+                resultSet.getObject("borrowed_at", LocalDateTime.class));
+        record.markNotNew();
+        return record;
+    }
+}
@@ -0,0 +1,29 @@
+package com.vg.repository.jdbc;
+
+import com.vg.config.JdbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.ReactiveTransactionManager;
+
+/**
+ * Wiring for the {@value #PROFILE} profile, which swaps the R2DBC repositories for JDBC ones whose
+ * blocking calls run on virtual threads. R2DBC still creates the schema, seeds the database and
+ * writes snapshots; see {@code application-jdbc.yml} for the auto-configuration it turns off.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile(JdbcPersistence.PROFILE)
+public class JdbcPersistence {
+
+    public static final String PROFILE = "jdbc";
+
+    @Bean
+    VirtualThreadJdbc virtualThreadJdbc(JdbcProperties properties) {
+        return new VirtualThreadJdbc(properties);
+    }
+
+    @Bean
+    ReactiveTransactionManager jdbcTransactionManager(VirtualThreadJdbc jdbc) {
+        return new JdbcTransactionManager(jdbc);
+    }
+}
@@ -0,0 +1,124 @@
+package com.vg.repository.jdbc;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.support.SmartTransactionObject;
+import reactor.core.publisher.Mono;
+
+import java.sql.Connection;
+
+/**
+ * Reactive transactions over a JDBC connection, so {@code TransactionalOperator} works the same in
+ * the {@code jdbc} profile. Beginning a transaction takes a connection, turns off auto-commit and
+ * binds it to the transaction, where {@link VirtualThreadJdbc} finds it for every statement run
+ * inside. Commit, rollback and releasing the connection run on virtual threads like the statements.
+ */
+class JdbcTransactionManager extends AbstractReactiveTransactionManager {
+
+    private final VirtualThreadJdbc jdbc;
+
+    JdbcTransactionManager(VirtualThreadJdbc jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+        return new JdbcTransaction((Connection) synchronizationManager.getResource(jdbc));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((JdbcTransaction) transaction).connection != null;
+    }
+
+    @Override
+    protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager,
+                                 Object transaction, TransactionDefinition definition) {
+        JdbcTransaction jdbcTransaction = (JdbcTransaction) transaction;
+        return jdbc.onVirtualThread(() -> {
+                    Connection connection = jdbc.acquire();
+                    try {
+                        connection.setAutoCommit(false);
+                        if (definition.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT) {
+                            jdbcTransaction.previousIsolation = connection.getTransactionIsolation();
+                            connection.setTransactionIsolation(definition.getIsolationLevel());
+                        }
+                        return connection;
+                    } catch (Exception e) {
+                        jdbc.release(connection);
+                        throw e;
+                    }
+                })
+                .doOnNext(connection -> {
+                    jdbcTransaction.connection = connection;
+                    synchronizationManager.bindResource(jdbc, connection);
+                })
+                .then();
+    }
+
+    @Override
+    protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+                                  GenericReactiveTransaction status) {
+        Connection connection = ((JdbcTransaction) status.getTransaction()).connection;
+        return jdbc.onVirtualThread(() -> {
+            connection.commit();
+            return null;
+        }).then();
+    }
+
+    @Override
+    protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager,
+                                    GenericReactiveTransaction status) {
+        Connection connection = ((JdbcTransaction) status.getTransaction()).connection;
+        return jdbc.onVirtualThread(() -> {
+            connection.rollback();
+            return null;
+        }).then();
+    }
+
+    @Override
+    protected Mono<Void> doSetRollbackOnly(TransactionSynchronizationManager synchronizationManager,
+                                           GenericReactiveTransaction status) {
+        return Mono.fromRunnable(() -> ((JdbcTransaction) status.getTransaction()).rollbackOnly = true);
+    }
+
+    @Override
+    protected Mono<Void> doCleanupAfterCompletion(TransactionSynchronizationManager synchronizationManager,
+                                                  Object transaction) {
+        JdbcTransaction jdbcTransaction = (JdbcTransaction) transaction;
+        synchronizationManager.unbindResource(jdbc);
+        Connection connection = jdbcTransaction.connection;
+        return jdbc.onVirtualThread(() -> {
+            try {
+                connection.setAutoCommit(true);
+                if (jdbcTransaction.previousIsolation != null) {
+                    connection.setTransactionIsolation(jdbcTransaction.previousIsolation);
+                }
+            } finally {
+                jdbc.release(connection);
+            }
+            return null;
+        }).then();
+    }
+
+    private static final class JdbcTransaction implements SmartTransactionObject {
+        private Connection connection;
+        private Integer previousIsolation;
+        private boolean rollbackOnly;
+
+        JdbcTransaction(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
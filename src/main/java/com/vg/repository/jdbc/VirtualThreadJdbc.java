@@ -0,0 +1,226 @@
+package com.vg.repository.jdbc;
+
+import com.vg.config.JdbcProperties;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.dao.UncategorizedDataAccessException;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs blocking JDBC calls on virtual threads and hands their results back as {@link Mono} and
+ * {@link Flux}, so the JDBC repositories fit the reactive repository interfaces unchanged.
+ * <p>
+ * A call made inside a transaction of {@link JdbcTransactionManager} uses the connection bound to
+ * that transaction; any other call borrows a connection in auto-commit mode for that one statement.
+ * Callers wait for a free connection on a semaphore rather than inside the pool, which parks the
+ * virtual thread instead of pinning its carrier. Query results are read into a list before they
+ * are emitted, so no cursor is held open while a subscriber is slow.
+ */
+public class VirtualThreadJdbc implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadJdbc.class);
+
+    private final JdbcConnectionPool pool;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Scheduler scheduler;
+
+    public VirtualThreadJdbc(JdbcProperties properties) {
+        this.pool = JdbcConnectionPool.create(properties.url(), properties.username(), properties.password());
+        this.pool.setMaxConnections(properties.maxConnections());
+        this.permits = new Semaphore(properties.maxConnections(), true);
+        this.acquireTimeout = properties.acquireTimeout();
+        this.scheduler = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "jdbc");
+    }
+
+    public <T> Mono<T> execute(ConnectionCallback<T> work) {
+        return boundConnection().flatMap(bound -> onVirtualThread(() -> bound.isPresent()
+                ? work.doInConnection(bound.get())
+                : withOwnConnection(work)));
+    }
+
+    public <T> Flux<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+        return execute(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql, args);
+                 ResultSet resultSet = statement.executeQuery()) {
+                List<T> rows = new ArrayList<>();
+                while (resultSet.next()) {
+                    rows.add(rowMapper.mapRow(resultSet));
+                }
+                return rows;
+            }
+        }).flatMapIterable(rows -> rows);
+    }
+
+    public <T> Mono<T> queryForObject(String sql, RowMapper<T> rowMapper, Object... args) {
+        return execute(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql, args);
+                 ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? rowMapper.mapRow(resultSet) : null;
+            }
+        });
+    }
+
+    public Mono<Integer> update(String sql, Object... args) {
+        return execute(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql, args)) {
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * {@code ?, ?, ?} for an {@code IN} list of the given size.
+     */
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * The fixed arguments followed by every element of {@code list}, for a statement ending in an {@code IN} list.
+     */
+    static Object[] args(Collection<?> list, Object... leading) {
+        Object[] all = new Object[leading.length + list.size()];
+        System.arraycopy(leading, 0, all, 0, leading.length);
+        int i = leading.length;
+        for (Object value : list) {
+            all[i++] = value;
+        }
+        return all;
+    }
+
+    <T> Mono<T> onVirtualThread(Callable<T> work) {
+        return Mono.fromCallable(work)
+                .subscribeOn(scheduler)
+                .onErrorMap(SQLException.class, VirtualThreadJdbc::translate);
+    }
+
+    Connection acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new DataAccessResourceFailureException("No JDBC connection available within " + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while waiting for a JDBC connection", e);
+        }
+        try {
+            return pool.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("Could not return JDBC connection to the pool", e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    int activeConnections() {
+        return pool.getActiveConnections();
+    }
+
+    @Override
+    public void close() {
+        scheduler.dispose();
+        pool.dispose();
+    }
+
+    private Mono<Optional<Connection>> boundConnection() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(synchronization -> Optional.ofNullable((Connection) synchronization.getResource(this)))
+                .onErrorResume(NoTransactionException.class, e -> Mono.just(Optional.empty()));
+    }
+
+    private <T> T withOwnConnection(ConnectionCallback<T> work) throws SQLException {
+        Connection connection = acquire();
+        try {
+            return work.doInConnection(connection);
+        } finally {
+            release(connection);
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object... args) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    // The same exception types the R2DBC repositories surface, so callers cannot tell the engines apart
+    static DataAccessException translate(SQLException e) {
+        String state = e.getSQLState() == null ? "" : e.getSQLState();
+        if (state.equals("23505")) {
+            return new DuplicateKeyException(e.getMessage(), e);
+        }
+        if (state.startsWith("23")) {
+            return new DataIntegrityViolationException(e.getMessage(), e);
+        }
+        if (state.startsWith("40") || state.equals("HYT00")) {
+            return new CannotAcquireLockException(e.getMessage(), e);
+        }
+        if (state.startsWith("08")) {
+            return new DataAccessResourceFailureException(e.getMessage(), e);
+        }
+        if (state.startsWith("42")) {
+            return new InvalidDataAccessResourceUsageException(e.getMessage(), e);
+        }
+        return new UncategorizedJdbcException(e);
+    }
+
+    @FunctionalInterface
+    public interface ConnectionCallback<T> {
+        T doInConnection(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T mapRow(ResultSet resultSet) throws SQLException;
+    }
+
+    private static final class UncategorizedJdbcException extends UncategorizedDataAccessException {
+        UncategorizedJdbcException(SQLException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
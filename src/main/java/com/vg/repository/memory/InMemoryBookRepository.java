@@ -0,0 +1,297 @@
+package com.vg.repository.memory;
+
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.repository.QueryByExampleUnsupported;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * {@link BookRepository} kept in a concurrent sorted map, for deployments without a database.
+ * <p>
+ * Stored books are never mutated: every change builds a new copy with the next {@code version} and
+ * installs it with a compare-and-set on the map entry, retrying if another change won. Callers only
+ * ever see copies. Everything runs on the subscribing thread. Inside a transaction, every change
+ * also records the compare-and-set that reverts it in the {@link UndoLog}.
+ */
+@Repository
+@Profile(InMemoryPersistence.PROFILE)
+public class InMemoryBookRepository implements BookRepository, QueryByExampleUnsupported<Book> {
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    // Nulls compare lowest, as in H2
+    private static final Map<String, Comparator<Book>> SORTABLE = Map.of(
+            "id", Comparator.comparing(Book::getId, InMemoryPersistence.ID_ORDER),
+            "title", Comparator.comparing(Book::getTitle, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "author", Comparator.comparing(Book::getAuthor, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "available", Comparator.comparing(Book::isAvailable),
+            "version", Comparator.comparing(Book::getVersion, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+    private final ConcurrentNavigableMap<UUID, Book> books = new ConcurrentSkipListMap<>(InMemoryPersistence.ID_ORDER);
+
+    @Override
+    public Flux<Book> findAllBy(Pageable pageable) {
+        return Flux.defer(() -> {
+            Stream<Book> sorted = sorted(pageable.getSort());
+            Stream<Book> page = pageable.isUnpaged()
+                    ? sorted
+                    : sorted.skip(pageable.getOffset()).limit(pageable.getPageSize());
+            return Flux.fromStream(page.map(InMemoryBookRepository::copy));
+        });
+    }
+
+    @Override
+    public Flux<Book> findFirstPage(int limit) {
+        return Flux.defer(() -> page(books, limit));
+    }
+
+    @Override
+    public Flux<Book> findPageAfter(UUID after, int limit) {
+        return Flux.defer(() -> page(books.tailMap(after, false), limit));
+    }
+
+    @Override
+    public Mono<Book> markBorrowed(UUID id) {
+        return UndoLog.current().mapNotNull(undoLog -> changeAvailability(id, true, undoLog));
+    }
+
+    @Override
+    public Mono<Book> markReturned(UUID id) {
+        return UndoLog.current().mapNotNull(undoLog -> changeAvailability(id, false, undoLog));
+    }
+
+    @Override
+    public Flux<Book> markAllBorrowed(Collection<UUID> ids) {
+        return UndoLog.current().flatMapIterable(undoLog -> changeAvailability(ids, true, undoLog));
+    }
+
+    @Override
+    public Flux<Book> markAllReturned(Collection<UUID> ids) {
+        return UndoLog.current().flatMapIterable(undoLog -> changeAvailability(ids, false, undoLog));
+    }
+
+    @Override
+    public Mono<Long> insertAll(List<Book> newBooks) {
+        return UndoLog.current().map(undoLog -> {
+            newBooks.forEach(book -> insert(withVersion(book, book.getVersion() == null ? 0L : book.getVersion()), undoLog));
+            return (long) newBooks.size();
+        });
+    }
+
+    @Override
+    public <S extends Book> Mono<S> save(S entity) {
+        return UndoLog.current().map(undoLog -> {
+            if (entity.getVersion() == null) {
+                entity.setVersion(0L);
+                insert(copy(entity), undoLog);
+                return entity;
+            }
+            long expected = entity.getVersion();
+            Book updated = update(entity.getId(), current -> current.getVersion() == expected
+                    ? withVersion(entity, expected + 1)
+                    : null, undoLog);
+            if (updated == null) {
+                throw new OptimisticLockingFailureException(
+                        "Failed to update versioned entity with id '" + entity.getId() + "' (version " + expected + ")");
+            }
+            entity.setVersion(updated.getVersion());
+            return entity;
+        });
+    }
+
+    @Override
+    public <S extends Book> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends Book> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Book> findById(UUID id) {
+        return Mono.fromSupplier(() -> copyOrNull(books.get(id)));
+    }
+
+    @Override
+    public Mono<Book> findById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(UUID id) {
+        return Mono.fromSupplier(() -> books.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Book> findAll() {
+        return Flux.defer(() -> Flux.fromStream(books.values().stream().map(InMemoryBookRepository::copy)));
+    }
+
+    @Override
+    public Flux<Book> findAll(Sort sort) {
+        return Flux.defer(() -> Flux.fromStream(sorted(sort).map(InMemoryBookRepository::copy)));
+    }
+
+    @Override
+    public Flux<Book> findAllById(Iterable<UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Book> findAllById(Publisher<UUID> idStream) {
+        return Flux.from(idStream).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) books.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(UUID id) {
+        return UndoLog.current().doOnNext(undoLog -> remove(id, undoLog)).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Book entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends UUID> ids) {
+        return UndoLog.current().doOnNext(undoLog -> ids.forEach(id -> remove(id, undoLog))).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Book> entities) {
+        return UndoLog.current().doOnNext(undoLog -> entities.forEach(book -> remove(book.getId(), undoLog))).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Book> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return UndoLog.current().doOnNext(undoLog -> books.keySet().forEach(id -> remove(id, undoLog))).then();
+    }
+
+    private List<Book> changeAvailability(Collection<UUID> ids, boolean expectedAvailable, UndoLog undoLog) {
+        return ids.stream()
+                .distinct()
+                .map(id -> changeAvailability(id, expectedAvailable, undoLog))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Book changeAvailability(UUID id, boolean expectedAvailable, UndoLog undoLog) {
+        Book changed = update(id, current -> current.isAvailable() == expectedAvailable
+                ? new Book(id, current.getTitle(), current.getAuthor(), !expectedAvailable, current.getVersion() + 1)
+                : null, undoLog);
+        return copyOrNull(changed);
+    }
+
+    /**
+     * Compare-and-set loop: {@code change} derives the next state from the current one, or returns
+     * {@code null} if its condition does not hold. Returns the installed book, or {@code null}.
+     */
+    private Book update(UUID id, UnaryOperator<Book> change, UndoLog undoLog) {
+        while (true) {
+            Book current = books.get(id);
+            if (current == null) {
+                return null;
+            }
+            Book next = change.apply(current);
+            if (next == null) {
+                return null;
+            }
+            if (books.replace(id, current, next)) {
+                undoLog.record(() -> books.replace(id, next, current));
+                return next;
+            }
+        }
+    }
+
+    private void insert(Book book, UndoLog undoLog) {
+        if (books.putIfAbsent(book.getId(), book) != null) {
+            throw InMemoryPersistence.duplicateKey("book", book.getId());
+        }
+        undoLog.record(() -> books.remove(book.getId(), book));
+    }
+
+    private void remove(UUID id, UndoLog undoLog) {
+        Book removed = books.remove(id);
+        if (removed != null) {
+            undoLog.record(() -> books.putIfAbsent(id, removed));
+        }
+    }
+
+    private static Flux<Book> page(ConcurrentNavigableMap<UUID, Book> from, int limit) {
+        return Flux.fromStream(from.values().stream().limit(limit).map(InMemoryBookRepository::copy));
+    }
+
+    /**
+     * The stored books in {@code sort} order. Ties keep id order, since the sort is stable and the
+     * map already iterates by id.
+     */
+    private Stream<Book> sorted(Sort sort) {
+        Stream<Book> all = books.values().stream();
+        if (sort.isUnsorted() || sort.equals(BY_ID)) {
+            return all;
+        }
+        Comparator<Book> order = null;
+        for (Sort.Order property : sort) {
+            Comparator<Book> byProperty = SORTABLE.get(property.getProperty());
+            if (byProperty == null) {
+                throw new InvalidDataAccessApiUsageException("Books cannot be sorted by " + property.getProperty());
+            }
+            byProperty = property.isAscending() ? byProperty : byProperty.reversed();
+            order = order == null ? byProperty : order.thenComparing(byProperty);
+        }
+        return all.sorted(order);
+    }
+
+    private static Book withVersion(Book book, long version) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.isAvailable(), version);
+    }
+
+    private static Book copy(Book book) {
+        return withVersion(book, book.getVersion());
+    }
+
+    private static Book copyOrNull(Book book) {
+        return book == null ? null : copy(book);
+    }
+}
@@ -0,0 +1,244 @@
+package com.vg.repository.memory;
+
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
+import com.vg.repository.BorrowedBookRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link BorrowedBookRepository} over concurrent maps. Records are indexed by book, which also
+ * enforces the one-loan-per-book rule of the database's unique index, and by user for the lookups
+ * the service makes. The book index is claimed first, so a record is only visible once it owns its book.
+ * Inside a transaction, every insert and delete also records its inverse in the {@link UndoLog}.
+ */
+@Repository
+@Profile(InMemoryPersistence.PROFILE)
+public class InMemoryBorrowedBookRepository implements BorrowedBookRepository {
+
+    private final Map<UUID, BorrowedBook> records = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> recordByBook = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> recordsByUser = new ConcurrentHashMap<>();
+
+    private final InMemoryBookRepository bookRepository;
+
+    public InMemoryBorrowedBookRepository(InMemoryBookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public Flux<BorrowedBook> findByUserId(UUID userId) {
+        return Flux.defer(() -> Flux.fromIterable(forUser(userId)));
+    }
+
+    @Override
+    public Flux<BorrowedBook> findByUserIdAndBookId(UUID userId, UUID bookId) {
+        return Mono.fromSupplier(() -> recordFor(userId, bookId)).flux();
+    }
+
+    @Override
+    public Mono<Integer> deleteByUserIdAndBookId(UUID userId, UUID bookId) {
+        return UndoLog.current().map(undoLog -> remove(recordFor(userId, bookId), undoLog) ? 1 : 0);
+    }
+
+    @Override
+    public Mono<Integer> insertAllForUser(UUID userId, Collection<UUID> bookIds, LocalDateTime borrowedAt) {
+        return UndoLog.current()
+                .flatMapMany(undoLog -> bookRepository.findAllById(bookIds.stream().distinct().toList())
+                        .map(book -> insert(new BorrowedBook(UUID.randomUUID(), userId, book.getId(), borrowedAt), undoLog)))
+                .count()
+                .map(Long::intValue);
+    }
+
+    @Override
+    public Flux<UUID> deleteAllForUser(UUID userId, Collection<UUID> bookIds) {
+        return UndoLog.current().flatMapIterable(undoLog -> bookIds.stream()
+                .distinct()
+                .map(bookId -> recordFor(userId, bookId))
+                .filter(record -> remove(record, undoLog))
+                .map(BorrowedBook::getBookId)
+                .toList());
+    }
+
+    @Override
+    public Flux<BorrowedBookDetails> findDetailsByUserId(UUID userId) {
+        return findByUserId(userId).concatMap(record -> bookRepository.findById(record.getBookId())
+                .map(book -> details(record, book))
+                .defaultIfEmpty(details(record, null)));
+    }
+
+    @Override
+    public <S extends BorrowedBook> Mono<S> save(S entity) {
+        return UndoLog.current().map(undoLog -> {
+            if (entity.isNew()) {
+                insert(entity, undoLog);
+            } else {
+                BorrowedBook previous = records.get(entity.getId());
+                remove(previous, undoLog);
+                insert(entity, undoLog);
+            }
+            return entity;
+        });
+    }
+
+    @Override
+    public <S extends BorrowedBook> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends BorrowedBook> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<BorrowedBook> findById(UUID id) {
+        return Mono.fromSupplier(() -> copyOrNull(records.get(id)));
+    }
+
+    @Override
+    public Mono<BorrowedBook> findById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(UUID id) {
+        return Mono.fromSupplier(() -> records.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<BorrowedBook> findAll() {
+        return Flux.defer(() -> Flux.fromStream(records.values().stream().map(InMemoryBorrowedBookRepository::copy)));
+    }
+
+    @Override
+    public Flux<BorrowedBook> findAllById(Iterable<UUID> ids) {
+        return Flux.fromIterable(ids).concatMap(this::findById);
+    }
+
+    @Override
+    public Flux<BorrowedBook> findAllById(Publisher<UUID> idStream) {
+        return Flux.from(idStream).concatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) records.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(UUID id) {
+        return UndoLog.current().doOnNext(undoLog -> remove(records.get(id), undoLog)).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<UUID> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(BorrowedBook entity) {
+        return deleteById(entity.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends UUID> ids) {
+        return UndoLog.current().doOnNext(undoLog -> ids.forEach(id -> remove(records.get(id), undoLog))).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends BorrowedBook> entities) {
+        return UndoLog.current()
+                .doOnNext(undoLog -> entities.forEach(record -> remove(records.get(record.getId()), undoLog)))
+                .then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends BorrowedBook> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return UndoLog.current().doOnNext(undoLog -> records.values().forEach(record -> remove(record, undoLog))).then();
+    }
+
+    private BorrowedBook insert(BorrowedBook record, UndoLog undoLog) {
+        BorrowedBook stored = copy(record);
+        if (records.putIfAbsent(stored.getId(), stored) != null) {
+            throw InMemoryPersistence.duplicateKey("borrowed_book", stored.getId());
+        }
+        if (recordByBook.putIfAbsent(stored.getBookId(), stored.getId()) != null) {
+            records.remove(stored.getId());
+            throw InMemoryPersistence.duplicateKey("borrowed_book", "book_id " + stored.getBookId());
+        }
+        recordsByUser.computeIfAbsent(stored.getUserId(), user -> ConcurrentHashMap.newKeySet()).add(stored.getId());
+        undoLog.record(() -> remove(stored, UndoLog.NONE));
+        return stored;
+    }
+
+    // Releasing the book index entry last means a concurrent insert for the same book only succeeds
+    // once this record is gone from every other index
+    private boolean remove(BorrowedBook record, UndoLog undoLog) {
+        if (record == null || !records.remove(record.getId(), record)) {
+            return false;
+        }
+        recordsByUser.computeIfPresent(record.getUserId(), (user, ids) -> {
+            ids.remove(record.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+        recordByBook.remove(record.getBookId(), record.getId());
+        undoLog.record(() -> insert(record, UndoLog.NONE));
+        return true;
+    }
+
+    private BorrowedBook recordFor(UUID userId, UUID bookId) {
+        UUID recordId = recordByBook.get(bookId);
+        BorrowedBook record = recordId == null ? null : records.get(recordId);
+        return record != null && record.getUserId().equals(userId) ? record : null;
+    }
+
+    private List<BorrowedBook> forUser(UUID userId) {
+        Set<UUID> ids = recordsByUser.getOrDefault(userId, Set.of());
+        return ids.stream()
+                .map(records::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryBorrowedBookRepository::copy)
+                .toList();
+    }
+
+    private static BorrowedBookDetails details(BorrowedBook record, Book book) {
+        return new BorrowedBookDetails(record.getId(), record.getBookId(),
+                book == null ? null : book.getTitle(),
+                book == null ? null : book.getAuthor(),
+                record.getBorrowedAt(), book == null);
+    }
+
+    private static BorrowedBook copy(BorrowedBook record) {
+        BorrowedBook copy = new BorrowedBook(record.getId(), record.getUserId(), record.getBookId(), record.getBorrowedAt());
+        copy.markNotNew();
+        return copy;
+    }
+
+    private static BorrowedBook copyOrNull(BorrowedBook record) {
+        return record == null ? null : copy(record);
+    }
+}
@@ -0,0 +1,40 @@
+package com.vg.repository.memory;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.ReactiveTransactionManager;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Wiring for the {@value #PROFILE} profile, which swaps the R2DBC repositories for lock-free maps.
+ * See {@code application-in-memory.yml} for the auto-configuration it turns off.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile(InMemoryPersistence.PROFILE)
+public class InMemoryPersistence {
+
+    public static final String PROFILE = "in-memory";
+
+    // H2 compares UUIDs as unsigned 128-bit values; UUID.compareTo is signed. Keep the database's
+    // order so keyset cursors and exports behave the same on both engines.
+    static final Comparator<UUID> ID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    /**
+     * Every repository call is a single atomic map operation, visible to other callers at once; a
+     * transaction that fails half-way undoes the changes it made before the failure.
+     */
+    @Bean
+    ReactiveTransactionManager inMemoryTransactionManager() {
+        return new InMemoryTransactionManager();
+    }
+
+    static DuplicateKeyException duplicateKey(String table, Object key) {
+        return new DuplicateKeyException("Duplicate key " + key + " in " + table);
+    }
+}
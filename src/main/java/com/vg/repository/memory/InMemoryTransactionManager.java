@@ -0,0 +1,78 @@
+package com.vg.repository.memory;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.AbstractReactiveTransactionManager;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.support.SmartTransactionObject;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive transactions for the in-memory repositories. Every repository call is still a single
+ * atomic map operation and other callers see it at once; beginning a transaction binds an
+ * {@link UndoLog} that the repositories record into, and rolling back replays it. Committing only
+ * drops the log.
+ */
+class InMemoryTransactionManager extends AbstractReactiveTransactionManager {
+
+    @Override
+    protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+        return new InMemoryTransaction((UndoLog) synchronizationManager.getResource(UndoLog.class));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((InMemoryTransaction) transaction).undoLog != null;
+    }
+
+    @Override
+    protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager,
+                                 Object transaction, TransactionDefinition definition) {
+        return Mono.fromRunnable(() -> {
+            UndoLog undoLog = new UndoLog();
+            ((InMemoryTransaction) transaction).undoLog = undoLog;
+            synchronizationManager.bindResource(UndoLog.class, undoLog);
+        });
+    }
+
+    @Override
+    protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+                                  GenericReactiveTransaction status) {
+        return Mono.empty();
+    }
+
+    @Override
+    protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager,
+                                    GenericReactiveTransaction status) {
+        return Mono.fromRunnable(((InMemoryTransaction) status.getTransaction()).undoLog::rollback);
+    }
+
+    @Override
+    protected Mono<Void> doSetRollbackOnly(TransactionSynchronizationManager synchronizationManager,
+                                           GenericReactiveTransaction status) {
+        return Mono.fromRunnable(((InMemoryTransaction) status.getTransaction()).undoLog::setRollbackOnly);
+    }
+
+    @Override
+    protected Mono<Void> doCleanupAfterCompletion(TransactionSynchronizationManager synchronizationManager,
+                                                  Object transaction) {
+        return Mono.fromRunnable(() -> synchronizationManager.unbindResource(UndoLog.class));
+    }
+
+    private static final class InMemoryTransaction implements SmartTransactionObject {
+        private UndoLog undoLog;
+
+        InMemoryTransaction(UndoLog undoLog) {
+            this.undoLog = undoLog;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return undoLog.isRollbackOnly();
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
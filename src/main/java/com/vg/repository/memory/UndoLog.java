@@ -0,0 +1,65 @@
+package com.vg.repository.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * The changes an in-memory transaction has made, as the actions that take them back. Repositories
+ * record one action per map change; rolling back runs them newest first. An undo action only
+ * reverts its own change, so one that another caller has since overwritten is left alone.
+ */
+class UndoLog {
+
+    private static final Logger log = LoggerFactory.getLogger(UndoLog.class);
+
+    /** Used outside a transaction, where every change is final. */
+    static final UndoLog NONE = new UndoLog() {
+        @Override
+        void record(Runnable undo) {
+        }
+    };
+
+    private final Deque<Runnable> actions = new ConcurrentLinkedDeque<>();
+
+    // Kept here rather than on the transaction object, so a participating transaction that fails
+    // marks the one that owns the log
+    private volatile boolean rollbackOnly;
+
+    /**
+     * The log of the transaction the subscriber runs in, or {@link #NONE}.
+     */
+    static Mono<UndoLog> current() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .mapNotNull(synchronization -> (UndoLog) synchronization.getResource(UndoLog.class))
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .defaultIfEmpty(NONE);
+    }
+
+    void record(Runnable undo) {
+        actions.push(undo);
+    }
+
+    void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    void rollback() {
+        for (Runnable undo = actions.poll(); undo != null; undo = actions.poll()) {
+            try {
+                undo.run();
+            } catch (RuntimeException e) {
+                log.warn("Could not undo an in-memory change", e);
+            }
+        }
+    }
+}
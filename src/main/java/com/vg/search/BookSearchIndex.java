@@ -0,0 +1,184 @@
+package com.vg.search;
+
+import com.vg.config.BookSearchProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index from the words of {@link Book#getTitle()} and {@link Book#getAuthor()} to book ids.
+ * <p>
+ * Books are matched when every query word occurs in the title or author; the last word also matches
+ * as a prefix so results show up while typing. Hits are ranked by the sum of term weight times inverse
+ * document frequency, with a title word weighing twice an author word. Title and author never change
+ * after a book is added, so the index only grows and is kept current from the write paths.
+ * <p>
+ * The stored books are indexed in the background once the application is ready; until that scan
+ * has completed the index is not {@link #ready()} and would answer with partial results.
+ */
+@Component
+public class BookSearchIndex implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final BookRepository bookRepository;
+    private final BookSearchProperties properties;
+    private final ConcurrentNavigableMap<String, Map<UUID, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final Set<UUID> documents = ConcurrentHashMap.newKeySet();
+    private final AtomicLong postingCount = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository bookRepository, BookSearchProperties properties) {
+        this.bookRepository = bookRepository;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild().subscribe(
+                indexed -> log.info("Search index built with {} books and {} postings", indexed, postingCount.get()),
+                error -> log.error("Search index could not be built, searches are refused", error));
+    }
+
+    /**
+     * Indexes every stored book and marks the index ready. Books already in the index are left as they are.
+     */
+    public Mono<Long> rebuild() {
+        return bookRepository.findAll()
+                .filter(this::index)
+                .count()
+                .doOnNext(indexed -> ready = true);
+    }
+
+    /**
+     * Whether every stored book has been indexed at least once.
+     */
+    public boolean ready() {
+        return ready;
+    }
+
+    /**
+     * Adds a book to the index.
+     *
+     * @return {@code false} if the book was already indexed or would exceed the posting budget
+     */
+    public boolean index(Book book) {
+        if (!documents.add(book.getId())) {
+            return false;
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(book.getAuthor()).forEach(term -> weights.merge(term, AUTHOR_WEIGHT, Integer::sum));
+
+        long total = postingCount.addAndGet(weights.size());
+        if (total > properties.maxPostings()) {
+            postingCount.addAndGet(-weights.size());
+            documents.remove(book.getId());
+            if (skipped.getAndIncrement() == 0) {
+                log.warn("Search index is full at {} postings, new books are not searchable", properties.maxPostings());
+            }
+            return false;
+        }
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(book.getId(), weight));
+        return true;
+    }
+
+    /**
+     * Returns the ids of matching books, best match first. Ties are broken by id so pages are stable.
+     */
+    public List<UUID> search(String query, long offset, int limit) {
+        List<String> terms = tokenize(query).distinct().toList();
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        double documentCount = Math.max(documents.size(), 1);
+        Map<UUID, Double> scores = scoreTerm(terms.get(0), terms.size() == 1, documentCount);
+        for (int i = 1; i < terms.size() && !scores.isEmpty(); i++) {
+            Map<UUID, Double> termScores = scoreTerm(terms.get(i), i == terms.size() - 1, documentCount);
+            scores.keySet().retainAll(termScores.keySet());
+            termScores.forEach((id, score) -> scores.computeIfPresent(id, (key, sum) -> sum + score));
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.search.documents", documents, Set::size)
+                .description("Books in the search index")
+                .register(registry);
+        Gauge.builder("library.search.postings", postingCount, AtomicLong::get)
+                .description("Term to book entries in the search index")
+                .register(registry);
+        Gauge.builder("library.search.skipped", skipped, AtomicLong::get)
+                .description("Books left out of the search index because it was full")
+                .register(registry);
+    }
+
+    private Map<UUID, Double> scoreTerm(String term, boolean prefix, double documentCount) {
+        Map<UUID, Double> scores = new HashMap<>();
+        addScores(scores, postings.get(term), 1.0, documentCount);
+        if (prefix) {
+            postings.tailMap(term, false).entrySet().stream()
+                    .takeWhile(entry -> entry.getKey().startsWith(term))
+                    .limit(properties.maxPrefixExpansions())
+                    .forEach(entry -> addScores(scores, entry.getValue(), PREFIX_FACTOR, documentCount));
+        }
+        return scores;
+    }
+
+    private static void addScores(Map<UUID, Double> scores, Map<UUID, Integer> posting, double factor, double documentCount) {
+        if (posting == null || posting.isEmpty()) {
+            return;
+        }
+        double idf = Math.log(1 + documentCount / posting.size());
+        posting.forEach((id, weight) -> scores.merge(id, weight * idf * factor, Double::sum));
+    }
+
+    static Stream<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Stream.empty();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_WORD.splitAsStream(folded.toLowerCase(Locale.ROOT))
+                .filter(term -> !term.isEmpty());
+    }
+}
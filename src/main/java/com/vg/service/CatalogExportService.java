@@ -0,0 +1,43 @@
+package com.vg.service;
+
+import com.vg.config.ExportProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class CatalogExportService {
+
+    private final BookRepository bookRepository;
+    private final ExportProperties properties;
+
+    public CatalogExportService(BookRepository bookRepository, ExportProperties properties) {
+        this.bookRepository = bookRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Streams every book after {@code after} in id order. Books are read in keyset batches of
+     * {@code library.export.batch-size}. A batch is only queried once the client has asked for
+     * books from the one before it, so a slow client never makes the export read more than one batch ahead.
+     */
+    public Flux<Book> export(UUID after) {
+        int batchSize = properties.batchSize();
+        return readBatch(after, batchSize)
+                .expand(batch -> batch.size() < batchSize
+                        ? Mono.empty()
+                        : readBatch(batch.get(batch.size() - 1).getId(), batchSize))
+                .concatMapIterable(batch -> batch, 1);
+    }
+
+    private Mono<List<Book>> readBatch(UUID after, int batchSize) {
+        return Mono.defer(() -> (after == null
+                ? bookRepository.findFirstPage(batchSize)
+                : bookRepository.findPageAfter(after, batchSize)).collectList());
+    }
+}
@@ -0,0 +1,85 @@
+package com.vg.service;
+
+import com.vg.cache.CatalogVersions;
+import com.vg.config.IngestProperties;
+import com.vg.dto.BookIngestProgressDTO;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.search.BookSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class CatalogIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIngestService.class);
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex searchIndex;
+    private final CatalogVersions versions;
+    private final IngestProperties properties;
+
+    public CatalogIngestService(BookRepository bookRepository, BookSearchIndex searchIndex, CatalogVersions versions,
+                                IngestProperties properties) {
+        this.bookRepository = bookRepository;
+        this.searchIndex = searchIndex;
+        this.versions = versions;
+        this.properties = properties;
+    }
+
+    /**
+     * Writes the incoming books in chunks of {@code library.ingest.chunk-size}. Chunks are
+     * written one at a time, so only the current chunk is held in memory and upstream is
+     * only asked for more once it has been stored. A failing chunk is reported and skipped.
+     */
+    public Flux<BookIngestProgressDTO> ingest(Flux<Book> books) {
+        return Flux.defer(() -> {
+            AtomicLong chunks = new AtomicLong();
+            AtomicLong totalInserted = new AtomicLong();
+            AtomicLong totalFailed = new AtomicLong();
+
+            return books.buffer(properties.chunkSize())
+                    .concatMap(chunk -> insertChunk(chunk)
+                            .map(result -> {
+                                long inserted = totalInserted.addAndGet(result.inserted());
+                                long failed = totalFailed.addAndGet(result.failed());
+                                return new BookIngestProgressDTO(chunks.incrementAndGet(),
+                                        result.inserted(), result.failed(), inserted, failed, result.error());
+                            }));
+        });
+    }
+
+    private Mono<ChunkResult> insertChunk(List<Book> chunk) {
+        List<Book> valid = chunk.stream().filter(this::isValid).toList();
+        int rejected = chunk.size() - valid.size();
+        valid.forEach(book -> {
+            book.setId(UUID.randomUUID());
+            book.setAvailable(true);
+            book.setVersion(0L);
+        });
+
+        return bookRepository.insertAll(valid)
+                .doOnNext(inserted -> valid.forEach(searchIndex::index))
+                .doOnNext(inserted -> versions.catalogChanged())
+                .map(inserted -> new ChunkResult(inserted.intValue(), rejected,
+                        rejected > 0 ? rejected + " books without title or author" : null))
+                .onErrorResume(ex -> {
+                    log.warn("Failed to ingest chunk of {} books", chunk.size(), ex);
+                    return Mono.just(new ChunkResult(0, chunk.size(), ex.getMessage()));
+                });
+    }
+
+    private boolean isValid(Book book) {
+        return book.getTitle() != null && !book.getTitle().isBlank()
+                && book.getAuthor() != null && !book.getAuthor().isBlank();
+    }
+
+    private record ChunkResult(int inserted, int failed, String error) {}
+}
@@ -1,27 +1,44 @@
 package com.vg.service;
 
-import com.vg.exception.BookConcurrencyException;
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.cache.ReadCoalescer;
+import com.vg.command.BookCommandExecutor;
+import com.vg.dto.BookAvailabilityEventDTO.Change;
 import com.vg.exception.BookNotFoundException;
 import com.vg.exception.BookUnavailableException;
+import com.vg.exception.SearchIndexNotReadyException;
+import com.vg.feed.BookAvailabilityFeed;
+import com.vg.journal.BorrowJournal;
+import com.vg.journal.JournalEntry;
+import com.vg.mapper.BookPages;
 import com.vg.model.Book;
+import com.vg.model.BookBatchResult;
 import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
 import com.vg.repository.BookRepository;
 import com.vg.repository.BorrowedBookRepository;
+import com.vg.search.BookSearchIndex;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
-import reactor.util.function.Tuples;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LibraryService {
@@ -30,52 +47,253 @@ public class LibraryService {
 
     private final BookRepository bookRepository;
     private final BorrowedBookRepository borrowedBookRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final BookCommandExecutor commandExecutor;
+    private final BookCache bookCache;
+    private final ReadCoalescer coalescer;
+    private final BookSearchIndex searchIndex;
+    private final BookAvailabilityFeed availabilityFeed;
+    private final BorrowJournal journal;
+    private final CatalogVersions versions;
+    private final LibraryServiceMetrics metrics;
 
-    public LibraryService(BookRepository bookRepository, BorrowedBookRepository borrowedBookRepository) {
+    public LibraryService(BookRepository bookRepository,
+                          BorrowedBookRepository borrowedBookRepository,
+                          TransactionalOperator transactionalOperator,
+                          BookCommandExecutor commandExecutor,
+                          BookCache bookCache,
+                          ReadCoalescer coalescer,
+                          BookSearchIndex searchIndex,
+                          BookAvailabilityFeed availabilityFeed,
+                          BorrowJournal journal,
+                          CatalogVersions versions,
+                          LibraryServiceMetrics metrics) {
         this.bookRepository = bookRepository;
         this.borrowedBookRepository = borrowedBookRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.commandExecutor = commandExecutor;
+        this.bookCache = bookCache;
+        this.coalescer = coalescer;
+        this.searchIndex = searchIndex;
+        this.availabilityFeed = availabilityFeed;
+        this.journal = journal;
+        this.versions = versions;
+        this.metrics = metrics;
     }
 
+    /**
+     * A page of the catalog in id order. Concurrent reads of one page share a query only while the
+     * catalog tag is unchanged, so a caller that took the tag after a write never gets rows from a
+     * query started before it.
+     */
     public Flux<Book> findAllBooks(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return bookRepository.findAllBy(pageable);
+        return Flux.defer(() -> {
+                    Pageable pageable = PageRequest.of(BookPages.page(page), BookPages.size(size), Sort.by("id"));
+                    return coalescer.coalesceMany("findAllBooks", new CatalogPage(versions.catalogTag(), pageable),
+                            () -> bookRepository.findAllBy(pageable));
+                })
+                .as(books -> metrics.timed("findAllBooks", books));
+    }
+
+    public Flux<Book> findBooksAfter(UUID after, int limit) {
+        Flux<Book> books = after == null
+                ? bookRepository.findFirstPage(limit)
+                : bookRepository.findPageAfter(after, limit);
+        return metrics.timed("findBooksAfter", books);
+    }
+
+    public Flux<Book> searchBooks(String query, int page, int size) {
+        Flux<Book> books = Flux.defer(() -> {
+            if (!searchIndex.ready()) {
+                return Flux.error(new SearchIndexNotReadyException("Search index is still being built"));
+            }
+            int limit = BookPages.size(size);
+            return bookCache.findAllById(searchIndex.search(query, (long) BookPages.page(page) * limit, limit));
+        });
+        return metrics.timed("searchBooks", books);
+    }
+
+    public Mono<Book> findBook(UUID bookId) {
+        return bookCache.findById(bookId)
+                .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found: " + bookId)))
+                .as(book -> metrics.timed("findBook", book));
     }
 
     public Mono<Book> addBook(Book book) {
         log.info("Adding new book: {} by {}", book.getTitle(), book.getAuthor());
         book.setId(UUID.randomUUID());
         book.setAvailable(true);
-        return bookRepository.save(book);
+        return bookRepository.save(book)
+                .doOnNext(bookCache::put)
+                .doOnNext(searchIndex::index)
+                .doOnNext(saved -> versions.catalogChanged())
+                .doOnNext(saved -> availabilityFeed.publish(Change.ADDED, saved))
+                .as(saved -> metrics.timed("addBook", saved));
     }
 
     public Mono<Book> borrowBook(UUID bookId, UUID userId) {
         log.info("User {} requested to borrow book {}", userId, bookId);
-        return bookRepository.findById(bookId)
-                .switchIfEmpty(Mono.defer(() -> {
-                    log.warn("Book not found: {}", bookId);
-                    return Mono.error(new BookNotFoundException("Book not found"));
-                }))
+        Mono<Journaled<Book>> borrow = bookRepository.markBorrowed(bookId)
+                .switchIfEmpty(Mono.defer(() -> rejectBorrow(bookId)))
                 .flatMap(book -> {
-                    if (!book.isAvailable()) {
-                        log.warn("Book {} is already borrowed", bookId);
-                        return Mono.error(new BookUnavailableException("Book is already borrowed."));
-                    }
-
-                    book.setAvailable(false);
-
-                    return bookRepository.save(book)
-                            .flatMap(savedBook ->
-                                    borrowedBookRepository.save(
-                                            new BorrowedBook(UUID.randomUUID(), userId, savedBook.getId(), LocalDateTime.now())
-                                    ).thenReturn(savedBook)
-                            );
+                    LocalDateTime borrowedAt = LocalDateTime.now();
+                    return borrowedBookRepository.save(new BorrowedBook(UUID.randomUUID(), userId, book.getId(), borrowedAt))
+                            .thenReturn(new Journaled<>(book, List.of(JournalEntry.borrowed(userId, bookId, toInstant(borrowedAt)))));
                 })
-                .onErrorMap(OptimisticLockingFailureException.class,
-                        ex -> new BookConcurrencyException("Book was just borrowed by another user."));
+                .as(transactionalOperator::transactional);
+        return commandExecutor.execute(bookId, borrow)
+                .flatMap(this::journal)
+                .doOnNext(bookCache::put)
+                .doOnNext(borrowed -> versions.userChanged(userId))
+                .doOnNext(borrowed -> availabilityFeed.publish(Change.BORROWED, borrowed))
+                .as(borrowed -> metrics.timed("borrowBook", borrowed));
     }
 
     public Mono<Book> returnBook(UUID bookId, UUID userId) {
         log.info("User {} is returning book {}", userId, bookId);
+        Mono<Journaled<Book>> giveBack = borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)
+                .flatMap(deleted -> deleted == 0
+                        ? rejectReturn(bookId, userId)
+                        : bookRepository.markReturned(bookId)
+                                .switchIfEmpty(Mono.error(new BookUnavailableException("Book is already marked as available."))))
+                .map(book -> new Journaled<>(book, List.of(JournalEntry.returned(userId, bookId, Instant.now()))))
+                .as(transactionalOperator::transactional);
+        return commandExecutor.execute(bookId, giveBack)
+                .flatMap(this::journal)
+                .doOnNext(bookCache::put)
+                .doOnNext(returned -> versions.userChanged(userId))
+                .doOnNext(returned -> availabilityFeed.publish(Change.RETURNED, returned))
+                .as(returned -> metrics.timed("returnBook", returned));
+    }
+
+    /**
+     * Borrows several books for one user in a single transaction: one conditional update for all
+     * books, one insert of the borrow records, and a lookup only for the books that could not be
+     * borrowed. Each book succeeds or fails on its own; results follow the order of {@code bookIds}.
+     */
+    public Flux<BookBatchResult> borrowBooks(List<UUID> bookIds, UUID userId) {
+        List<UUID> ids = bookIds.stream().distinct().toList();
+        log.info("User {} requested to borrow {} books", userId, ids.size());
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return bookRepository.markAllBorrowed(ids)
+                .collectList()
+                .flatMap(borrowed -> {
+                    // Taken after the books changed, so it is later than any event committed before
+                    LocalDateTime borrowedAt = LocalDateTime.now();
+                    List<UUID> borrowedIds = borrowed.stream().map(Book::getId).toList();
+                    Mono<Integer> records = borrowedIds.isEmpty()
+                            ? Mono.just(0)
+                            : borrowedBookRepository.insertAllForUser(userId, borrowedIds, borrowedAt);
+                    List<JournalEntry> entries = borrowedIds.stream()
+                            .map(id -> JournalEntry.borrowed(userId, id, toInstant(borrowedAt)))
+                            .toList();
+                    return records
+                            .then(batchResults(ids, borrowed, book -> "Book is already borrowed."))
+                            .map(results -> new Journaled<>(results, entries));
+                })
+                .as(transactionalOperator::transactional)
+                .flatMap(this::journal)
+                .doOnNext(results -> versions.userChanged(userId))
+                .flatMapIterable(results -> results)
+                .doOnNext(result -> changed(result, Change.BORROWED))
+                .as(results -> metrics.timed("borrowBooks", results));
+    }
+
+    /**
+     * Returns several books for one user in a single transaction, the counterpart of {@link #borrowBooks}.
+     */
+    public Flux<BookBatchResult> returnBooks(List<UUID> bookIds, UUID userId) {
+        List<UUID> ids = bookIds.stream().distinct().toList();
+        log.info("User {} is returning {} books", userId, ids.size());
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return borrowedBookRepository.deleteAllForUser(userId, ids)
+                .collectList()
+                .flatMap(recorded -> recorded.isEmpty()
+                        ? Mono.just(List.<Book>of())
+                        : bookRepository.markAllReturned(recorded).collectList()
+                                // A borrow record for an available book means the ledger is out of sync;
+                                // fail the whole batch so the deletes are rolled back, as a single return would
+                                .filter(returned -> returned.size() == recorded.size())
+                                .switchIfEmpty(Mono.error(new BookUnavailableException("Book is already marked as available."))))
+                .flatMap(returned -> {
+                    Instant returnedAt = Instant.now();
+                    List<JournalEntry> entries = returned.stream()
+                            .map(book -> JournalEntry.returned(userId, book.getId(), returnedAt))
+                            .toList();
+                    return batchResults(ids, returned, book -> book.isAvailable()
+                                    ? "Book is already marked as available."
+                                    : "No borrow record found.")
+                            .map(results -> new Journaled<>(results, entries));
+                })
+                .as(transactionalOperator::transactional)
+                .flatMap(this::journal)
+                .doOnNext(results -> versions.userChanged(userId))
+                .flatMapIterable(results -> results)
+                .doOnNext(result -> changed(result, Change.RETURNED))
+                .as(results -> metrics.timed("returnBooks", results));
+    }
+
+    private Mono<List<BookBatchResult>> batchResults(List<UUID> ids, List<Book> changed,
+                                                     Function<Book, String> unavailableReason) {
+        Map<UUID, Book> changedById = changed.stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<UUID> unchanged = ids.stream().filter(id -> !changedById.containsKey(id)).toList();
+        Mono<Map<UUID, Book>> existing = unchanged.isEmpty()
+                ? Mono.just(Map.of())
+                : bookRepository.findAllById(unchanged).collectMap(Book::getId);
+        return existing.map(found -> ids.stream()
+                .map(id -> {
+                    if (changedById.containsKey(id)) {
+                        return BookBatchResult.ok(changedById.get(id));
+                    }
+                    Book book = found.get(id);
+                    return book == null
+                            ? BookBatchResult.failed(id, BookBatchResult.Status.NOT_FOUND, "Book not found: " + id)
+                            : BookBatchResult.failed(id, BookBatchResult.Status.UNAVAILABLE, unavailableReason.apply(book));
+                })
+                .toList());
+    }
+
+    /**
+     * Journals a committed change and waits until it is durable. Appending only after the commit
+     * means a rolled-back transaction never leaves an event behind for replay to resurrect.
+     */
+    private <T> Mono<T> journal(Journaled<T> committed) {
+        return journal.append(committed.entries())
+                .then(journal.sync())
+                .thenReturn(committed.result());
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private void changed(BookBatchResult result, Change change) {
+        if (result.status() == BookBatchResult.Status.OK) {
+            bookCache.put(result.book());
+            availabilityFeed.publish(change, result.book());
+        }
+    }
+
+    // Only reached when the conditional update matched no row, to tell the caller why.
+    // Existence never changes once a book is added, so the cache can answer it.
+    private Mono<Book> rejectBorrow(UUID bookId) {
+        return bookCache.findById(bookId)
+                .hasElement()
+                .flatMap(exists -> {
+                    if (!exists) {
+                        log.warn("Book not found: {}", bookId);
+                        return Mono.error(new BookNotFoundException("Book not found"));
+                    }
+                    log.warn("Book {} is already borrowed", bookId);
+                    return Mono.error(new BookUnavailableException("Book is already borrowed."));
+                });
+    }
+
+    private Mono<Book> rejectReturn(UUID bookId, UUID userId) {
         return bookRepository.findById(bookId)
                 .switchIfEmpty(Mono.error(new BookNotFoundException("Book not found: " + bookId)))
                 .flatMap(book -> {
@@ -83,29 +301,27 @@ public class LibraryService {
                         log.warn("User {} cannot return book {}. It's available", userId, bookId);
                         return Mono.error(new BookUnavailableException("Book is already marked as available."));
                     }
+                    return Mono.error(new BookUnavailableException("No borrow record found."));
+                });
+    }
 
-                    book.setAvailable(true);
+    public Flux<BorrowedBookDetails> findBorrowedBooksByUser(UUID userId) {
+        return borrowedBookRepository.findDetailsByUserId(userId)
+                .filter(details -> {
+                    if (details.orphaned()) {
+                        log.warn("Book not found for borrowed record {}", details.id());
+                    }
+                    return !details.orphaned();
+                })
+                .as(borrowed -> metrics.timed("findBorrowedBooksByUser", borrowed));
+    }
 
-                    return borrowedBookRepository.findByUserIdAndBookId(userId, bookId)
-                            .switchIfEmpty(Mono.error(new BookUnavailableException("No borrow record found.")))
-                            .next()
-                            .flatMap(borrowedBook ->
-                                    borrowedBookRepository.delete(borrowedBook)
-                                            .then(bookRepository.save(book))
-                            )
-                            .thenReturn(book);
-                });
+    private record CatalogPage(String catalogTag, Pageable pageable) {
     }
 
-    public Flux<Tuple2<BorrowedBook, Book>> findBorrowedBooksByUser(UUID userId) {
-        return borrowedBookRepository.findByUserId(userId)
-                .flatMap(borrowedBook ->
-                        bookRepository.findById(borrowedBook.getBookId())
-                                .map(book -> Tuples.of(borrowedBook, book))
-                                .switchIfEmpty(Mono.fromRunnable(() -> {
-                                            log.warn("Book not found for borrowed record {}", borrowedBook.getId());
-                                        })
-                                        .then(Mono.empty()))
-                );
+    /**
+     * The result of a transaction together with the journal events it commits.
+     */
+    private record Journaled<T>(T result, List<JournalEntry> entries) {
     }
 }
@@ -0,0 +1,75 @@
+package com.vg.service;
+
+import com.vg.exception.BookNotFoundException;
+import com.vg.exception.BookUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times {@link LibraryService} operations and counts their outcomes.
+ * Meters are tagged only by operation and outcome so cardinality stays bounded;
+ * user and book ids are deliberately never used as tags.
+ */
+@Component
+public class LibraryServiceMetrics {
+
+    static final String TIMER_NAME = "library.service";
+    static final String OUTCOME_COUNTER_NAME = "library.service.outcomes";
+
+    static final String SUCCESS = "success";
+    static final String NOT_FOUND = "not_found";
+    static final String UNAVAILABLE = "unavailable";
+    static final String ERROR = "error";
+    static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry registry;
+
+    public LibraryServiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> Mono<T> timed(String operation, Mono<T> source) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return source
+                    .doOnSuccess(value -> record(sample, operation, SUCCESS))
+                    .doOnError(ex -> record(sample, operation, outcome(ex)))
+                    .doOnCancel(() -> record(sample, operation, CANCELLED));
+        });
+    }
+
+    public <T> Flux<T> timed(String operation, Flux<T> source) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return source
+                    .doOnComplete(() -> record(sample, operation, SUCCESS))
+                    .doOnError(ex -> record(sample, operation, outcome(ex)))
+                    .doOnCancel(() -> record(sample, operation, CANCELLED));
+        });
+    }
+
+    private void record(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder(TIMER_NAME)
+                .description("Latency of library service operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+        Counter.builder(OUTCOME_COUNTER_NAME)
+                .description("Library service operations by outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    static String outcome(Throwable ex) {
+        if (ex instanceof BookNotFoundException) return NOT_FOUND;
+        if (ex instanceof BookUnavailableException) return UNAVAILABLE;
+        return ERROR;
+    }
+}
@@ -0,0 +1,188 @@
+package com.vg.snapshot;
+
+import com.vg.config.SnapshotProperties;
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.repository.memory.InMemoryPersistence;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Dumps {@code book} and {@code borrowed_book} to a binary snapshot file and loads them back.
+ * <p>
+ * Loading maps the file and writes rows through one prepared {@code MERGE} per table, executed
+ * as batches of {@code batchSize} bindings on a single connection, so the statement is parsed once
+ * instead of once per row. Merging by id makes loading into a database that already has some of
+ * the rows harmless.
+ * A dump is written to a temporary file and moved into place, so a crash never leaves a partial
+ * snapshot. The two tables are read one after the other; take a dump while the library is quiet
+ * to keep loans and books consistent.
+ */
+@Component
+@Profile("!" + InMemoryPersistence.PROFILE)
+public class CatalogSnapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+    private static final String MERGE_BOOK =
+            "MERGE INTO book (id, title, author, available, version) KEY (id) VALUES ($1, $2, $3, $4, $5)";
+    private static final String MERGE_BORROWED_BOOK =
+            "MERGE INTO borrowed_book (id, user_id, book_id, borrowed_at) KEY (id) VALUES ($1, $2, $3, $4)";
+
+    private final DatabaseClient databaseClient;
+    private final SnapshotProperties properties;
+
+    public CatalogSnapshots(DatabaseClient databaseClient, SnapshotProperties properties) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+    }
+
+    public boolean available() {
+        return Files.isRegularFile(properties.file());
+    }
+
+    public Mono<SnapshotSummary> dump() {
+        Path file = properties.file();
+        long started = System.nanoTime();
+        return Mono.usingWhen(
+                        Mono.fromCallable(() -> new SnapshotFormat.Writer(temporaryFile(file))),
+                        writer -> databaseClient.sql("SELECT id, title, author, available, version FROM book ORDER BY id")
+                                .map(CatalogSnapshots::book)
+                                .all()
+                                .publishOn(Schedulers.boundedElastic())
+                                .doOnNext(book -> write(() -> writer.write(book)))
+                                .thenMany(databaseClient.sql("SELECT id, user_id, book_id, borrowed_at FROM borrowed_book")
+                                        .map(CatalogSnapshots::borrowedBook)
+                                        .all()
+                                        .publishOn(Schedulers.boundedElastic())
+                                        .doOnNext(record -> write(() -> writer.write(record))))
+                                .then(Mono.fromCallable(() -> new SnapshotSummary(file, writer.books(),
+                                        writer.borrowedBooks(), writer.finish(), Duration.ofNanos(System.nanoTime() - started)))),
+                        writer -> Mono.fromCallable(() -> {
+                            writer.close();
+                            return Files.move(temporaryFile(file), file,
+                                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        }),
+                        (writer, error) -> Mono.fromCallable(() -> {
+                            writer.close();
+                            return Files.deleteIfExists(temporaryFile(file));
+                        }),
+                        writer -> Mono.fromCallable(() -> {
+                            writer.close();
+                            return Files.deleteIfExists(temporaryFile(file));
+                        }))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(summary -> log.info("Wrote snapshot {} with {} books and {} borrow records ({} bytes) in {} ms",
+                        file, summary.books(), summary.borrowedBooks(), summary.bytes(), summary.took().toMillis()));
+    }
+
+    public Mono<SnapshotSummary> load() {
+        Path file = properties.file();
+        long started = System.nanoTime();
+        return Mono.fromCallable(() -> new SnapshotFormat.Reader(file))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(reader -> merge(reader::bookIterator, MERGE_BOOK, CatalogSnapshots::bindBook)
+                        .then(merge(reader::borrowedBookIterator, MERGE_BORROWED_BOOK, CatalogSnapshots::bindBorrowedBook))
+                        .then(Mono.fromCallable(() -> new SnapshotSummary(file, reader.books(), reader.borrowedBooks(),
+                                Files.size(file), Duration.ofNanos(System.nanoTime() - started)))))
+                .doOnNext(summary -> log.info("Loaded snapshot {} with {} books and {} borrow records in {} ms",
+                        file, summary.books(), summary.borrowedBooks(), summary.took().toMillis()));
+    }
+
+    private <T> Mono<Void> merge(Supplier<Iterator<T>> rows, String sql, RowBinder<T> binder) {
+        return databaseClient.inConnectionMany(connection -> Flux.fromIterable(rows::get)
+                        .buffer(properties.batchSize())
+                        .concatMap(batch -> {
+                            Statement statement = connection.createStatement(sql);
+                            for (int row = 0; row < batch.size(); row++) {
+                                if (row > 0) {
+                                    statement.add();
+                                }
+                                binder.bind(statement, batch.get(row));
+                            }
+                            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                        }))
+                .then();
+    }
+
+    private static void bindBook(Statement statement, Book book) {
+        statement.bind(0, book.getId());
+        bindNullable(statement, 1, book.getTitle(), String.class);
+        bindNullable(statement, 2, book.getAuthor(), String.class);
+        statement.bind(3, book.isAvailable());
+        statement.bind(4, book.getVersion());
+    }
+
+    private static void bindBorrowedBook(Statement statement, BorrowedBook record) {
+        statement.bind(0, record.getId());
+        statement.bind(1, record.getUserId());
+        statement.bind(2, record.getBookId());
+        bindNullable(statement, 3, record.getBorrowedAt(), LocalDateTime.class);
+    }
+
+    private static <V> void bindNullable(Statement statement, int index, V value, Class<V> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    private static Book book(Readable row) {
+        return new Book(row.get("id", UUID.class), row.get("title", String.class), row.get("author", String.class),
+                Boolean.TRUE.equals(row.get("available", Boolean.class)), row.get("version", Long.class));
+    }
+
+    private static BorrowedBook borrowedBook(Readable row) {
+        return new BorrowedBook(row.get("id", UUID.class), row.get("user_id", UUID.class),
+                row.get("book_id", UUID.class), row.get("borrowed_at", LocalDateTime.class));
+    }
+
+    private static Path temporaryFile(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return directory.resolve(file.getFileName() + ".tmp");
+    }
+
+    private static void write(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(Statement statement, T row);
+    }
+
+    public record SnapshotSummary(Path file, long books, long borrowedBooks, long bytes, Duration took) {
+    }
+}
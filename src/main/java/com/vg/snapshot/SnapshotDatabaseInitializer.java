@@ -0,0 +1,73 @@
+package com.vg.snapshot;
+
+import com.vg.config.SnapshotProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlR2dbcScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes the place of Boot's script initializer: runs {@code schema.sql}, then loads the catalog
+ * snapshot if there is one, and only falls back to {@code data.sql} when there is not. Either way
+ * the time taken is logged and recorded as {@code library.startup.seed}, tagged with its source.
+ */
+public class SnapshotDatabaseInitializer extends SqlR2dbcScriptDatabaseInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotDatabaseInitializer.class);
+
+    static final String SEED = "library.startup.seed";
+
+    private final SqlR2dbcScriptDatabaseInitializer schemaOnly;
+    private final CatalogSnapshots snapshots;
+    private final SnapshotProperties properties;
+    private final MeterRegistry registry;
+
+    public SnapshotDatabaseInitializer(ConnectionFactory connectionFactory,
+                                       SqlInitializationProperties initializationProperties,
+                                       CatalogSnapshots snapshots,
+                                       SnapshotProperties properties,
+                                       MeterRegistry registry) {
+        super(connectionFactory, initializationProperties);
+        this.schemaOnly = new SqlR2dbcScriptDatabaseInitializer(connectionFactory, schemaOnly(initializationProperties));
+        this.snapshots = snapshots;
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        long started = System.nanoTime();
+        if (!properties.loadOnStartup() || !snapshots.available()) {
+            boolean initialized = super.initializeDatabase();
+            record("sql", started);
+            return initialized;
+        }
+        schemaOnly.initializeDatabase();
+        snapshots.load().block();
+        record("snapshot", started);
+        return true;
+    }
+
+    private void record(String source, long started) {
+        long elapsed = System.nanoTime() - started;
+        Timer.builder(SEED)
+                .description("Time to create the schema and seed the catalog at startup")
+                .tag("source", source)
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Database seeded from {} in {} ms", source, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private static DatabaseInitializationSettings schemaOnly(SqlInitializationProperties properties) {
+        DatabaseInitializationSettings settings = getSettings(properties);
+        settings.setDataLocations(List.of());
+        return settings;
+    }
+}
@@ -0,0 +1,230 @@
+package com.vg.snapshot;
+
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Binary layout of a catalog snapshot, big-endian:
+ * <pre>
+ * header    long magic, int book count, int borrow record count
+ * book      uuid id, byte available, long version, string title, string author
+ * borrowed  uuid id, uuid user id, uuid book id, long epoch second, int nano (borrowed at, UTC; second -1 if null)
+ * string    int byte length (-1 if null), UTF-8 bytes
+ * uuid      long most significant bits, long least significant bits
+ * </pre>
+ * All books come first, then all borrow records. The counts are written last, once known.
+ */
+final class SnapshotFormat {
+
+    // "LIBSNAP" followed by the format version
+    static final long MAGIC = 0x4C4942534E415001L;
+    static final int HEADER_SIZE = 16;
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * Streams rows into a file through a reusable buffer.
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private int books;
+        private int borrowedBooks;
+
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.position(HEADER_SIZE);
+        }
+
+        void write(Book book) throws IOException {
+            if (borrowedBooks > 0) {
+                throw new IllegalStateException("Books must be written before borrow records");
+            }
+            byte[] title = utf8(book.getTitle());
+            byte[] author = utf8(book.getAuthor());
+            ensure(16 + 1 + 8 + 8 + length(title) + length(author));
+            putUuid(book.getId());
+            buffer.put((byte) (book.isAvailable() ? 1 : 0));
+            buffer.putLong(book.getVersion() == null ? 0L : book.getVersion());
+            putString(title);
+            putString(author);
+            books++;
+        }
+
+        void write(BorrowedBook record) throws IOException {
+            ensure(48 + 12);
+            putUuid(record.getId());
+            putUuid(record.getUserId());
+            putUuid(record.getBookId());
+            LocalDateTime borrowedAt = record.getBorrowedAt();
+            buffer.putLong(borrowedAt == null ? -1L : borrowedAt.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(borrowedAt == null ? 0 : borrowedAt.getNano());
+            borrowedBooks++;
+        }
+
+        /**
+         * Writes the header and forces the file to disk; returns the file size.
+         */
+        long finish() throws IOException {
+            drain();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putInt(books).putInt(borrowedBooks).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            return channel.size();
+        }
+
+        int books() {
+            return books;
+        }
+
+        int borrowedBooks() {
+            return borrowedBooks;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void putUuid(UUID id) {
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+
+        private void putString(byte[] bytes) {
+            if (bytes == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+
+        private static byte[] utf8(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int length(byte[] bytes) {
+            return 4 + (bytes == null ? 0 : bytes.length);
+        }
+    }
+
+    /**
+     * Decodes a snapshot straight from a read-only mapping of the file. Books must be read before
+     * borrow records, each exactly once.
+     */
+    static final class Reader {
+        private final MappedByteBuffer buffer;
+        private final int books;
+        private final int borrowedBooks;
+
+        Reader(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot " + file + " is larger than 2 GB");
+                }
+                // The mapping stays valid after the channel is closed
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.limit() < HEADER_SIZE || buffer.getLong() != MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            this.books = buffer.getInt();
+            this.borrowedBooks = buffer.getInt();
+        }
+
+        int books() {
+            return books;
+        }
+
+        int borrowedBooks() {
+            return borrowedBooks;
+        }
+
+        Iterator<Book> bookIterator() {
+            return iterator(books, () -> {
+                UUID id = getUuid();
+                boolean available = buffer.get() != 0;
+                long version = buffer.getLong();
+                return new Book(id, getString(), getString(), available, version);
+            });
+        }
+
+        Iterator<BorrowedBook> borrowedBookIterator() {
+            return iterator(borrowedBooks, () -> {
+                UUID id = getUuid();
+                UUID userId = getUuid();
+                UUID bookId = getUuid();
+                long second = buffer.getLong();
+                int nano = buffer.getInt();
+                LocalDateTime borrowedAt = second == -1L ? null : LocalDateTime.ofEpochSecond(second, nano, ZoneOffset.UTC);
+                return new BorrowedBook(id, userId, bookId, borrowedAt);
+            });
+        }
+
+        private <T> Iterator<T> iterator(int count, Supplier<T> next) {
+            return new Iterator<>() {
+                private int read;
+
+                @Override
+                public boolean hasNext() {
+                    return read < count;
+                }
+
+                @Override
+                public T next() {
+                    if (read >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    read++;
+                    return next.get();
+                }
+            };
+        }
+
+        private UUID getUuid() {
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+
+        private String getString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
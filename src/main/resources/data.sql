@@ -1,5 +1,7 @@
 INSERT INTO book (id, title, author, available, version)
-VALUES
-  ('11111111-1111-1111-1111-111111111111', 'Clean Code', 'Robert C. Martin', TRUE, 0),
-  ('22222222-2222-2222-2222-222222222222', 'Effective Java', 'Joshua Bloch', TRUE, 0),
-  ('33333333-3333-3333-3333-333333333333', 'Domain-Driven Design', 'Eric Evans', TRUE, 0);
+SELECT * FROM (VALUES
+  (CAST('11111111-1111-1111-1111-111111111111' AS UUID), 'Clean Code', 'Robert C. Martin', TRUE, 0),
+  (CAST('22222222-2222-2222-2222-222222222222' AS UUID), 'Effective Java', 'Joshua Bloch', TRUE, 0),
+  (CAST('33333333-3333-3333-3333-333333333333' AS UUID), 'Domain-Driven Design', 'Eric Evans', TRUE, 0)
+) AS seed (id, title, author, available, version)
+WHERE NOT EXISTS (SELECT 1 FROM book b WHERE b.id = seed.id);
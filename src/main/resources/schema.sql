@@ -12,3 +12,9 @@ CREATE TABLE IF NOT EXISTS borrowed_book (
     book_id UUID NOT NULL,
     borrowed_at TIMESTAMP
 );
+
+-- Every borrow lookup is by user, or by user and book
+CREATE INDEX IF NOT EXISTS idx_borrowed_book_user_book ON borrowed_book (user_id, book_id);
+
+-- A book can only be out on one loan; records are deleted on return, so every row is an active borrow
+CREATE UNIQUE INDEX IF NOT EXISTS ux_borrowed_book_book ON borrowed_book (book_id);
@@ -0,0 +1,156 @@
+package com.vg.admission;
+
+import com.vg.config.AdmissionProperties;
+import com.vg.exception.ServiceBusyException;
+import com.vg.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private static final String BORROW = "PUT /library/borrow/{bookId}";
+
+    private SimpleMeterRegistry registry;
+    private AdmissionControlFilter filter;
+    private final AtomicInteger chainCalls = new AtomicInteger();
+    private final WebFilterChain chain = exchange -> Mono.fromRunnable(chainCalls::incrementAndGet);
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new AdmissionControlFilter(new AdmissionProperties(true, 1, 2, 100, 4, Duration.ofSeconds(3),
+                List.of(new AdmissionProperties.Endpoint(HttpMethod.PUT, "/library/borrow/{bookId}", 1))), registry);
+    }
+
+    @Test
+    void passRequestsToOtherEndpoints() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/library/books?userId=alice"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(chainCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectUserOverRateWithRetryAfter() {
+        StepVerifier.create(filter.filter(borrow("alice"), chain)).verifyComplete();
+        StepVerifier.create(filter.filter(borrow("alice"), chain)).verifyComplete();
+
+        MockServerWebExchange rejected = borrow("alice");
+        StepVerifier.create(filter.filter(rejected, chain)).verifyError(TooManyRequestsException.class);
+
+        assertThat(chainCalls.get()).isEqualTo(2);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(count(AdmissionControlFilter.ACCEPTED)).isEqualTo(2);
+        assertThat(count(AdmissionControlFilter.RATE_LIMITED)).isEqualTo(1);
+        StepVerifier.create(filter.filter(borrow("bob"), chain)).verifyComplete();
+    }
+
+    @Test
+    void rejectRequestsBeyondConcurrencyLimitUntilReleased() {
+        Sinks.Empty<Void> running = Sinks.empty();
+        WebFilterChain slowChain = exchange -> running.asMono();
+
+        StepVerifier.create(filter.filter(borrow("alice"), slowChain))
+                .then(() -> {
+                    MockServerWebExchange rejected = borrow("bob");
+                    StepVerifier.create(filter.filter(rejected, chain)).verifyError(ServiceBusyException.class);
+                    assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+                    assertThat(inFlight()).isEqualTo(1);
+                    running.tryEmitEmpty();
+                })
+                .verifyComplete();
+
+        assertThat(chainCalls.get()).isZero();
+        assertThat(count(AdmissionControlFilter.OVERLOADED)).isEqualTo(1);
+        assertThat(inFlight()).isZero();
+        StepVerifier.create(filter.filter(borrow("carol"), chain)).verifyComplete();
+        assertThat(chainCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void requestTurnedAwayAsOverloadedKeepsItsToken() {
+        Sinks.Empty<Void> running = Sinks.empty();
+
+        StepVerifier.create(filter.filter(borrow("alice"), exchange -> running.asMono()))
+                .then(() -> {
+                    for (int i = 0; i < 3; i++) {
+                        StepVerifier.create(filter.filter(borrow("bob"), chain)).verifyError(ServiceBusyException.class);
+                    }
+                    running.tryEmitEmpty();
+                })
+                .verifyComplete();
+
+        StepVerifier.create(filter.filter(borrow("bob"), chain)).verifyComplete();
+        StepVerifier.create(filter.filter(borrow("bob"), chain)).verifyComplete();
+        assertThat(count(AdmissionControlFilter.RATE_LIMITED)).isZero();
+    }
+
+    @Test
+    void rateLimitedRequestGivesItsSlotBackAndOmitsRetryAfterWithoutRefill() {
+        AdmissionControlFilter noRefill = new AdmissionControlFilter(new AdmissionProperties(true, 0, 1, 100, 4,
+                Duration.ofSeconds(3), List.of(new AdmissionProperties.Endpoint(HttpMethod.PUT, "/library/borrow/{bookId}", 1))),
+                new SimpleMeterRegistry());
+        StepVerifier.create(noRefill.filter(borrow("alice"), chain)).verifyComplete();
+
+        MockServerWebExchange rejected = borrow("alice");
+        StepVerifier.create(noRefill.filter(rejected, chain)).verifyError(TooManyRequestsException.class);
+
+        assertThat(rejected.getResponse().getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+        StepVerifier.create(noRefill.filter(borrow("bob"), chain)).verifyComplete();
+    }
+
+    @Test
+    void releaseSlotWhenRequestFailsOrIsCancelled() {
+        StepVerifier.create(filter.filter(borrow("alice"), exchange -> Mono.error(new IllegalStateException())))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(filter.filter(borrow("bob"), exchange -> Mono.never()))
+                .thenCancel()
+                .verify();
+
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void limitRequestsWithoutUserOnlyByConcurrency() {
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(filter.filter(exchange(MockServerHttpRequest.put("/library/borrow/1")), chain))
+                    .verifyComplete();
+        }
+
+        assertThat(chainCalls.get()).isEqualTo(5);
+        assertThat(registry.get(AdmissionControlFilter.TRACKED_USERS).gauge().value()).isZero();
+    }
+
+    private MockServerWebExchange borrow(String userId) {
+        return exchange(MockServerHttpRequest.put("/library/borrow/{bookId}?userId={userId}", "1", userId));
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return MockServerWebExchange.from(request);
+    }
+
+    private double count(String outcome) {
+        return registry.get(AdmissionControlFilter.REQUESTS).tag("endpoint", BORROW).tag("outcome", outcome)
+                .counter().count();
+    }
+
+    private double inFlight() {
+        return registry.get(AdmissionControlFilter.IN_FLIGHT).tag("endpoint", BORROW).gauge().value();
+    }
+}
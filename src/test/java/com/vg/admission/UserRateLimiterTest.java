@@ -0,0 +1,91 @@
+package com.vg.admission;
+
+import com.vg.config.AdmissionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private UserRateLimiter limiter(double rate, int burst, int maxTrackedUsers, int stripes) {
+        return new UserRateLimiter(
+                new AdmissionProperties(true, rate, burst, maxTrackedUsers, stripes, Duration.ofSeconds(1), null),
+                now::get);
+    }
+
+    @Test
+    void allowBurstThenReportWaitForNextToken() {
+        UserRateLimiter limiter = limiter(10, 3, 100, 4);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+
+        assertThat(limiter.tryAcquire("alice")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void reportNeverWithoutRefill() {
+        UserRateLimiter limiter = limiter(0, 1, 100, 4);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+        assertThat(limiter.tryAcquire("alice")).isEqualTo(UserRateLimiter.NEVER);
+    }
+
+    @Test
+    void refillOverTimeUpToBurst() {
+        UserRateLimiter limiter = limiter(10, 2, 100, 4);
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("alice");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+    }
+
+    @Test
+    void keepUsersApart() {
+        UserRateLimiter limiter = limiter(1, 1, 100, 4);
+
+        assertThat(limiter.tryAcquire("alice")).isZero();
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+        assertThat(limiter.tryAcquire("bob")).isZero();
+    }
+
+    @Test
+    void dropLeastRecentlySeenUsersBeyondLimit() {
+        UserRateLimiter limiter = limiter(1, 1, 2, 1);
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("bob");
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("carol");
+
+        assertThat(limiter.trackedUsers()).isEqualTo(2);
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+        assertThat(limiter.tryAcquire("bob")).isZero();
+    }
+
+    @Test
+    void boundTrackedUsersAcrossStripes() {
+        UserRateLimiter limiter = limiter(1, 1, 64, 8);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("user-" + i);
+        }
+
+        assertThat(limiter.trackedUsers()).isLessThanOrEqualTo(64);
+    }
+}
@@ -2,6 +2,8 @@ package com.vg.advice;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vg.config.BinaryCodecsConfiguration;
 import com.vg.exception.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,14 +13,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -41,6 +48,88 @@ class GlobalWebFluxExceptionHandlerTest {
     void setUp() {
         response = new MockServerHttpResponse(new DefaultDataBufferFactory());
         when(exchange.getResponse()).thenReturn(response);
+        lenient().when(exchange.getRequest()).thenReturn(MockServerHttpRequest.get("/library/books").build());
+    }
+
+    @Test
+    void errorBodyFollowsAcceptHeader() throws Exception {
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+        GlobalWebFluxExceptionHandler handler = new GlobalWebFluxExceptionHandler(json);
+        when(exchange.getRequest()).thenReturn(MockServerHttpRequest.get("/library/books")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor")
+                .build());
+
+        StepVerifier.create(handler.handle(exchange, new BookNotFoundException("Book not found")))
+                .verifyComplete();
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+        byte[] body = DataBufferUtils.join(response.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    return bytes;
+                })
+                .block();
+        GlobalWebFluxExceptionHandler.ErrorResponse error = BinaryCodecsConfiguration.cborMapper(json)
+                .readValue(body, GlobalWebFluxExceptionHandler.ErrorResponse.class);
+        assertThat(error.status()).isEqualTo(404);
+        assertThat(error.message()).isEqualTo("Book not found");
+    }
+
+    @Test
+    void unsupportedAcceptHeaderFallsBackToJson() throws Exception {
+        when(exchange.getRequest()).thenReturn(MockServerHttpRequest.get("/library/books")
+                .header(HttpHeaders.ACCEPT, "application/xml")
+                .build());
+        when(objectMapper.writeValueAsBytes(any())).thenReturn("{}".getBytes(StandardCharsets.UTF_8));
+
+        StepVerifier.create(exceptionHandler.handle(exchange, new BookNotFoundException("Book not found")))
+                .verifyComplete();
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void jsonErrorBodyIsWrittenFromTemplateWithoutTheMapper() throws Exception {
+        ObjectMapper json = spy(bootMapper());
+        GlobalWebFluxExceptionHandler handler = new GlobalWebFluxExceptionHandler(json);
+        clearInvocations(json);
+        Instant before = Instant.now();
+
+        StepVerifier.create(handler.handle(exchange, new BookUnavailableException("Book \"A\\B\" is already borrowed.")))
+                .verifyComplete();
+
+        verifyNoInteractions(json);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        GlobalWebFluxExceptionHandler.ErrorResponse error =
+                json.readValue(getResponseBodyAsString(), GlobalWebFluxExceptionHandler.ErrorResponse.class);
+        assertThat(error.message()).isEqualTo("Book \"A\\B\" is already borrowed.");
+        assertThat(error.error()).isEqualTo("Conflict");
+        assertThat(error.status()).isEqualTo(409);
+        assertThat(error.timestamp()).isBetween(before, Instant.now());
+    }
+
+    @Test
+    void templateBodyMatchesTheMapper() throws Exception {
+        ObjectMapper json = bootMapper();
+        GlobalWebFluxExceptionHandler handler = new GlobalWebFluxExceptionHandler(json);
+
+        StepVerifier.create(handler.handle(exchange, new InvalidCursorException("Invalid cursor: abc")))
+                .verifyComplete();
+
+        String body = getResponseBodyAsString();
+        GlobalWebFluxExceptionHandler.ErrorResponse error =
+                json.readValue(body, GlobalWebFluxExceptionHandler.ErrorResponse.class);
+        assertThat(body).isEqualTo(json.writeValueAsString(error));
+    }
+
+    @Test
+    void subclassesShareTheStatusOfTheirParent() throws Exception {
+        testExceptionHandling(
+                new BookUnavailableException("Book is already borrowed.") {},
+                HttpStatus.CONFLICT
+        );
     }
 
     @Test
@@ -52,18 +141,50 @@ class GlobalWebFluxExceptionHandlerTest {
     }
 
     @Test
-    void handleBookConcurrencyException_shouldReturnConflictStatus() throws Exception {
+    void handleBorrowRecordException() throws Exception {
         testExceptionHandling(
-                new BookConcurrencyException("BookConcurrencyException"),
+                new BorrowRecordNotFoundException("BorrowRecordNotFoundException"),
                 HttpStatus.CONFLICT
         );
     }
 
     @Test
-    void handleBorrowRecordException() throws Exception {
+    void handleInvalidCursorException_shouldReturnBadRequestStatus() throws Exception {
         testExceptionHandling(
-                new BorrowRecordNotFoundException("BorrowRecordNotFoundException"),
-                HttpStatus.CONFLICT
+                new InvalidCursorException("Invalid cursor: abc"),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @Test
+    void handleInvalidPageRequestException_shouldReturnBadRequestStatus() throws Exception {
+        testExceptionHandling(
+                new InvalidPageRequestException("Page size must be at least 1: 0"),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @Test
+    void handleTooManyRequestsException_shouldReturnTooManyRequestsStatus() throws Exception {
+        testExceptionHandling(
+                new TooManyRequestsException("Too many requests for user 1"),
+                HttpStatus.TOO_MANY_REQUESTS
+        );
+    }
+
+    @Test
+    void handleServiceBusyException_shouldReturnServiceUnavailableStatus() throws Exception {
+        testExceptionHandling(
+                new ServiceBusyException("Too many concurrent requests"),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    @Test
+    void handleSearchIndexNotReadyException_shouldReturnServiceUnavailableStatus() throws Exception {
+        testExceptionHandling(
+                new SearchIndexNotReadyException("Search index is still being built"),
+                HttpStatus.SERVICE_UNAVAILABLE
         );
     }
 
@@ -105,6 +226,13 @@ class GlobalWebFluxExceptionHandlerTest {
         assertThat(getResponseBodyAsString()).isEqualTo(expectedJson);
     }
 
+    // The ObjectMapper as Spring Boot configures it, with ISO timestamps
+    private static ObjectMapper bootMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
     private String getResponseBodyAsString() {
         return response.getBodyAsString()
                 .defaultIfEmpty("")
@@ -0,0 +1,147 @@
+package com.vg.cache;
+
+import com.vg.config.BookCacheProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class BookCacheTest {
+
+    private BookRepository bookRepository;
+    private SimpleMeterRegistry registry;
+    private BookCache bookCache;
+
+    private final UUID bookId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        registry = new SimpleMeterRegistry();
+        bookCache = new BookCache(bookRepository, new ReadCoalescer(registry), new BookCacheProperties(100, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void readThroughOnceAndServeFromCache() {
+        when(bookRepository.findById(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", true, 0L)));
+
+        StepVerifier.create(bookCache.findById(bookId)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(bookCache.findById(bookId)).expectNextCount(1).verifyComplete();
+
+        verify(bookRepository, times(1)).findById(bookId);
+        assertThat(bookCache.stats().hitCount()).isEqualTo(1);
+        assertThat(bookCache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shareOneReadBetweenConcurrentMisses() {
+        Sinks.One<Book> read = Sinks.one();
+        when(bookRepository.findById(bookId)).thenReturn(read.asMono());
+        List<Book> books = new ArrayList<>();
+
+        bookCache.findById(bookId).subscribe(books::add);
+        bookCache.findById(bookId).subscribe(books::add);
+        read.tryEmitValue(new Book(bookId, "Title", "Author", true, 0L));
+
+        verify(bookRepository, times(1)).findById(bookId);
+        assertThat(books).hasSize(2);
+        assertThat(books.get(0)).isNotSameAs(books.get(1));
+        assertThat(registry.get(ReadCoalescer.COALESCED).tag("operation", "findBookById").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void notCacheMissingBooks() {
+        when(bookRepository.findById(bookId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(bookCache.findById(bookId)).verifyComplete();
+        StepVerifier.create(bookCache.findById(bookId)).verifyComplete();
+
+        verify(bookRepository, times(2)).findById(bookId);
+    }
+
+    @Test
+    void loadAllMissesInOneQueryInRequestedOrder() {
+        UUID cachedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        bookCache.put(new Book(cachedId, "Cached", "Author", true, 0L));
+        when(bookRepository.findAllById(List.of(bookId, missingId)))
+                .thenReturn(Flux.just(new Book(bookId, "Title", "Author", true, 0L)));
+
+        StepVerifier.create(bookCache.findAllById(List.of(bookId, cachedId, missingId)).map(Book::getId))
+                .expectNext(bookId, cachedId)
+                .verifyComplete();
+        StepVerifier.create(bookCache.findById(bookId)).expectNextCount(1).verifyComplete();
+
+        verify(bookRepository, times(1)).findAllById(List.of(bookId, missingId));
+        verify(bookRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void keepNewerVersionWhenOlderBookArrivesLate() {
+        bookCache.put(new Book(bookId, "Title", "Author", false, 3L));
+        bookCache.put(new Book(bookId, "Title", "Author", true, 2L));
+
+        StepVerifier.create(bookCache.findById(bookId))
+                .expectNextMatches(book -> !book.isAvailable() && book.getVersion() == 3L)
+                .verifyComplete();
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void replaceEntryWithNewerVersion() {
+        bookCache.put(new Book(bookId, "Title", "Author", true, 1L));
+        bookCache.put(new Book(bookId, "Title", "Author", false, 2L));
+
+        StepVerifier.create(bookCache.findById(bookId))
+                .expectNextMatches(book -> !book.isAvailable() && book.getVersion() == 2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void isolateCachedEntryFromCallerMutation() {
+        bookCache.put(new Book(bookId, "Title", "Author", true, 1L));
+
+        bookCache.findById(bookId).block().setAvailable(false);
+
+        StepVerifier.create(bookCache.findById(bookId))
+                .expectNextMatches(Book::isAvailable)
+                .verifyComplete();
+    }
+
+    @Test
+    void readAgainAfterEviction() {
+        when(bookRepository.findById(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", true, 0L)));
+        bookCache.put(new Book(bookId, "Title", "Author", true, 0L));
+
+        bookCache.evict(bookId);
+        bookCache.findById(bookId).block();
+
+        verify(bookRepository).findById(bookId);
+    }
+
+    @Test
+    void exposeStatisticsAsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bookCache.bindTo(registry);
+        bookCache.put(new Book(bookId, "Title", "Author", true, 0L));
+
+        bookCache.findById(bookId).block();
+
+        assertThat(registry.get("cache.gets").tag("cache", "books").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.evictions").tag("cache", "books").functionCounter()).isNotNull();
+    }
+}
@@ -0,0 +1,53 @@
+package com.vg.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.config.BookJsonCacheProperties;
+import com.vg.dto.BookResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BookJsonCache cache =
+            new BookJsonCache(objectMapper, new BookJsonCacheProperties(DataSize.ofKilobytes(64)));
+
+    private final BookResponseDTO book = new BookResponseDTO(UUID.randomUUID(), "Title", "Author", true);
+
+    @Test
+    void encodeOnceAndServeTheSameBytes() throws Exception {
+        byte[] first = cache.encode(book);
+        byte[] second = cache.encode(new BookResponseDTO(book.id(), "Title", "Author", true));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).isEqualTo(objectMapper.writeValueAsBytes(book));
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void changedAvailabilityIsEncodedAgain() {
+        byte[] available = cache.encode(book);
+        byte[] borrowed = cache.encode(new BookResponseDTO(book.id(), "Title", "Author", false));
+
+        assertThat(borrowed).isNotEqualTo(available);
+        assertThat(cache.encode(book)).isSameAs(available);
+    }
+
+    @Test
+    void reportBytesHeld() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        byte[] json = cache.encode(book);
+
+        assertThat(registry.get("library.cache.book-json.bytes").gauge().value()).isEqualTo(json.length);
+        assertThat(registry.get("cache.gets").tag("cache", BookJsonCache.CACHE_NAME).tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.vg.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.config.BookJsonCacheProperties;
+import com.vg.dto.BookCursorPageDTO;
+import com.vg.dto.BookResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookJsonEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BookJsonCache cache =
+            new BookJsonCache(objectMapper, new BookJsonCacheProperties(DataSize.ofMegabytes(1)));
+    private final BookJsonEncoder encoder = new BookJsonEncoder(objectMapper, cache);
+    private final Jackson2JsonEncoder jackson = new Jackson2JsonEncoder(objectMapper);
+
+    private final List<BookResponseDTO> page = IntStream.range(0, 3)
+            .mapToObj(i -> new BookResponseDTO(UUID.randomUUID(), "Title " + i, "Author " + i, i % 2 == 0))
+            .toList();
+
+    @Test
+    void writeTheSameJsonAsJackson() {
+        assertThat(encode(encoder, Flux.fromIterable(page), BookResponseDTO.class, MediaType.APPLICATION_JSON))
+                .isEqualTo(encode(jackson, Flux.fromIterable(page), BookResponseDTO.class, MediaType.APPLICATION_JSON));
+        assertThat(encode(encoder, Flux.empty(), BookResponseDTO.class, MediaType.APPLICATION_JSON))
+                .isEqualTo("[]");
+        assertThat(encode(encoder, Mono.just(page.get(0)), BookResponseDTO.class, null))
+                .isEqualTo(encode(jackson, Mono.just(page.get(0)), BookResponseDTO.class, null));
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void serveRepeatedPagesFromCache() {
+        encode(encoder, Flux.fromIterable(page), BookResponseDTO.class, MediaType.APPLICATION_JSON);
+        encode(encoder, Flux.fromIterable(page), BookResponseDTO.class, MediaType.APPLICATION_JSON);
+
+        assertThat(cache.stats().missCount()).isEqualTo(page.size());
+        assertThat(cache.stats().hitCount()).isEqualTo(page.size());
+    }
+
+    @Test
+    void leaveStreamingAndOtherTypesToJackson() {
+        assertThat(encode(encoder, Flux.fromIterable(page), BookResponseDTO.class, MediaType.APPLICATION_NDJSON))
+                .isEqualTo(encode(jackson, Flux.fromIterable(page), BookResponseDTO.class, MediaType.APPLICATION_NDJSON));
+        BookCursorPageDTO cursorPage = new BookCursorPageDTO(page, null);
+        assertThat(encode(encoder, Mono.just(cursorPage), BookCursorPageDTO.class, MediaType.APPLICATION_JSON))
+                .isEqualTo(encode(jackson, Mono.just(cursorPage), BookCursorPageDTO.class, MediaType.APPLICATION_JSON));
+
+        assertThat(cache.stats().requestCount()).isZero();
+    }
+
+    private static String encode(Jackson2JsonEncoder encoder, Publisher<?> values, Class<?> type, MimeType mimeType) {
+        return DataBufferUtils.join(encoder.encode(values, DefaultDataBufferFactory.sharedInstance,
+                        ResolvableType.forClass(type), mimeType, Map.of()))
+                .map(BookJsonEncoderTest::text)
+                .block();
+    }
+
+    private static String text(DataBuffer buffer) {
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+}
@@ -0,0 +1,78 @@
+package com.vg.cache;
+
+import com.vg.config.ETagProperties;
+import com.vg.model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogVersionsTest {
+
+    private final CatalogVersions versions = new CatalogVersions(new ETagProperties(true, 2));
+
+    @Test
+    void catalogTagChangesWithAnyChange() {
+        String tag = versions.catalogTag();
+        assertThat(versions.catalogTag()).isEqualTo(tag);
+
+        versions.userChanged(UUID.randomUUID());
+
+        assertThat(versions.catalogTag()).isNotEqualTo(tag);
+        assertThat(tag).startsWith("W/\"");
+    }
+
+    @Test
+    void userTagOnlyChangesWithThatUser() {
+        UUID alice = UUID.randomUUID();
+        String tag = versions.userTag(alice);
+
+        versions.userChanged(UUID.randomUUID());
+        versions.catalogChanged();
+        assertThat(versions.userTag(alice)).isEqualTo(tag);
+
+        versions.userChanged(alice);
+        assertThat(versions.userTag(alice)).isNotEqualTo(tag);
+    }
+
+    @Test
+    void evictedUserNeverGetsAnOlderTag() {
+        UUID alice = UUID.randomUUID();
+        versions.userChanged(alice);
+        String tag = versions.userTag(alice);
+
+        for (int i = 0; i < 1000; i++) {
+            versions.userTag(UUID.randomUUID());
+        }
+        versions.userChanged(alice);
+
+        assertThat(versions.userTag(alice)).isNotEqualTo(tag);
+    }
+
+    @Test
+    void replayChangesEveryUserTag() {
+        UUID alice = UUID.randomUUID();
+        String tag = versions.userTag(alice);
+
+        versions.allUsersChanged();
+
+        assertThat(versions.userTag(alice)).isNotEqualTo(tag);
+    }
+
+    @Test
+    void tagsDoNotMatchAcrossInstances() {
+        CatalogVersions restarted = new CatalogVersions(new ETagProperties(true, 2));
+
+        assertThat(restarted.catalogTag()).isNotEqualTo(versions.catalogTag());
+    }
+
+    @Test
+    void bookTagFollowsVersionAndAvailability() {
+        UUID id = UUID.randomUUID();
+
+        assertThat(CatalogVersions.bookTag(new Book(id, "Title", "Author", true, 1L)))
+                .isEqualTo(CatalogVersions.bookTag(new Book(id, "Title", "Author", true, 1L)))
+                .isNotEqualTo(CatalogVersions.bookTag(new Book(id, "Title", "Author", false, 2L)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.vg.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+    private ReadCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new ReadCoalescer(registry);
+    }
+
+    @Test
+    void shareRunningQueryBetweenIdenticalReads() {
+        Sinks.Many<Integer> rows = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicInteger queries = new AtomicInteger();
+        List<List<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            coalescer.coalesceMany("page", 0, () -> {
+                        queries.incrementAndGet();
+                        return rows.asFlux();
+                    })
+                    .collectList()
+                    .subscribe(results::add);
+        }
+        rows.tryEmitNext(1);
+        rows.tryEmitNext(2);
+        rows.tryEmitComplete();
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(results).containsExactly(List.of(1, 2), List.of(1, 2), List.of(1, 2));
+        assertThat(registry.get(ReadCoalescer.COALESCED).tag("operation", "page").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void replayElementsEmittedBeforeLateCaller() {
+        Sinks.Many<Integer> rows = Sinks.many().unicast().onBackpressureBuffer();
+        List<Integer> first = new ArrayList<>();
+        List<Integer> late = new ArrayList<>();
+
+        coalescer.coalesceMany("page", 0, rows::asFlux).subscribe(first::add);
+        rows.tryEmitNext(1);
+        coalescer.coalesceMany("page", 0, rows::asFlux).subscribe(late::add);
+        rows.tryEmitNext(2);
+        rows.tryEmitComplete();
+
+        assertThat(first).containsExactly(1, 2);
+        assertThat(late).containsExactly(1, 2);
+    }
+
+    @Test
+    void queryAgainOnceCompleted() {
+        AtomicInteger queries = new AtomicInteger();
+        Mono<Integer> query = Mono.fromCallable(queries::incrementAndGet);
+
+        StepVerifier.create(coalescer.coalesce("book", "a", () -> query)).expectNext(1).verifyComplete();
+        StepVerifier.create(coalescer.coalesce("book", "a", () -> query)).expectNext(2).verifyComplete();
+
+        assertThat(coalescer.inFlight()).isZero();
+    }
+
+    @Test
+    void keepDifferentKeysAndOperationsApart() {
+        AtomicInteger queries = new AtomicInteger();
+        Sinks.One<Integer> never = Sinks.one();
+
+        Disposable a = coalescer.coalesce("book", "a", () -> never.asMono().doOnSubscribe(s -> queries.incrementAndGet())).subscribe();
+        Disposable b = coalescer.coalesce("book", "b", () -> never.asMono().doOnSubscribe(s -> queries.incrementAndGet())).subscribe();
+        Disposable c = coalescer.coalesce("page", "a", () -> never.asMono().doOnSubscribe(s -> queries.incrementAndGet())).subscribe();
+
+        assertThat(queries.get()).isEqualTo(3);
+        a.dispose();
+        b.dispose();
+        c.dispose();
+    }
+
+    @Test
+    void shareErrorsAndForgetFailedQuery() {
+        Sinks.One<Integer> result = Sinks.one();
+        AtomicInteger failures = new AtomicInteger();
+
+        coalescer.coalesce("book", "a", result::asMono).subscribe(value -> {}, error -> failures.incrementAndGet());
+        coalescer.coalesce("book", "a", result::asMono).subscribe(value -> {}, error -> failures.incrementAndGet());
+        result.tryEmitError(new IllegalStateException());
+
+        assertThat(failures.get()).isEqualTo(2);
+        assertThat(coalescer.inFlight()).isZero();
+    }
+
+    @Test
+    void cancelQueryOnlyWhenEveryCallerCancelled() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<Integer> query = Flux.<Integer>never().doOnCancel(() -> cancelled.set(true));
+
+        Disposable first = coalescer.coalesceMany("page", 0, () -> query).subscribe();
+        Disposable second = coalescer.coalesceMany("page", 0, () -> query).subscribe();
+        first.dispose();
+        assertThat(cancelled).isFalse();
+
+        second.dispose();
+        assertThat(cancelled).isTrue();
+        assertThat(coalescer.inFlight()).isZero();
+    }
+}
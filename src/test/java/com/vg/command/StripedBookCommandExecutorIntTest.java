@@ -0,0 +1,91 @@
+package com.vg.command;
+
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.cache.ReadCoalescer;
+import com.vg.config.BookCacheProperties;
+import com.vg.config.BookCommandProperties;
+import com.vg.config.BookSearchProperties;
+import com.vg.config.ETagProperties;
+import com.vg.config.FeedProperties;
+import com.vg.exception.BookUnavailableException;
+import com.vg.feed.BookAvailabilityFeed;
+import com.vg.journal.NoOpBorrowJournal;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.repository.BorrowedBookRepository;
+import com.vg.search.BookSearchIndex;
+import com.vg.service.LibraryService;
+import com.vg.service.LibraryServiceMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({CatalogVersions.class, LibraryService.class, StripedBookCommandExecutor.class, DirectBookCommandExecutor.class, BookCache.class, ReadCoalescer.class,
+        BookSearchIndex.class, BookAvailabilityFeed.class, NoOpBorrowJournal.class, LibraryServiceMetrics.class,
+        SimpleMeterRegistry.class})
+@EnableConfigurationProperties({ETagProperties.class, BookCommandProperties.class, BookCacheProperties.class, BookSearchProperties.class,
+        FeedProperties.class})
+@TestPropertySource(properties = "library.commands.serialized=true")
+public class StripedBookCommandExecutorIntTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowedBookRepository borrowedBookRepository;
+
+    @Autowired
+    private LibraryService libraryService;
+
+    @Autowired
+    private BookCommandExecutor commandExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final UUID bookId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        bookRepository.deleteAll()
+                .then(borrowedBookRepository.deleteAll())
+                .then(bookRepository.save(new Book(bookId, "Popular Book", "Author", true, null)))
+                .block();
+    }
+
+    @Test
+    void racingBorrowsAreAnsweredInTurn() {
+        assertThat(commandExecutor).isInstanceOf(StripedBookCommandExecutor.class);
+        List<UUID> users = IntStream.range(0, 16).mapToObj(i -> UUID.randomUUID()).toList();
+
+        List<String> outcomes = Flux.fromIterable(users)
+                .flatMap(user -> libraryService.borrowBook(bookId, user)
+                        .subscribeOn(Schedulers.parallel())
+                        .map(book -> "borrowed")
+                        .onErrorResume(BookUnavailableException.class, ex -> Mono.just(ex.getMessage())))
+                .collectList()
+                .block();
+
+        assertThat(outcomes).containsOnlyOnce("borrowed");
+        assertThat(outcomes).filteredOn("Book is already borrowed."::equals).hasSize(15);
+        assertThat(borrowedBookRepository.count().block()).isEqualTo(1L);
+        assertThat(meterRegistry.get(StripedBookCommandExecutor.QUEUE_WAIT).timer().count()).isEqualTo(16);
+    }
+}
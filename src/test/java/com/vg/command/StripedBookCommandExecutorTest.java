@@ -0,0 +1,139 @@
+package com.vg.command;
+
+import com.vg.config.BookCommandProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedBookCommandExecutorTest {
+
+    private SimpleMeterRegistry registry;
+    private StripedBookCommandExecutor executor;
+
+    private final UUID bookId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = new StripedBookCommandExecutor(new BookCommandProperties(true, 64), registry);
+    }
+
+    @Test
+    void runCommandsForSameBookOneAfterAnother() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Mono<Integer> command = Mono.defer(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    return Mono.delay(Duration.ofMillis(2)).thenReturn(1);
+                })
+                .doOnTerminate(running::decrementAndGet);
+
+        StepVerifier.create(Flux.range(0, 20).flatMap(i -> executor.execute(bookId, command)).count())
+                .expectNext(20L)
+                .verifyComplete();
+
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(registry.get(StripedBookCommandExecutor.QUEUE_WAIT).timer().count()).isEqualTo(20);
+    }
+
+    @Test
+    void queuedCommandSeesItsOwnCallersContext() {
+        Sinks.One<String> firstDone = Sinks.one();
+        Mono<String> readTrace = Mono.deferContextual(context -> Mono.just(context.get("trace")));
+
+        Mono<String> first = executor.execute(bookId, firstDone.asMono().then(readTrace))
+                .contextWrite(context -> context.put("trace", "first"));
+        Mono<String> second = executor.execute(bookId, readTrace)
+                .contextWrite(context -> context.put("trace", "second"));
+
+        StepVerifier.create(Flux.merge(first, second).collectList())
+                .then(() -> firstDone.tryEmitValue("done"))
+                .assertNext(traces -> assertThat(traces).containsExactly("first", "second"))
+                .verifyComplete();
+    }
+
+    @Test
+    void runBooksOnDifferentStripesInParallel() {
+        UUID otherBook = Stream.generate(UUID::randomUUID)
+                .filter(id -> executor.stripeIndex(id) != executor.stripeIndex(bookId))
+                .findFirst()
+                .orElseThrow();
+        Sinks.One<String> otherDone = Sinks.one();
+
+        Mono<String> waitsForOther = executor.execute(bookId, otherDone.asMono());
+        Mono<String> other = executor.execute(otherBook, Mono.just("other"))
+                .doOnNext(value -> otherDone.tryEmitValue("first"));
+
+        StepVerifier.create(Mono.zip(waitsForOther, other))
+                .expectNextMatches(pair -> pair.getT1().equals("first") && pair.getT2().equals("other"))
+                .verifyComplete();
+    }
+
+    @Test
+    void continueWithNextCommandAfterFailure() {
+        StepVerifier.create(executor.execute(bookId, Mono.error(new IllegalStateException("boom"))))
+                .expectErrorMessage("boom")
+                .verify();
+
+        StepVerifier.create(executor.execute(bookId, Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+    }
+
+    @Test
+    void skipCommandCancelledWhileQueued() {
+        Sinks.One<String> first = Sinks.one();
+        AtomicBoolean cancelledRan = new AtomicBoolean();
+
+        executor.execute(bookId, first.asMono()).subscribe();
+        Disposable cancelled = executor.execute(bookId, Mono.fromRunnable(() -> cancelledRan.set(true))).subscribe();
+        Mono<String> last = executor.execute(bookId, Mono.just("last"));
+
+        StepVerifier.create(last)
+                .then(cancelled::dispose)
+                .then(() -> first.tryEmitValue("first"))
+                .expectNext("last")
+                .verifyComplete();
+
+        assertThat(cancelledRan).isFalse();
+    }
+
+    @Test
+    void reportQueueDepth() {
+        Sinks.One<String> first = Sinks.one();
+
+        executor.execute(bookId, first.asMono()).subscribe();
+        executor.execute(bookId, Mono.just("second")).subscribe();
+        assertThat(registry.get(StripedBookCommandExecutor.QUEUE_DEPTH).gauge().value()).isEqualTo(2);
+
+        first.tryEmitValue("first");
+        assertThat(registry.get(StripedBookCommandExecutor.QUEUE_DEPTH).gauge().value()).isZero();
+    }
+
+    @Test
+    void drainLongQueueOfSynchronousCommandsWithoutGrowingStack() {
+        Sinks.One<Integer> first = Sinks.one();
+        AtomicInteger completed = new AtomicInteger();
+
+        executor.execute(bookId, first.asMono()).subscribe();
+        for (int i = 0; i < 100_000; i++) {
+            executor.execute(bookId, Mono.just(i)).subscribe(value -> completed.incrementAndGet());
+        }
+        first.tryEmitValue(-1);
+
+        assertThat(completed).hasValue(100_000);
+    }
+}
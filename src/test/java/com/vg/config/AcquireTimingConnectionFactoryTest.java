@@ -0,0 +1,60 @@
+package com.vg.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class AcquireTimingConnectionFactoryTest {
+
+    private ConnectionPool pool;
+    private SimpleMeterRegistry registry;
+    private AcquireTimingConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        pool = mock(ConnectionPool.class);
+        registry = new SimpleMeterRegistry();
+        connectionFactory = new AcquireTimingConnectionFactory(pool, "test", registry);
+    }
+
+    @Test
+    void recordSuccessfulAcquire() {
+        when(pool.create()).thenReturn(Mono.just(mock(Connection.class)));
+
+        StepVerifier.create(connectionFactory.create()).expectNextCount(1).verifyComplete();
+
+        assertThat(acquireCount("success")).isEqualTo(1);
+        assertThat(acquireCount("failure")).isZero();
+    }
+
+    @Test
+    void recordFailedAcquire() {
+        when(pool.create()).thenReturn(Mono.error(new TimeoutException("pool exhausted")));
+
+        StepVerifier.create(connectionFactory.create()).expectError(TimeoutException.class).verify();
+
+        assertThat(acquireCount("failure")).isEqualTo(1);
+    }
+
+    @Test
+    void unwrapToPoolAndDisposeIt() {
+        assertThat(connectionFactory.unwrap()).isSameAs(pool);
+
+        connectionFactory.dispose();
+
+        verify(pool).dispose();
+    }
+
+    private long acquireCount(String outcome) {
+        return registry.get("r2dbc.pool.acquire").tag("name", "test").tag("outcome", outcome).timer().count();
+    }
+}
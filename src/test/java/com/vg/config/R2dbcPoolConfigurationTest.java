@@ -0,0 +1,48 @@
+package com.vg.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.r2dbc.pool.initial-size=1",
+        "spring.r2dbc.pool.max-size=3"
+})
+class R2dbcPoolConfigurationTest {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void connectionFactoryIsConfiguredPool() {
+        assertThat(connectionFactory).isInstanceOf(AcquireTimingConnectionFactory.class);
+        ConnectionPool pool = (ConnectionPool) ((AcquireTimingConnectionFactory) connectionFactory).unwrap();
+
+        assertThat(pool.getMetrics()).hasValueSatisfying(metrics ->
+                assertThat(metrics.getMaxAllocatedSize()).isEqualTo(3));
+    }
+
+    @Test
+    void exportPoolGaugesAndAcquireTime() {
+        databaseClient.sql("SELECT COUNT(*) FROM book").fetch().one().block();
+
+        assertThat(meterRegistry.get("r2dbc.pool.acquire").tag("outcome", "success").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get("r2dbc.pool.max.allocated").gauge().value()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("r2dbc.pool.acquired").gauge()).isNotNull();
+        assertThat(meterRegistry.get("r2dbc.pool.idle").gauge()).isNotNull();
+        assertThat(meterRegistry.get("r2dbc.pool.pending").gauge()).isNotNull();
+    }
+}
@@ -0,0 +1,60 @@
+package com.vg.controller;
+
+import com.vg.config.FeedProperties;
+import com.vg.dto.BookAvailabilityEventDTO;
+import com.vg.dto.BookAvailabilityEventDTO.Change;
+import com.vg.feed.BookAvailabilityFeed;
+import com.vg.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class AvailabilityFeedControllerIntTest {
+    private WebTestClient webTestClient;
+    private BookAvailabilityFeed availabilityFeed;
+
+    private final Book book = new Book(UUID.randomUUID(), "Title", "Author", false, 1L);
+    private final Book other = new Book(UUID.randomUUID(), "Other", "Author", false, 1L);
+
+    @BeforeEach
+    void setUp() {
+        availabilityFeed = new BookAvailabilityFeed(new FeedProperties(16));
+        webTestClient = WebTestClient.bindToController(new AvailabilityFeedController(availabilityFeed)).build();
+    }
+
+    @Test
+    void streamChangesOfFollowedBook() {
+        // The response is only committed with the first event, so keep publishing while the request opens
+        Disposable publisher = Schedulers.parallel().schedulePeriodically(() -> {
+            availabilityFeed.publish(Change.BORROWED, other);
+            availabilityFeed.publish(Change.BORROWED, book);
+        }, 100, 100, TimeUnit.MILLISECONDS);
+
+        Flux<ServerSentEvent<BookAvailabilityEventDTO>> events = webTestClient.get()
+                .uri("/library/books/feed?bookId={id}", book.getId())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<BookAvailabilityEventDTO>>() {})
+                .getResponseBody();
+
+        StepVerifier.create(events)
+                .expectNextMatches(event -> "borrowed".equals(event.event())
+                        && event.data().equals(new BookAvailabilityEventDTO(book.getId(), Change.BORROWED, false, 1L)))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        publisher.dispose();
+    }
+}
@@ -0,0 +1,174 @@
+package com.vg.controller;
+
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.repository.BorrowedBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many users racing for a handful of hot books over a real Netty port.
+ * Reports throughput, latency percentiles and how many borrows were refused with 409 because the
+ * book was already out, then checks that the ledger is consistent with book availability.
+ * <p>
+ * Tagged {@code load}, so it only runs with {@code -Pload-test}. Size it with
+ * {@code -Dload.users}, {@code -Dload.iterations} and {@code -Dload.hotBooks}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"logging.level.com.vg=WARN", "logging.level.com.vg.controller.BorrowContentionLoadTest=INFO",
+                "logging.level.org.springframework.r2dbc.core=WARN", "logging.level.io.r2dbc.h2=WARN"})
+public class BorrowContentionLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowContentionLoadTest.class);
+
+    private static final int USERS = Integer.getInteger("load.users", 32);
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 50);
+    private static final int HOT_BOOKS = Integer.getInteger("load.hotBooks", 3);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowedBookRepository borrowedBookRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final List<UUID> hotBooks = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        borrowedBookRepository.deleteAll().then(bookRepository.deleteAll()).block();
+        for (int i = 0; i < HOT_BOOKS; i++) {
+            UUID bookId = UUID.randomUUID();
+            bookRepository.save(new Book(bookId, "Hot Book " + i, "Author", true, null)).block();
+            hotBooks.add(bookId);
+        }
+        webTestClient = webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+    }
+
+    @Test
+    void concurrentBorrowsOfHotBooks() throws Exception {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        LongAdder ok = new LongAdder();
+        LongAdder unavailable = new LongAdder();
+        LongAdder failures = new LongAdder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            UUID userId = UUID.randomUUID();
+            users.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    UUID bookId = hotBooks.get(ThreadLocalRandom.current().nextInt(hotBooks.size()));
+                    int status = call("/library/borrow/{bookId}", bookId, userId, latencies);
+                    record(status, ok, unavailable, failures);
+                    if (status == 200) {
+                        record(call("/library/return/{bookId}", bookId, userId, latencies), ok, unavailable, failures);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> user : users) {
+            user.get(5, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - began;
+        executor.shutdown();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        long requests = sorted.length;
+        long borrows = (long) USERS * ITERATIONS;
+        log.info("Load: users={} iterations={} hotBooks={} requests={} throughput={} req/s "
+                        + "p50={}ms p99={}ms p999={}ms ok={} unavailable={} ({}% of borrows) failures={}",
+                USERS, ITERATIONS, HOT_BOOKS, requests,
+                String.format("%.1f", requests / (elapsedNanos / 1e9)),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)),
+                ok.sum(), unavailable.sum(), String.format("%.1f", 100.0 * unavailable.sum() / borrows), failures.sum());
+
+        assertThat(failures.sum()).as("non-2xx/409 responses").isZero();
+        assertInvariants();
+    }
+
+    private int call(String path, UUID bookId, UUID userId, ConcurrentLinkedQueue<Long> latencies) {
+        long began = System.nanoTime();
+        int status = webTestClient.put()
+                .uri(uriBuilder -> uriBuilder.path(path).queryParam("userId", userId).build(bookId))
+                .exchange()
+                .returnResult(Void.class)
+                .getStatus()
+                .value();
+        latencies.add(System.nanoTime() - began);
+        return status;
+    }
+
+    // A user only returns a book it has just borrowed, so a 409 is always a borrow of a book that is out
+    private void record(int status, LongAdder ok, LongAdder unavailable, LongAdder failures) {
+        if (status == 200) {
+            ok.increment();
+        } else if (status == 409) {
+            unavailable.increment();
+        } else {
+            failures.increment();
+        }
+    }
+
+    private void assertInvariants() {
+        Long doubleBorrows = databaseClient.sql(
+                        "SELECT COUNT(*) FROM (SELECT book_id FROM borrowed_book GROUP BY book_id HAVING COUNT(*) > 1)")
+                .map(row -> row.get(0, Long.class)).one().block();
+        Long orphans = databaseClient.sql(
+                        "SELECT COUNT(*) FROM borrowed_book bb LEFT JOIN book b ON b.id = bb.book_id WHERE b.id IS NULL")
+                .map(row -> row.get(0, Long.class)).one().block();
+        Long unavailableWithoutBorrow = databaseClient.sql(
+                        "SELECT COUNT(*) FROM book b WHERE b.available = FALSE "
+                                + "AND NOT EXISTS (SELECT 1 FROM borrowed_book bb WHERE bb.book_id = b.id)")
+                .map(row -> row.get(0, Long.class)).one().block();
+        Long availableWithBorrow = databaseClient.sql(
+                        "SELECT COUNT(*) FROM book b WHERE b.available = TRUE "
+                                + "AND EXISTS (SELECT 1 FROM borrowed_book bb WHERE bb.book_id = b.id)")
+                .map(row -> row.get(0, Long.class)).one().block();
+
+        assertThat(doubleBorrows).as("books with more than one active borrow").isZero();
+        assertThat(orphans).as("orphaned borrowed_book rows").isZero();
+        assertThat(unavailableWithoutBorrow).as("unavailable books without a borrow").isZero();
+        assertThat(availableWithBorrow).as("available books with a borrow").isZero();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
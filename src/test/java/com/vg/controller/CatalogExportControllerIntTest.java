@@ -0,0 +1,87 @@
+package com.vg.controller;
+
+import com.vg.dto.BookExportDTO;
+import com.vg.dto.BookResponseDTO;
+import com.vg.mapper.BookCursors;
+import com.vg.model.Book;
+import com.vg.service.CatalogExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogExportControllerIntTest {
+    private WebTestClient webTestClient;
+
+    @Mock
+    private CatalogExportService catalogExportService;
+
+    private final Book first = new Book(UUID.randomUUID(), "Clean Code", "Robert C. Martin", true, 0L);
+    private final Book second = new Book(UUID.randomUUID(), "Effective Java", "Joshua Bloch", false, 1L);
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new CatalogExportController(catalogExportService)).build();
+    }
+
+    @Test
+    void exportNdjsonWithCheckpoints() {
+        when(catalogExportService.export(null)).thenReturn(Flux.just(first, second));
+
+        webTestClient.get().uri("/library/books/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookExportDTO.class)
+                .contains(
+                        new BookExportDTO(BookCursors.encode(first.getId()),
+                                new BookResponseDTO(first.getId(), "Clean Code", "Robert C. Martin", true)),
+                        new BookExportDTO(BookCursors.encode(second.getId()),
+                                new BookResponseDTO(second.getId(), "Effective Java", "Joshua Bloch", false)));
+    }
+
+    @Test
+    void resumeNdjsonFromCheckpoint() {
+        when(catalogExportService.export(first.getId())).thenReturn(Flux.just(second));
+
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path("/library/books/export")
+                        .queryParam("after", BookCursors.encode(first.getId())).build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookExportDTO.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void resumeEventStreamFromLastEventId() {
+        when(catalogExportService.export(first.getId())).thenReturn(Flux.just(second));
+
+        Flux<ServerSentEvent<BookResponseDTO>> events = webTestClient.get().uri("/library/books/export")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", BookCursors.encode(first.getId()))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<BookResponseDTO>>() {})
+                .getResponseBody();
+
+        ServerSentEvent<BookResponseDTO> event = events.blockFirst();
+        assertThat(event.id()).isEqualTo(BookCursors.encode(second.getId()));
+        assertThat(event.data().title()).isEqualTo("Effective Java");
+    }
+}
@@ -0,0 +1,82 @@
+package com.vg.controller;
+
+import com.vg.dto.BookIngestProgressDTO;
+import com.vg.model.Book;
+import com.vg.service.CatalogIngestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogIngestControllerIntTest {
+    private WebTestClient webTestClient;
+    private final List<String> receivedTitles = new ArrayList<>();
+
+    @Mock
+    private CatalogIngestService catalogIngestService;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new CatalogIngestController(catalogIngestService)).build();
+    }
+
+    @Test
+    void ingestNdjson() {
+        when(catalogIngestService.ingest(any())).thenAnswer(invocation -> summarize(invocation.getArgument(0)));
+
+        String body = """
+                {"title":"Clean Code","author":"Robert C. Martin"}
+                {"title":"Effective Java","author":"Joshua Bloch"}
+                """;
+
+        webTestClient.post().uri("/library/books/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookIngestProgressDTO.class)
+                .hasSize(1);
+
+        assertThat(receivedTitles).containsExactly("Clean Code", "Effective Java");
+    }
+
+    @Test
+    void ingestCsvSkippingHeaderAndBlankLines() {
+        when(catalogIngestService.ingest(any())).thenAnswer(invocation -> summarize(invocation.getArgument(0)));
+
+        String body = "title,author\n\"Domain-Driven Design\",Eric Evans\n\nRefactoring,Martin Fowler\n";
+
+        webTestClient.post().uri("/library/books/bulk")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookIngestProgressDTO.class)
+                .hasSize(1);
+
+        assertThat(receivedTitles).containsExactly("Domain-Driven Design", "Refactoring");
+    }
+
+    private Flux<BookIngestProgressDTO> summarize(Flux<Book> books) {
+        return books.doOnNext(book -> receivedTitles.add(book.getTitle()))
+                .count()
+                .map(count -> new BookIngestProgressDTO(1, count.intValue(), 0, count, 0, null))
+                .flux();
+    }
+}
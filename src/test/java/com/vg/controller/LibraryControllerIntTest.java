@@ -1,24 +1,55 @@
 package com.vg.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.admission.AdmissionControlFilter;
+import com.vg.advice.GlobalWebFluxExceptionHandler;
+import com.vg.cache.BookJsonCache;
+import com.vg.cache.BookJsonEncoder;
+import com.vg.cache.CatalogVersions;
+import com.vg.config.AdmissionProperties;
+import com.vg.config.BinaryCodecsConfiguration;
+import com.vg.config.BookJsonCacheProperties;
+import com.vg.config.ETagProperties;
+import com.vg.dto.BookBatchResultDTO;
+import com.vg.dto.BookCursorPageDTO;
 import com.vg.dto.BookRequestDTO;
 import com.vg.dto.BookResponseDTO;
+import com.vg.dto.BorrowedBookViewDTO;
+import com.vg.mapper.BookCursors;
+import com.vg.mapper.BookPages;
 import com.vg.model.Book;
+import com.vg.model.BookBatchResult;
+import com.vg.model.BorrowedBookDetails;
 import com.vg.repository.BookRepository;
 import com.vg.service.LibraryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.MockServerConfigurer;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.publisher.PublisherProbe;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,10 +59,17 @@ public class LibraryControllerIntTest {
     @Mock
     private LibraryService libraryService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CatalogVersions versions = new CatalogVersions(new ETagProperties(true, 100));
+
     @BeforeEach
     void setUp() {
-        LibraryController controller = new LibraryController(libraryService);
-        webTestClient = WebTestClient.bindToController(controller).build();
+        LibraryController controller = new LibraryController(libraryService, versions);
+        webTestClient = WebTestClient.bindToController(controller)
+                .httpMessageCodecs(codecs -> BinaryCodecsConfiguration.register(codecs, objectMapper,
+                        new BookJsonEncoder(objectMapper, new BookJsonCache(objectMapper,
+                                new BookJsonCacheProperties(DataSize.ofMegabytes(1))))))
+                .build();
     }
 
     private final UUID testBookId = UUID.randomUUID();
@@ -51,6 +89,182 @@ public class LibraryControllerIntTest {
                 .contains(new BookResponseDTO(testBookId, "Test Book", "Author", true));
     }
 
+    @Test
+    void getAllBooksAnswersNotModifiedUntilCatalogChanges() {
+        when(libraryService.findAllBooks(0, 10)).thenReturn(Flux.just(testBook));
+
+        String etag = webTestClient.get().uri("/library/books")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(BookResponseDTO.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(etag);
+
+        PublisherProbe<Book> query = PublisherProbe.of(Flux.just(testBook));
+        when(libraryService.findAllBooks(0, 10)).thenReturn(query.flux());
+        webTestClient.get().uri("/library/books")
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+        query.assertWasNotSubscribed();
+
+        versions.catalogChanged();
+
+        webTestClient.get().uri("/library/books")
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookResponseDTO.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void searchBooks() {
+        when(libraryService.searchBooks("test bo", 1, 5)).thenReturn(Flux.just(testBook));
+
+        webTestClient.get().uri("/library/books/search?q=test bo&page=1&size=5")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookResponseDTO.class)
+                .hasSize(1)
+                .contains(new BookResponseDTO(testBookId, "Test Book", "Author", true));
+    }
+
+    @Test
+    void borrowSeveralBooks() {
+        UUID unknown = UUID.randomUUID();
+        when(libraryService.borrowBooks(List.of(testBookId, unknown), testUserId)).thenReturn(Flux.just(
+                BookBatchResult.ok(new Book(testBookId, "Test Book", "Author", false, 1L)),
+                BookBatchResult.failed(unknown, BookBatchResult.Status.NOT_FOUND, "Book not found: " + unknown)));
+
+        webTestClient.put().uri("/library/borrow?userId={userId}", testUserId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(testBookId, unknown))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookBatchResultDTO.class)
+                .contains(
+                        new BookBatchResultDTO(testBookId, "OK", null,
+                                new BookResponseDTO(testBookId, "Test Book", "Author", false)),
+                        new BookBatchResultDTO(unknown, "NOT_FOUND", "Book not found: " + unknown, null));
+    }
+
+    @Test
+    void returnSeveralBooks() {
+        when(libraryService.returnBooks(List.of(testBookId), testUserId))
+                .thenReturn(Flux.just(BookBatchResult.ok(testBook)));
+
+        webTestClient.put().uri("/library/return?userId={userId}", testUserId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(testBookId))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(BookBatchResultDTO.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getBooksByCursor() {
+        Book nextBook = new Book(UUID.randomUUID(), "Next Book", "Author", true, 0L);
+        when(libraryService.findBooksAfter(null, 2)).thenReturn(Flux.just(testBook, nextBook));
+
+        webTestClient.get().uri("/library/books/cursor?size=1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(BookCursorPageDTO.class)
+                .value(page -> {
+                    assertEquals(1, page.items().size());
+                    assertEquals(testBookId, page.items().get(0).id());
+                    assertEquals(BookCursors.encode(testBookId), page.next());
+                });
+    }
+
+    @Test
+    void getLastPageByCursorHasNoNextCursor() {
+        UUID after = UUID.randomUUID();
+        when(libraryService.findBooksAfter(after, 11)).thenReturn(Flux.just(testBook));
+
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path("/library/books/cursor")
+                        .queryParam("after", BookCursors.encode(after)).build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(BookCursorPageDTO.class)
+                .value(page -> {
+                    assertEquals(1, page.items().size());
+                    assertNull(page.next());
+                });
+    }
+
+    @Test
+    void clampCursorPageSize() {
+        when(libraryService.findBooksAfter(null, BookPages.MAX_SIZE + 1)).thenReturn(Flux.just(testBook));
+
+        webTestClient.get().uri("/library/books/cursor?size={size}", Integer.MAX_VALUE)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(BookCursorPageDTO.class)
+                .value(page -> assertNull(page.next()));
+    }
+
+    @Test
+    void rejectCursorPageSizeBelowOne() {
+        WebTestClient client = WebTestClient.bindToController(new LibraryController(libraryService, versions))
+                .apply(errorHandler())
+                .build();
+
+        client.get().uri("/library/books/cursor?size=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/library/books/cursor?size=-5")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(libraryService);
+    }
+
+    @Test
+    void getBookById() {
+        when(libraryService.findBook(testBookId)).thenReturn(Mono.just(testBook));
+
+        webTestClient.get().uri("/library/books/{bookId}", testBookId)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(BookResponseDTO.class)
+                .isEqualTo(new BookResponseDTO(testBookId, "Test Book", "Author", true));
+    }
+
+    @Test
+    void getBookAnswersNotModifiedForSameVersion() {
+        when(libraryService.findBook(testBookId)).thenReturn(Mono.just(testBook));
+
+        webTestClient.get().uri("/library/books/{bookId}", testBookId)
+                .ifNoneMatch(CatalogVersions.bookTag(testBook))
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        webTestClient.get().uri("/library/books/{bookId}", testBookId)
+                .ifNoneMatch(CatalogVersions.bookTag(new Book(testBookId, "Test Book", "Author", false, 1L)))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals("ETag", CatalogVersions.bookTag(testBook));
+    }
+
     @Test
     void addNewBook() {
         BookRequestDTO request = new BookRequestDTO("New Book", "New Author");
@@ -66,6 +280,30 @@ public class LibraryControllerIntTest {
                 .isEqualTo(new BookResponseDTO(testBookId, "Test Book", "Author", true));
     }
 
+    @Test
+    void rejectBorrowsOverUserRateBeforeTheService() {
+        AdmissionControlFilter admission = new AdmissionControlFilter(new AdmissionProperties(
+                true, 1, 1, 100, 4, Duration.ofSeconds(1), null), new SimpleMeterRegistry());
+        WebTestClient admitted = WebTestClient.bindToController(new LibraryController(libraryService, versions))
+                .webFilter(admission)
+                .apply(errorHandler())
+                .build();
+        when(libraryService.borrowBook(testBookId, testUserId))
+                .thenReturn(Mono.just(new Book(testBookId, "Test Book", "Author", false, 1L)));
+
+        admitted.put().uri("/library/borrow/{bookId}?userId={userId}", testBookId, testUserId)
+                .exchange()
+                .expectStatus().isOk();
+        admitted.put().uri("/library/borrow/{bookId}?userId={userId}", testBookId, testUserId)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(429);
+
+        verify(libraryService, times(1)).borrowBook(testBookId, testUserId);
+    }
+
     @Test
     void borrowBook() {
         Book borrowedBook = new Book(testBookId, "Test Book", "Author", false, 1L);
@@ -102,6 +340,90 @@ public class LibraryControllerIntTest {
                 });
     }
 
+    @Test
+    void getAllBooksAsCbor() throws Exception {
+        when(libraryService.findAllBooks(0, 10)).thenReturn(Flux.just(testBook, testBook));
+
+        byte[] body = webTestClient.get().uri("/library/books")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        BookResponseDTO expected = new BookResponseDTO(testBookId, "Test Book", "Author", true);
+        assertEquals(List.of(expected, expected), BinaryCodecsConfiguration.cborMapper(objectMapper)
+                .readValue(body, new TypeReference<List<BookResponseDTO>>() {}));
+    }
+
+    @Test
+    void getBorrowedBooksAsSmile() throws Exception {
+        LocalDateTime borrowedAt = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        when(libraryService.findBorrowedBooksByUser(testUserId)).thenReturn(Flux.just(
+                new BorrowedBookDetails(UUID.randomUUID(), testBookId, "Test Book", "Author", borrowedAt, false)));
+
+        byte[] body = webTestClient.get().uri("/library/borrowed-books?userId={userId}", testUserId)
+                .accept(BinaryCodecsConfiguration.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(BinaryCodecsConfiguration.APPLICATION_SMILE)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(List.of(new BorrowedBookViewDTO(testBookId, "Test Book", "Author", borrowedAt)),
+                BinaryCodecsConfiguration.smileMapper(objectMapper)
+                        .readValue(body, new TypeReference<List<BorrowedBookViewDTO>>() {}));
+    }
+
+    @Test
+    void addNewBookFromCbor() throws Exception {
+        when(libraryService.addBook(any())).thenReturn(Mono.just(testBook));
+
+        byte[] body = webTestClient.post().uri("/library/book")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(BinaryCodecsConfiguration.cborMapper(objectMapper)
+                        .writeValueAsBytes(new BookRequestDTO("New Book", "New Author")))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(new BookResponseDTO(testBookId, "Test Book", "Author", true),
+                BinaryCodecsConfiguration.cborMapper(objectMapper).readValue(body, BookResponseDTO.class));
+    }
+
+    @Test
+    void borrowedBooksTagOnlyChangesWithThatUser() {
+        when(libraryService.findBorrowedBooksByUser(testUserId)).thenReturn(Flux.empty());
+        String etag = versions.userTag(testUserId);
+
+        versions.userChanged(UUID.randomUUID());
+
+        webTestClient.get().uri("/library/borrowed-books?userId={userId}", testUserId)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        versions.userChanged(testUserId);
+
+        webTestClient.get().uri("/library/borrowed-books?userId={userId}", testUserId)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
     @Test
     void getBorrowedBooksByUser() {
         when(libraryService.findBorrowedBooksByUser(testUserId)).thenReturn(Flux.empty()); // or Flux.just(...) with test data
@@ -112,4 +434,13 @@ public class LibraryControllerIntTest {
                 .expectStatus()
                 .isOk();
     }
+
+    private MockServerConfigurer errorHandler() {
+        return new MockServerConfigurer() {
+            @Override
+            public void beforeServerCreated(WebHttpHandlerBuilder builder) {
+                builder.exceptionHandler(new GlobalWebFluxExceptionHandler(objectMapper));
+            }
+        };
+    }
 }
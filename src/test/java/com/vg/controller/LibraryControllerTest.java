@@ -1,5 +1,7 @@
 package com.vg.controller;
 
+import com.vg.cache.CatalogVersions;
+import com.vg.config.ETagProperties;
 import com.vg.dto.BookRequestDTO;
 import com.vg.dto.BookResponseDTO;
 import com.vg.model.Book;
@@ -19,14 +21,15 @@ import static org.mockito.Mockito.when;
 class LibraryControllerTest {
 
     private final LibraryService libraryService = Mockito.mock(LibraryService.class);
-    private final LibraryController controller = new LibraryController(libraryService);
+    private final LibraryController controller = new LibraryController(libraryService,
+            new CatalogVersions(new ETagProperties(true, 100)));
 
     @Test
     void returnAllBooks() {
         Book book = new Book(UUID.randomUUID(), "Test Book", "Author", true, 0L);
         when(libraryService.findAllBooks(0,1)).thenReturn(Flux.just(book));
 
-        Flux<BookResponseDTO> result = controller.getAllBooks(0,1);
+        Flux<BookResponseDTO> result = controller.getAllBooks(0,1).getBody();
 
         StepVerifier.create(result)
                 .expectNextMatches(dto -> dto.title().equals("Test Book"))
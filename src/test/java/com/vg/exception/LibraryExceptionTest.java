@@ -0,0 +1,24 @@
+package com.vg.exception;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryExceptionTest {
+
+    @Test
+    void domainExceptionsSkipTheStackTrace() {
+        BookUnavailableException ex = new BookUnavailableException("Book is already borrowed.");
+
+        assertThat(ex.getStackTrace()).isEmpty();
+        assertThat(ex.getMessage()).isEqualTo("Book is already borrowed.");
+    }
+
+    @Test
+    void suppressedExceptionsAreStillRecorded() {
+        BookNotFoundException ex = new BookNotFoundException("Book not found");
+        ex.addSuppressed(new IllegalStateException("checkpoint"));
+
+        assertThat(ex.getSuppressed()).hasSize(1);
+    }
+}
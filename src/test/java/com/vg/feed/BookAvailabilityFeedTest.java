@@ -0,0 +1,132 @@
+package com.vg.feed;
+
+import com.vg.config.FeedProperties;
+import com.vg.dto.BookAvailabilityEventDTO;
+import com.vg.dto.BookAvailabilityEventDTO.Change;
+import com.vg.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookAvailabilityFeedTest {
+
+    private BookAvailabilityFeed feed;
+
+    private final Book book = new Book(UUID.randomUUID(), "Title", "Author", false, 1L);
+    private final Book other = new Book(UUID.randomUUID(), "Other", "Author", true, 0L);
+
+    @BeforeEach
+    void setUp() {
+        feed = new BookAvailabilityFeed(new FeedProperties(2));
+    }
+
+    @Test
+    void deliverEveryChangeToUnfilteredSubscribers() {
+        StepVerifier.create(feed.subscribe(List.of()))
+                .then(() -> {
+                    feed.publish(Change.BORROWED, book);
+                    feed.publish(Change.ADDED, other);
+                })
+                .expectNext(new BookAvailabilityEventDTO(book.getId(), Change.BORROWED, false, 1L))
+                .expectNext(new BookAvailabilityEventDTO(other.getId(), Change.ADDED, true, 0L))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void deliverOnlyFollowedBooks() {
+        StepVerifier.create(feed.subscribe(List.of(book.getId())))
+                .then(() -> {
+                    feed.publish(Change.ADDED, other);
+                    feed.publish(Change.BORROWED, book);
+                })
+                .expectNextMatches(event -> event.id().equals(book.getId()))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void dropOldestEventsForSlowSubscriber() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        feed.bindTo(registry);
+
+        StepVerifier.create(feed.subscribe(null), 0)
+                .then(() -> {
+                    for (long version = 1; version <= 5; version++) {
+                        feed.publish(Change.BORROWED, new Book(book.getId(), "Title", "Author", false, version));
+                    }
+                })
+                .thenRequest(2)
+                .expectNextMatches(event -> event.version() == 4L)
+                .expectNextMatches(event -> event.version() == 5L)
+                .thenCancel()
+                .verify();
+
+        assertThat(registry.get("library.feed.dropped").functionCounter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void deliverEveryChangeFromConcurrentPublishers() throws Exception {
+        BookAvailabilityFeed roomy = new BookAvailabilityFeed(new FeedProperties(100_000));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        roomy.bindTo(registry);
+        AtomicInteger all = new AtomicInteger();
+        AtomicInteger followed = new AtomicInteger();
+        Disposable allBooks = roomy.subscribe(List.of()).subscribe(event -> all.incrementAndGet());
+        Disposable oneBook = roomy.subscribe(List.of(book.getId())).subscribe(event -> followed.incrementAndGet());
+        int publishers = 8;
+        int changes = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(publishers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < publishers; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int change = 0; change < changes; change++) {
+                    roomy.publish(Change.BORROWED, change % 2 == 0 ? book : other);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(all.get()).isEqualTo(publishers * changes);
+        assertThat(followed.get()).isEqualTo(publishers * changes / 2);
+        assertThat(registry.get("library.feed.failed").functionCounter().count()).isZero();
+        allBooks.dispose();
+        oneBook.dispose();
+    }
+
+    @Test
+    void releaseBookChannelWhenLastSubscriberLeaves() {
+        Disposable first = feed.subscribe(List.of(book.getId())).subscribe();
+        Disposable second = feed.subscribe(List.of(book.getId(), other.getId())).subscribe();
+        assertThat(feed.channelCount()).isEqualTo(2);
+
+        first.dispose();
+        assertThat(feed.channelCount()).isEqualTo(2);
+
+        second.dispose();
+        assertThat(feed.channelCount()).isZero();
+    }
+}
@@ -0,0 +1,146 @@
+package com.vg.journal;
+
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.config.ETagProperties;
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.repository.BookRepository;
+import com.vg.repository.BorrowedBookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class BorrowJournalReplayTest {
+
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID book = UUID.randomUUID();
+    private final UUID other = UUID.randomUUID();
+    private final Instant at = Instant.parse("2025-01-01T10:00:00Z");
+
+    private BorrowJournal journal;
+    private BookRepository bookRepository;
+    private BorrowedBookRepository borrowedBookRepository;
+    private BookCache bookCache;
+    private BorrowJournalReplay replay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        journal = mock(BorrowJournal.class);
+        when(journal.entries()).thenReturn(Flux.just(
+                JournalEntry.borrowed(alice, book, at),
+                JournalEntry.borrowed(alice, other, at),
+                JournalEntry.returned(bob, book, at.plusSeconds(1)),
+                JournalEntry.returned(alice, book, at.plusSeconds(2)),
+                JournalEntry.borrowed(bob, book, at.plusSeconds(3))));
+        bookRepository = mock(BookRepository.class);
+        borrowedBookRepository = mock(BorrowedBookRepository.class);
+        bookCache = mock(BookCache.class);
+        TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        replay = new BorrowJournalReplay(journal, bookRepository, borrowedBookRepository, transactionalOperator,
+                bookCache, new CatalogVersions(new ETagProperties(true, 100)));
+    }
+
+    @Test
+    void historyFiltersByBookAndUser() {
+        StepVerifier.create(replay.history(book, alice))
+                .expectNext(JournalEntry.borrowed(alice, book, at), JournalEntry.returned(alice, book, at.plusSeconds(2)))
+                .verifyComplete();
+        StepVerifier.create(replay.history(null, bob).count())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void returnOnlyClosesTheLoanOfTheUserHoldingTheBook() {
+        StepVerifier.create(replay.openLoans())
+                .assertNext(open -> {
+                    assertThat(open).containsOnlyKeys(book, other);
+                    assertThat(open.get(book).userId()).isEqualTo(bob);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void eventsAppendedOutOfCommitOrderReplayByTime() {
+        // Appended after commit, so a later commit on the same book can reach the journal first
+        when(journal.entries()).thenReturn(Flux.just(
+                JournalEntry.borrowed(alice, book, at.plusSeconds(2)),
+                JournalEntry.returned(alice, book, at.plusSeconds(1)),
+                JournalEntry.returned(bob, other, at.plusSeconds(4)),
+                JournalEntry.borrowed(bob, other, at.plusSeconds(3))));
+
+        StepVerifier.create(replay.openLoans())
+                .assertNext(open -> {
+                    assertThat(open).containsOnlyKeys(book);
+                    assertThat(open.get(book).at()).isEqualTo(at.plusSeconds(2));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildReplacesBorrowRecordsWithOpenLoans() {
+        when(borrowedBookRepository.deleteAll()).thenReturn(Mono.empty());
+        when(borrowedBookRepository.saveAll(any(Iterable.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<BorrowedBook>>getArgument(0)));
+        when(bookRepository.findAll()).thenReturn(Flux.empty());
+
+        StepVerifier.create(replay.rebuildBorrowedBooks())
+                .expectNext(2L)
+                .verifyComplete();
+
+        ArgumentCaptor<Iterable<BorrowedBook>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(borrowedBookRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(BorrowedBook::getUserId, BorrowedBook::getBookId)
+                .containsExactlyInAnyOrder(
+                        tuple(bob, book),
+                        tuple(alice, other));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildMakesExactlyTheBooksWithOpenLoansUnavailable() {
+        UUID returned = UUID.randomUUID();
+        UUID untouched = UUID.randomUUID();
+        when(borrowedBookRepository.deleteAll()).thenReturn(Mono.empty());
+        when(borrowedBookRepository.saveAll(any(Iterable.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<BorrowedBook>>getArgument(0)));
+        when(bookRepository.findAll()).thenReturn(Flux.just(
+                new Book(book, "Open, still available", "Author", true, 3L),
+                new Book(other, "Open, already borrowed", "Author", false, 1L),
+                new Book(returned, "Closed, still borrowed", "Author", false, 5L),
+                new Book(untouched, "Closed, available", "Author", true, 0L)));
+        when(bookRepository.markAllBorrowed(List.of(book)))
+                .thenReturn(Flux.just(new Book(book, "Open, still available", "Author", false, 4L)));
+        when(bookRepository.markAllReturned(List.of(returned)))
+                .thenReturn(Flux.just(new Book(returned, "Closed, still borrowed", "Author", true, 6L)));
+
+        StepVerifier.create(replay.rebuildBorrowedBooks())
+                .expectNext(2L)
+                .verifyComplete();
+
+        verify(bookCache).evict(book);
+        verify(bookCache).evict(returned);
+        verifyNoMoreInteractions(bookCache);
+    }
+}
@@ -0,0 +1,116 @@
+package com.vg.journal;
+
+import com.vg.config.JournalProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedBorrowJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<MappedBorrowJournal> opened = new ArrayList<>();
+    private final Instant at = Instant.parse("2025-01-01T10:00:00Z");
+
+    @AfterEach
+    void close() {
+        opened.forEach(MappedBorrowJournal::destroy);
+    }
+
+    @Test
+    void appendedEventsAreReadBackInOrderAfterSync() {
+        MappedBorrowJournal journal = open(DataSize.ofMegabytes(1), 16);
+        UUID user = UUID.randomUUID();
+        UUID book = UUID.randomUUID();
+
+        journal.append(JournalEntry.borrowed(user, book, at))
+                .then(journal.append(JournalEntry.returned(user, book, at.plusSeconds(60))))
+                .then(journal.sync())
+                .block(Duration.ofSeconds(5));
+
+        StepVerifier.create(journal.entries())
+                .expectNext(JournalEntry.borrowed(user, book, at))
+                .expectNext(JournalEntry.returned(user, book, at.plusSeconds(60)))
+                .verifyComplete();
+        assertThat(registry.get(MappedBorrowJournal.APPENDS).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void reopeningDropsTornRecordAndAppendsAfterLastIntactOne() throws IOException {
+        MappedBorrowJournal journal = open(DataSize.ofKilobytes(4), 16);
+        List<JournalEntry> entries = borrows(3);
+        journal.append(entries).then(journal.sync()).block(Duration.ofSeconds(5));
+        journal.destroy();
+        opened.remove(journal);
+
+        // Flip a byte in the third record, as a crash mid-write would leave it
+        try (RandomAccessFile file = new RandomAccessFile(JournalSegments.segmentPath(directory, 0).toFile(), "rw")) {
+            long offset = 2L * JournalSegments.RECORD_SIZE + 20;
+            file.seek(offset);
+            int original = file.read();
+            file.seek(offset);
+            file.write(original ^ 0xff);
+        }
+
+        MappedBorrowJournal reopened = open(DataSize.ofKilobytes(4), 16);
+        JournalEntry next = JournalEntry.borrowed(UUID.randomUUID(), UUID.randomUUID(), at);
+        reopened.append(next).then(reopened.sync()).block(Duration.ofSeconds(5));
+
+        StepVerifier.create(reopened.entries())
+                .expectNext(entries.get(0), entries.get(1), next)
+                .verifyComplete();
+    }
+
+    @Test
+    void fullSegmentsRollAndOldOnesCompactToOpenLoans() throws IOException {
+        // Four records per segment
+        MappedBorrowJournal journal = open(DataSize.ofBytes(4 * JournalSegments.RECORD_SIZE), 1);
+        List<JournalEntry> borrows = borrows(10);
+        journal.append(borrows).block();
+        // Return all but the last two books
+        journal.append(borrows.subList(0, 8).stream()
+                        .map(borrow -> JournalEntry.returned(borrow.userId(), borrow.bookId(), borrow.at().plusSeconds(1)))
+                        .toList())
+                .then(journal.sync())
+                .block(Duration.ofSeconds(5));
+
+        journal.compact();
+
+        // One folded segment, one retained closed segment and the one being written
+        assertThat(JournalSegments.list(directory)).hasSize(3);
+        Map<UUID, JournalEntry> open = new BorrowJournalReplay(journal, null, null, null, null, null).openLoans().block();
+        assertThat(open.values()).containsExactly(borrows.get(8), borrows.get(9));
+    }
+
+    private List<JournalEntry> borrows(int count) {
+        List<JournalEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(JournalEntry.borrowed(UUID.randomUUID(), UUID.randomUUID(), at.plusSeconds(i)));
+        }
+        return entries;
+    }
+
+    private MappedBorrowJournal open(DataSize segmentSize, int retainedSegments) {
+        MappedBorrowJournal journal = new MappedBorrowJournal(
+                new JournalProperties(true, directory, segmentSize, Duration.ofMillis(1), retainedSegments), registry);
+        opened.add(journal);
+        return journal;
+    }
+}
@@ -0,0 +1,31 @@
+package com.vg.mapper;
+
+import com.vg.dto.BookRequestDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookCsvMappersTest {
+
+    @Test
+    void shouldMapPlainCsvLine() {
+        BookRequestDTO dto = BookCsvMappers.csvLineToDto.apply("Clean Code, Robert C. Martin");
+
+        assertThat(dto).isEqualTo(new BookRequestDTO("Clean Code", "Robert C. Martin"));
+    }
+
+    @Test
+    void shouldMapQuotedFieldsWithCommasAndEscapedQuotes() {
+        BookRequestDTO dto = BookCsvMappers.csvLineToDto.apply("\"Design Patterns, \"\"GoF\"\"\",\"Gamma, Erich\"");
+
+        assertThat(dto).isEqualTo(new BookRequestDTO("Design Patterns, \"GoF\"", "Gamma, Erich"));
+    }
+
+    @Test
+    void shouldMapMissingAuthorToNull() {
+        BookRequestDTO dto = BookCsvMappers.csvLineToDto.apply("Refactoring");
+
+        assertThat(dto.title()).isEqualTo("Refactoring");
+        assertThat(dto.author()).isNull();
+    }
+}
@@ -0,0 +1,34 @@
+package com.vg.mapper;
+
+import com.vg.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookCursorsTest {
+
+    @Test
+    void shouldRoundTripBookIdThroughCursor() {
+        UUID bookId = UUID.randomUUID();
+
+        String cursor = BookCursors.encode(bookId);
+
+        assertThat(cursor).doesNotContain(bookId.toString());
+        assertThat(BookCursors.decode(cursor)).isEqualTo(bookId);
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> BookCursors.decode("not a cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void shouldRejectCursorOfWrongLength() {
+        assertThatThrownBy(() -> BookCursors.decode("AAAA"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
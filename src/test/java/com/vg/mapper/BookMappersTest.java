@@ -1,8 +1,10 @@
 package com.vg.mapper;
 
+import com.vg.dto.BookBatchResultDTO;
 import com.vg.dto.BookRequestDTO;
 import com.vg.dto.BookResponseDTO;
 import com.vg.model.Book;
+import com.vg.model.BookBatchResult;
 import org.junit.jupiter.api.Test;
 
 import java.util.UUID;
@@ -36,4 +38,18 @@ class BookMappersTest {
         assertThat(book.isAvailable()).isTrue();
         assertThat(book.getVersion()).isNull();
     }
+
+    @Test
+    void shouldMapBatchResultsToDto() {
+        UUID bookId = UUID.randomUUID();
+
+        BookBatchResultDTO ok = BookMappers.batchResultToDto.apply(
+                BookBatchResult.ok(new Book(bookId, "Title", "Author", false, 1L)));
+        BookBatchResultDTO failed = BookMappers.batchResultToDto.apply(
+                BookBatchResult.failed(bookId, BookBatchResult.Status.UNAVAILABLE, "Book is already borrowed."));
+
+        assertThat(ok).isEqualTo(new BookBatchResultDTO(bookId, "OK", null,
+                new BookResponseDTO(bookId, "Title", "Author", false)));
+        assertThat(failed).isEqualTo(new BookBatchResultDTO(bookId, "UNAVAILABLE", "Book is already borrowed.", null));
+    }
 }
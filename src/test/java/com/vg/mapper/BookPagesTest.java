@@ -0,0 +1,27 @@
+package com.vg.mapper;
+
+import com.vg.exception.InvalidPageRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookPagesTest {
+
+    @Test
+    void shouldKeepSizeWithinLimit() {
+        assertThat(BookPages.size(1)).isEqualTo(1);
+        assertThat(BookPages.size(BookPages.MAX_SIZE)).isEqualTo(BookPages.MAX_SIZE);
+    }
+
+    @Test
+    void shouldClampSizeToLimit() {
+        assertThat(BookPages.size(Integer.MAX_VALUE)).isEqualTo(BookPages.MAX_SIZE);
+    }
+
+    @Test
+    void shouldRejectSizeBelowOne() {
+        assertThatThrownBy(() -> BookPages.size(0)).isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> BookPages.size(-1)).isInstanceOf(InvalidPageRequestException.class);
+    }
+}
@@ -3,6 +3,7 @@ package com.vg.mapper;
 import com.vg.dto.BorrowedBookViewDTO;
 import com.vg.model.Book;
 import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
@@ -27,4 +28,19 @@ class BorrowedBookMappersTest {
         assertThat(dto.author()).isEqualTo("Robert C. Martin");
         assertThat(dto.borrowedAt()).isEqualTo(borrowedAt);
     }
+
+    @Test
+    void shouldMapBorrowedBookDetailsToBorrowedBookViewDTO() {
+        UUID bookId = UUID.randomUUID();
+        LocalDateTime borrowedAt = LocalDateTime.now();
+        BorrowedBookDetails details = new BorrowedBookDetails(
+                UUID.randomUUID(), bookId, "Clean Code", "Robert C. Martin", borrowedAt, false);
+
+        BorrowedBookViewDTO dto = BorrowedBookMappers.borrowedBookDetailsToDto.apply(details);
+
+        assertThat(dto.bookId()).isEqualTo(bookId);
+        assertThat(dto.title()).isEqualTo("Clean Code");
+        assertThat(dto.author()).isEqualTo("Robert C. Martin");
+        assertThat(dto.borrowedAt()).isEqualTo(borrowedAt);
+    }
 }
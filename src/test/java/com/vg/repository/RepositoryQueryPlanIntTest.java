@@ -0,0 +1,182 @@
+package com.vg.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@code EXPLAIN} for every repository query against a catalog and ledger large enough for
+ * the planner to prefer an index wherever one applies, and fails when a query scans a table.
+ * Queries declared with {@link Query} are picked up automatically; derived and CRUD queries on hot
+ * paths are listed with the SQL Spring Data generates for them.
+ */
+@DataR2dbcTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RepositoryQueryPlanIntTest {
+
+    private static final int BOOKS = 20_000;
+    private static final int LOANS = 10_000;
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+    // Delta tables are always shown as a scan of the change result; the statement inside is what runs
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* (?:PUBLIC\\.[\\w.]+|table scan) \\*/");
+    private static final Pattern DELTA_TABLE = Pattern.compile("FROM (?:FINAL|OLD|NEW) TABLE \\((.*)\\)\\s*$", Pattern.DOTALL);
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeAll
+    void seedLargeDataset() {
+        clear();
+        databaseClient.sql("""
+                        INSERT INTO book (id, title, author, available, version)
+                        SELECT RANDOM_UUID(), CONCAT('Book ', X), CONCAT('Author ', MOD(X, 500)), X > :loans, 0
+                        FROM SYSTEM_RANGE(1, :books)
+                        """)
+                .bind("loans", LOANS)
+                .bind("books", BOOKS)
+                .then()
+                .block();
+        databaseClient.sql("""
+                        INSERT INTO borrowed_book (id, user_id, book_id, borrowed_at)
+                        SELECT RANDOM_UUID(), RANDOM_UUID(), id, CURRENT_TIMESTAMP FROM book WHERE available = FALSE
+                        """)
+                .then()
+                .block();
+        databaseClient.sql("ANALYZE").then().block();
+    }
+
+    @AfterAll
+    void clear() {
+        databaseClient.sql("DELETE FROM borrowed_book").then().block();
+        databaseClient.sql("DELETE FROM book").then().block();
+    }
+
+    static Stream<QueryCase> repositoryQueries() {
+        List<QueryCase> cases = new ArrayList<>();
+        for (Class<?> repository : List.of(BookRepository.class, BorrowedBookRepository.class)) {
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> method.isAnnotationPresent(Query.class))
+                    .map(RepositoryQueryPlanIntTest::declaredQuery)
+                    .forEach(cases::add);
+        }
+        UUID id = UUID.randomUUID();
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        cases.add(new QueryCase("BookRepository.findById",
+                "SELECT * FROM book WHERE id = :id", Map.of("id", id)));
+        cases.add(new QueryCase("BookRepository.findAllById",
+                "SELECT * FROM book WHERE id IN (:ids)", Map.of("ids", ids)));
+        cases.add(new QueryCase("BookRepository.findAllBy(Pageable)",
+                "SELECT * FROM book ORDER BY id LIMIT 10 OFFSET 100", Map.of()));
+        cases.add(new QueryCase("BorrowedBookRepository.findByUserId",
+                "SELECT * FROM borrowed_book WHERE user_id = :userId", Map.of("userId", id)));
+        cases.add(new QueryCase("BorrowedBookRepository.findByUserIdAndBookId",
+                "SELECT * FROM borrowed_book WHERE user_id = :userId AND book_id = :bookId",
+                Map.of("userId", id, "bookId", UUID.randomUUID())));
+        return cases.stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void queryUsesAnIndex(QueryCase query) {
+        String plan = explain(query);
+
+        assertThat(fullScans(plan))
+                .as("full scans in plan of %s:%n%s", query.name(), plan)
+                .isEmpty();
+    }
+
+    @Test
+    void allowOnlyOneActiveBorrowPerBook() {
+        UUID bookId = databaseClient.sql("SELECT book_id FROM borrowed_book LIMIT 1")
+                .map(row -> row.get(0, UUID.class))
+                .one()
+                .block();
+
+        StepVerifier.create(databaseClient.sql("""
+                                INSERT INTO borrowed_book (id, user_id, book_id, borrowed_at)
+                                VALUES (:id, :userId, :bookId, CURRENT_TIMESTAMP)
+                                """)
+                        .bind("id", UUID.randomUUID())
+                        .bind("userId", UUID.randomUUID())
+                        .bind("bookId", bookId)
+                        .then())
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    // H2 shows how each table is read as /* SCHEMA.INDEX: condition */. Without a condition the whole
+    // table or index is walked, which is only cheap when it is read in index order and cut off by a limit
+    private static List<String> fullScans(String plan) {
+        boolean orderedWithLimit = plan.contains("/* index sorted */") && plan.contains("ROWS ONLY");
+        return TABLE_ACCESS.matcher(plan).results()
+                .map(MatchResult::group)
+                .filter(access -> access.contains("tableScan") || access.contains("table scan") || !orderedWithLimit)
+                .toList();
+    }
+
+    private String explain(QueryCase query) {
+        String sql = query.sql().strip();
+        Matcher delta = DELTA_TABLE.matcher(sql);
+        if (delta.find()) {
+            sql = delta.group(1);
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("EXPLAIN " + sql);
+        for (Map.Entry<String, Object> parameter : query.parameters().entrySet()) {
+            if (NAMED_PARAMETER.matcher(sql).results().anyMatch(m -> m.group(1).equals(parameter.getKey()))) {
+                spec = spec.bind(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return String.join("\n", spec.map(row -> row.get(0, String.class)).all().collectList().block());
+    }
+
+    private static QueryCase declaredQuery(Method method) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (Parameter parameter : method.getParameters()) {
+            parameters.put(parameter.getName(), sampleValue(parameter.getType()));
+        }
+        return new QueryCase(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                method.getAnnotation(Query.class).value(), parameters);
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (type == UUID.class) return UUID.randomUUID();
+        if (Collection.class.isAssignableFrom(type)) return List.of(UUID.randomUUID(), UUID.randomUUID());
+        if (type == int.class || type == Integer.class) return 10;
+        if (type == LocalDateTime.class) return LocalDateTime.now();
+        throw new IllegalArgumentException("No sample value for query parameter of type " + type);
+    }
+
+    record QueryCase(String name, String sql, Map<String, Object> parameters) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
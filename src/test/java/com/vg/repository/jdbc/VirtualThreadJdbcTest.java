@@ -0,0 +1,101 @@
+package com.vg.repository.jdbc;
+
+import com.vg.config.JdbcProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadJdbcTest {
+
+    private VirtualThreadJdbc jdbc;
+    private TransactionalOperator transactionalOperator;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new VirtualThreadJdbc(new JdbcProperties(
+                "jdbc:h2:mem:jdbc-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", 2, Duration.ofMillis(200)));
+        transactionalOperator = TransactionalOperator.create(new JdbcTransactionManager(jdbc));
+        jdbc.update("CREATE TABLE item (id INT PRIMARY KEY)").block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.close();
+    }
+
+    @Test
+    void runStatementsOnVirtualThreads() {
+        StepVerifier.create(jdbc.execute(connection -> Thread.currentThread().isVirtual()))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void runTransactionOnOneConnectionAndRollBackOnError() {
+        Mono<Integer> insertsThenFails = jdbc.update("INSERT INTO item VALUES (1)")
+                .then(jdbc.queryForObject("SELECT COUNT(*) FROM item", resultSet -> resultSet.getInt(1)))
+                .flatMap(seen -> seen == 1
+                        ? Mono.error(new IllegalStateException("fail after insert"))
+                        : Mono.just(seen))
+                .as(transactionalOperator::transactional);
+
+        StepVerifier.create(insertsThenFails)
+                .expectErrorMessage("fail after insert")
+                .verify();
+
+        assertThat(count()).isZero();
+        assertThat(jdbc.activeConnections()).isZero();
+    }
+
+    @Test
+    void commitTransactionOnSuccess() {
+        StepVerifier.create(jdbc.update("INSERT INTO item VALUES (1)")
+                        .then(jdbc.update("INSERT INTO item VALUES (2)"))
+                        .as(transactionalOperator::transactional))
+                .expectNext(1)
+                .verifyComplete();
+
+        assertThat(count()).isEqualTo(2);
+        assertThat(jdbc.activeConnections()).isZero();
+    }
+
+    @Test
+    void translateDuplicateKeyLikeR2dbc() {
+        jdbc.update("INSERT INTO item VALUES (1)").block();
+
+        StepVerifier.create(jdbc.update("INSERT INTO item VALUES (1)"))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
+    @Test
+    void failWhenNoConnectionFreesUpInTime() throws Exception {
+        Connection first = jdbc.acquire();
+        Connection second = jdbc.acquire();
+        try {
+            StepVerifier.create(jdbc.update("INSERT INTO item VALUES (1)"))
+                    .expectError(DataAccessResourceFailureException.class)
+                    .verify();
+        } finally {
+            jdbc.release(first);
+            jdbc.release(second);
+        }
+
+        StepVerifier.create(jdbc.update("INSERT INTO item VALUES (1)")).expectNext(1).verifyComplete();
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM item", resultSet -> resultSet.getInt(1)).block();
+    }
+}
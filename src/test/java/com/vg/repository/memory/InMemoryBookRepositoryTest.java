@@ -0,0 +1,115 @@
+package com.vg.repository.memory;
+
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryBookRepositoryTest {
+
+    private final InMemoryBookRepository books = new InMemoryBookRepository();
+    private final InMemoryBorrowedBookRepository borrowed = new InMemoryBorrowedBookRepository(books);
+
+    @Test
+    void pagesFollowUnsignedIdOrderLikeTheDatabase() {
+        UUID low = UUID.fromString("7fffffff-0000-0000-0000-000000000000");
+        UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        books.insertAll(List.of(book(high), book(low))).block();
+
+        StepVerifier.create(books.findFirstPage(10).map(Book::getId))
+                .expectNext(low, high)
+                .verifyComplete();
+        StepVerifier.create(books.findPageAfter(low, 10).map(Book::getId))
+                .expectNext(high)
+                .verifyComplete();
+    }
+
+    @Test
+    void concurrentBorrowsChangeTheBookOnce() {
+        UUID id = UUID.randomUUID();
+        books.save(book(id)).block();
+
+        Long changed = Flux.range(0, 64)
+                .flatMap(i -> books.markBorrowed(id).subscribeOn(Schedulers.parallel()))
+                .count()
+                .block();
+
+        assertThat(changed).isEqualTo(1L);
+        StepVerifier.create(books.findById(id))
+                .expectNextMatches(book -> !book.isAvailable() && book.getVersion() == 1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void returnedBooksAreCopies() {
+        UUID id = UUID.randomUUID();
+        books.save(book(id)).block();
+
+        books.findById(id).block().setAvailable(false);
+
+        assertThat(books.findById(id).block().isAvailable()).isTrue();
+    }
+
+    @Test
+    void bookCanOnlyHaveOneBorrowRecord() {
+        UUID id = UUID.randomUUID();
+        books.save(book(id)).block();
+        borrowed.save(new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), id, LocalDateTime.now())).block();
+
+        StepVerifier.create(borrowed.save(new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), id, LocalDateTime.now())))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+        assertThat(borrowed.count().block()).isEqualTo(1L);
+    }
+
+    @Test
+    void pagesFollowTheRequestedSortWithIdBreakingTies() {
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID high = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        UUID other = UUID.randomUUID();
+        books.insertAll(List.of(
+                new Book(high, "Same", "Author", true, null),
+                new Book(other, "Zebra", "Author", true, null),
+                new Book(low, "Same", "Author", true, null))).block();
+
+        StepVerifier.create(books.findAllBy(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "title"))).map(Book::getId))
+                .expectNext(other, low)
+                .verifyComplete();
+        StepVerifier.create(books.findAll(Sort.by("title")).map(Book::getId))
+                .expectNext(low, high, other)
+                .verifyComplete();
+    }
+
+    @Test
+    void unsupportedQueriesFailWhenSubscribed() {
+        Flux<Book> unknownProperty = books.findAll(Sort.by("isbn"));
+        Flux<Book> byExample = books.findAll(Example.of(book(UUID.randomUUID())));
+
+        StepVerifier.create(unknownProperty)
+                .expectError(InvalidDataAccessApiUsageException.class)
+                .verify();
+        StepVerifier.create(byExample)
+                .expectError(InvalidDataAccessApiUsageException.class)
+                .verify();
+        StepVerifier.create(books.findBy(Example.of(book(UUID.randomUUID())), query -> query.sortBy(Sort.by("title")).all()))
+                .expectError(InvalidDataAccessApiUsageException.class)
+                .verify();
+    }
+
+    private static Book book(UUID id) {
+        return new Book(id, "Title", "Author", true, null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.vg.search;
+
+import com.vg.config.BookSearchProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private BookRepository bookRepository;
+    private BookSearchIndex searchIndex;
+
+    private final Book cleanCode = book("Clean Code", "Robert C. Martin");
+    private final Book cleanArchitecture = book("Clean Architecture", "Robert C. Martin");
+    private final Book refactoring = book("Refactoring", "Martin Fowler");
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        searchIndex = new BookSearchIndex(bookRepository, new BookSearchProperties(1000, 10));
+        searchIndex.index(cleanCode);
+        searchIndex.index(cleanArchitecture);
+        searchIndex.index(refactoring);
+    }
+
+    @Test
+    void requireEveryQueryWord() {
+        assertThat(searchIndex.search("clean code", 0, 10)).containsExactly(cleanCode.getId());
+        assertThat(searchIndex.search("clean fowler", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void rankTitleMatchesAboveAuthorMatches() {
+        Book byCode = book("Working Effectively", "Code Smith");
+
+        searchIndex.index(byCode);
+
+        assertThat(searchIndex.search("code", 0, 10)).containsExactly(cleanCode.getId(), byCode.getId());
+    }
+
+    @Test
+    void matchLastWordAsPrefix() {
+        assertThat(searchIndex.search("refac", 0, 10)).containsExactly(refactoring.getId());
+        assertThat(searchIndex.search("refac clean", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void ignoreCaseAndAccents() {
+        Book book = book("Les Misérables", "Victor Hugo");
+        searchIndex.index(book);
+
+        assertThat(searchIndex.search("MISERABLES", 0, 10)).containsExactly(book.getId());
+    }
+
+    @Test
+    void pageThroughRankedResults() {
+        assertThat(searchIndex.search("martin", 0, 2)).hasSize(2);
+        assertThat(searchIndex.search("martin", 2, 2)).hasSize(1);
+        assertThat(searchIndex.search("martin", 0, 3))
+                .startsWith(searchIndex.search("martin", 0, 2).toArray(UUID[]::new));
+    }
+
+    @Test
+    void returnNothingForBlankQuery() {
+        assertThat(searchIndex.search("  ", 0, 10)).isEmpty();
+        assertThat(searchIndex.search("--", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void skipBooksBeyondPostingBudget() {
+        BookSearchIndex small = new BookSearchIndex(bookRepository, new BookSearchProperties(4, 10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        small.bindTo(registry);
+
+        assertThat(small.index(book("Clean Code", "Martin"))).isTrue();
+        assertThat(small.index(book("Clean Architecture", "Martin"))).isFalse();
+
+        assertThat(small.search("architecture", 0, 10)).isEmpty();
+        assertThat(registry.get("library.search.postings").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("library.search.skipped").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void becomeReadyOnceStoredBooksAreIndexed() {
+        when(bookRepository.findAll()).thenReturn(Flux.just(book("Domain-Driven Design", "Eric Evans")));
+
+        assertThat(searchIndex.ready()).isFalse();
+        searchIndex.buildOnStartup();
+
+        assertThat(searchIndex.ready()).isTrue();
+        assertThat(searchIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    void stayNotReadyWhenStartupScanFails() {
+        when(bookRepository.findAll()).thenReturn(Flux.error(new IllegalStateException("database down")));
+
+        searchIndex.buildOnStartup();
+
+        assertThat(searchIndex.ready()).isFalse();
+    }
+
+    @Test
+    void rebuildFromRepositoryWithoutDuplicates() {
+        Book stored = book("Domain-Driven Design", "Eric Evans");
+        when(bookRepository.findAll()).thenReturn(Flux.just(cleanCode, stored));
+
+        assertThat(searchIndex.rebuild().block()).isEqualTo(1);
+        assertThat(searchIndex.size()).isEqualTo(4);
+        assertThat(searchIndex.search("domain driven", 0, 10)).containsExactly(stored.getId());
+    }
+
+    private static Book book(String title, String author) {
+        return new Book(UUID.randomUUID(), title, author, true, 0L);
+    }
+}
@@ -0,0 +1,303 @@
+package com.vg.service;
+
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.exception.BookNotFoundException;
+import com.vg.exception.BookUnavailableException;
+import com.vg.model.Book;
+import com.vg.model.BookBatchResult;
+import com.vg.model.BookBatchResult.Status;
+import com.vg.model.BorrowedBook;
+import com.vg.repository.BookRepository;
+import com.vg.repository.BorrowedBookRepository;
+import com.vg.journal.BorrowJournal;
+import com.vg.journal.BorrowJournalReplay;
+import com.vg.journal.JournalEntry;
+import com.vg.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Service behaviour that must hold whichever persistence engine backs the repositories.
+ * Subclasses supply the engine and add checks specific to it.
+ */
+abstract class AbstractLibraryServiceIntTest {
+    @Autowired
+    protected BookRepository bookRepository;
+
+    @Autowired
+    protected BorrowedBookRepository borrowedBookRepository;
+
+    @Autowired
+    protected LibraryService libraryService;
+
+    @Autowired
+    protected BookSearchIndex searchIndex;
+
+    @Autowired
+    protected TransactionalOperator transactionalOperator;
+
+    @Autowired
+    protected BookCache bookCache;
+
+    @Autowired
+    protected CatalogVersions versions;
+
+    protected final UUID user1 = UUID.randomUUID();
+    protected final UUID user2 = UUID.randomUUID();
+    protected final UUID bookId = UUID.randomUUID();
+
+    protected Book book;
+
+    @BeforeEach
+    public void setup() {
+        book = new Book(bookId, "Concurrent Book", "Author", true, null);
+        bookRepository.deleteAll()
+                .then(borrowedBookRepository.deleteAll())
+                .then(bookRepository.save(book))
+                .block();
+    }
+
+    @Test
+    void throwErrorborrowDueToConcurrency() {
+        Mono<Book> firstBorrow = libraryService.borrowBook(bookId, user1).cache(); // caching first result
+        Mono<Book> secondBorrow = libraryService.borrowBook(bookId, user2);
+
+        StepVerifier.create(firstBorrow)
+                .expectNextMatches(b -> !b.isAvailable() && b.getId().equals(bookId))
+                .verifyComplete();
+
+        StepVerifier.create(secondBorrow)
+                .expectErrorMatches(error -> error instanceof BookUnavailableException
+                        && "Book is already borrowed.".equals(error.getMessage()))
+                .verify();
+    }
+
+    @Test
+    void borrowAndReturnKeepBookAndLedgerInSync() {
+        StepVerifier.create(libraryService.borrowBook(bookId, user1))
+                .expectNextMatches(b -> !b.isAvailable() && b.getVersion() == 1L)
+                .verifyComplete();
+        assertThat(borrowedBookRepository.findByUserIdAndBookId(user1, bookId).collectList().block()).hasSize(1);
+
+        StepVerifier.create(libraryService.returnBook(bookId, user2))
+                .expectError(BookUnavailableException.class)
+                .verify();
+        assertThat(borrowedBookRepository.findByUserIdAndBookId(user1, bookId).collectList().block()).hasSize(1);
+
+        StepVerifier.create(libraryService.returnBook(bookId, user1))
+                .expectNextMatches(b -> b.isAvailable() && b.getVersion() == 2L)
+                .verifyComplete();
+        assertThat(borrowedBookRepository.count().block()).isZero();
+        assertThat(bookRepository.findById(bookId).block().isAvailable()).isTrue();
+    }
+
+    @Test
+    void concurrentBorrowsLetExactlyOneUserWin() {
+        List<UUID> users = IntStream.range(0, 16).mapToObj(i -> UUID.randomUUID()).toList();
+
+        Long successes = Flux.fromIterable(users)
+                .flatMap(user -> libraryService.borrowBook(bookId, user)
+                        .subscribeOn(Schedulers.parallel())
+                        .map(b -> 1L)
+                        .onErrorResume(BookUnavailableException.class, ex -> Mono.just(0L)))
+                .reduce(0L, Long::sum)
+                .block();
+
+        assertThat(successes).isEqualTo(1L);
+        assertThat(borrowedBookRepository.count().block()).isEqualTo(1L);
+        assertThat(bookRepository.findById(bookId).block().isAvailable()).isFalse();
+    }
+
+    @Test
+    void searchFindsStoredAndAddedBooksWithCurrentAvailability() {
+        searchIndex.rebuild().block();
+        Book added = libraryService.addBook(new Book(null, "Concurrency in Practice", "Goetz", true, null)).block();
+        libraryService.borrowBook(bookId, user1).block();
+
+        StepVerifier.create(libraryService.searchBooks("concurrent", 0, 10))
+                .expectNextMatches(b -> b.getId().equals(bookId) && !b.isAvailable())
+                .verifyComplete();
+        StepVerifier.create(libraryService.searchBooks("concurren", 0, 10).collectList())
+                .assertNext(books -> assertThat(books)
+                        .extracting(Book::getId)
+                        .containsExactlyInAnyOrder(bookId, added.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void borrowAndReturnWorkAfterJournalReplay() {
+        Book stale = bookRepository.save(new Book(UUID.randomUUID(), "Stale", "Author", false, null)).block();
+        // Caches the book as available
+        assertThat(libraryService.findBook(bookId).block().isAvailable()).isTrue();
+        BorrowJournal journal = mock(BorrowJournal.class);
+        when(journal.entries()).thenReturn(Flux.just(JournalEntry.borrowed(user1, bookId, Instant.now())));
+        BorrowJournalReplay replay = new BorrowJournalReplay(journal, bookRepository, borrowedBookRepository,
+                transactionalOperator, bookCache, versions);
+
+        StepVerifier.create(replay.rebuildBorrowedBooks())
+                .expectNext(1L)
+                .verifyComplete();
+
+        StepVerifier.create(libraryService.findBook(bookId))
+                .expectNextMatches(b -> !b.isAvailable())
+                .verifyComplete();
+        StepVerifier.create(libraryService.returnBook(bookId, user1))
+                .expectNextMatches(Book::isAvailable)
+                .verifyComplete();
+        StepVerifier.create(libraryService.borrowBook(stale.getId(), user2))
+                .expectNextMatches(b -> !b.isAvailable())
+                .verifyComplete();
+        assertThat(borrowedBookRepository.findAll().map(BorrowedBook::getBookId).collectList().block())
+                .containsExactly(stale.getId());
+    }
+
+    @Test
+    void borrowUnknownBookFailsWithNotFound() {
+        StepVerifier.create(libraryService.borrowBook(UUID.randomUUID(), user1))
+                .expectError(BookNotFoundException.class)
+                .verify();
+        assertThat(borrowedBookRepository.count().block()).isZero();
+    }
+
+    @Test
+    void returnSeveralBooksAndReportThoseWithoutRecord() {
+        Book second = bookRepository.save(new Book(UUID.randomUUID(), "Second", "Author", true, null)).block();
+        libraryService.borrowBooks(List.of(bookId, second.getId()), user1).blockLast();
+
+        List<BookBatchResult> results = libraryService.returnBooks(List.of(bookId, second.getId()), user2)
+                .collectList()
+                .block();
+        assertThat(results).extracting(BookBatchResult::message)
+                .containsOnly("No borrow record found.");
+
+        results = libraryService.returnBooks(List.of(second.getId(), bookId, bookId), user1).collectList().block();
+
+        assertThat(results).extracting(BookBatchResult::status).containsExactly(Status.OK, Status.OK);
+        assertThat(results).allMatch(result -> result.book().isAvailable());
+        assertThat(borrowedBookRepository.count().block()).isZero();
+    }
+
+    @Test
+    void failedBorrowRollsBackTheBookChange() {
+        // A stale record from another user makes the insert hit the one-loan-per-book index
+        borrowedBookRepository.save(new BorrowedBook(UUID.randomUUID(), user2, bookId, LocalDateTime.now())).block();
+
+        StepVerifier.create(libraryService.borrowBook(bookId, user1))
+                .expectError()
+                .verify();
+
+        Book stored = bookRepository.findById(bookId).block();
+        assertThat(stored.isAvailable()).isTrue();
+        assertThat(stored.getVersion()).isZero();
+        assertThat(borrowedBookRepository.findByUserId(user1).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void failedBatchReturnRollsBackEveryChange() {
+        Book second = bookRepository.save(new Book(UUID.randomUUID(), "Second", "Author", true, null)).block();
+        libraryService.borrowBook(bookId, user1).block();
+        // A record for a book that is still available: the ledger is out of sync
+        borrowedBookRepository.save(new BorrowedBook(UUID.randomUUID(), user1, second.getId(), LocalDateTime.now())).block();
+
+        StepVerifier.create(libraryService.returnBooks(List.of(bookId, second.getId()), user1))
+                .expectError(BookUnavailableException.class)
+                .verify();
+
+        Book stored = bookRepository.findById(bookId).block();
+        assertThat(stored.isAvailable()).isFalse();
+        assertThat(stored.getVersion()).isEqualTo(1L);
+        assertThat(borrowedBookRepository.findByUserId(user1).map(BorrowedBook::getBookId).collectList().block())
+                .containsExactlyInAnyOrder(bookId, second.getId());
+    }
+
+    @Test
+    void cursorPagesVisitEveryBookOnceInIdOrder() {
+        List<Book> books = IntStream.range(0, 5)
+                .mapToObj(i -> new Book(UUID.randomUUID(), "Book " + i, "Author", true, null))
+                .toList();
+        bookRepository.saveAll(books).blockLast();
+
+        List<UUID> firstPage = libraryService.findBooksAfter(null, 3).map(Book::getId).collectList().block();
+        List<UUID> secondPage = libraryService.findBooksAfter(firstPage.get(2), 3).map(Book::getId).collectList().block();
+
+        List<UUID> visited = new ArrayList<>(firstPage);
+        visited.addAll(secondPage);
+        List<UUID> expected = bookRepository.findFirstPage(100).map(Book::getId).collectList().block();
+
+        assertThat(secondPage).hasSize(3);
+        assertThat(visited).doesNotHaveDuplicates().hasSize(6).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void optimisticLockingDirectlyTest() {
+        Book book = new Book(bookId, "Title", "Author", true, 0L);
+        bookRepository.save(book).block();
+
+        // Simulate concurrent reads
+        Book first = bookRepository.findById(bookId).block();
+        Book second = bookRepository.findById(bookId).block();
+
+        // First update
+        first.setAvailable(false);
+        bookRepository.save(first).block();
+
+        // Second update → version conflict
+        second.setAvailable(false);
+        StepVerifier.create(bookRepository.save(second))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void borrowSeveralBooksReportsEachInRequestOrder() {
+        Book second = bookRepository.save(new Book(UUID.randomUUID(), "Second", "Author", true, null)).block();
+        Book taken = bookRepository.save(new Book(UUID.randomUUID(), "Taken", "Author", false, null)).block();
+        UUID unknown = UUID.randomUUID();
+
+        List<BookBatchResult> results = libraryService
+                .borrowBooks(List.of(bookId, taken.getId(), unknown, second.getId(), bookId), user1)
+                .collectList()
+                .block();
+
+        assertThat(results).extracting(BookBatchResult::bookId)
+                .containsExactly(bookId, taken.getId(), unknown, second.getId());
+        assertThat(results).extracting(BookBatchResult::status)
+                .containsExactly(Status.OK, Status.UNAVAILABLE, Status.NOT_FOUND, Status.OK);
+        assertThat(results.get(1).message()).isEqualTo("Book is already borrowed.");
+        assertThat(borrowedBookRepository.findByUserId(user1).map(BorrowedBook::getBookId).collectList().block())
+                .containsExactlyInAnyOrder(bookId, second.getId());
+        assertThat(bookRepository.findById(second.getId()).block().isAvailable()).isFalse();
+    }
+
+    @Test
+    void borrowedBooksLeaveOutOrphanedRecords() {
+        libraryService.borrowBook(bookId, user1).block();
+        borrowedBookRepository.save(new BorrowedBook(UUID.randomUUID(), user1, UUID.randomUUID(), LocalDateTime.now()))
+                .block();
+
+        StepVerifier.create(libraryService.findBorrowedBooksByUser(user1))
+                .expectNextMatches(details -> details.bookId().equals(bookId) && "Concurrent Book".equals(details.title()))
+                .verifyComplete();
+        StepVerifier.create(libraryService.findBorrowedBooksByUser(user2))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,73 @@
+package com.vg.service;
+
+import com.vg.config.ExportProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.support.StatementCountingConfiguration;
+import com.vg.support.StatementCountingConfiguration.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({CatalogExportService.class, StatementCountingConfiguration.class})
+@EnableConfigurationProperties(ExportProperties.class)
+@TestPropertySource(properties = "library.export.batch-size=100")
+public class CatalogExportServiceIntTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setup() {
+        bookRepository.deleteAll().block();
+        bookRepository.insertAll(Flux.range(0, 250)
+                .map(i -> new Book(UUID.randomUUID(), "Book " + i, "Author", true, 0L))
+                .collectList()
+                .block()).block();
+    }
+
+    @Test
+    void exportEveryBookInIdOrderWithOneQueryPerBatch() {
+        statementCounter.reset();
+        List<UUID> exported = catalogExportService.export(null).map(Book::getId).collectList().block();
+
+        // H2 orders UUIDs like their canonical text, not like UUID.compareTo
+        assertThat(exported).hasSize(250).isSortedAccordingTo(Comparator.comparing(UUID::toString));
+        assertThat(statementCounter.count()).isEqualTo(3);
+    }
+
+    @Test
+    void resumeAfterCheckpoint() {
+        List<UUID> all = catalogExportService.export(null).map(Book::getId).collectList().block();
+
+        List<UUID> resumed = catalogExportService.export(all.get(149)).map(Book::getId).collectList().block();
+
+        assertThat(resumed).isEqualTo(all.subList(150, 250));
+    }
+
+    @Test
+    void readOnlyAsFarAsTheClientHasAsked() {
+        statementCounter.reset();
+        catalogExportService.export(null).take(50, true).blockLast();
+
+        assertThat(statementCounter.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.vg.service;
+
+import com.vg.config.ExportProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class CatalogExportServiceTest {
+
+    private BookRepository bookRepository;
+    private CatalogExportService catalogExportService;
+
+    private final Book first = book();
+    private final Book second = book();
+    private final Book third = book();
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        catalogExportService = new CatalogExportService(bookRepository, new ExportProperties(2));
+    }
+
+    @Test
+    void followKeysetFromBatchToBatch() {
+        when(bookRepository.findFirstPage(2)).thenReturn(Flux.just(first, second));
+        when(bookRepository.findPageAfter(second.getId(), 2)).thenReturn(Flux.just(third));
+
+        StepVerifier.create(catalogExportService.export(null))
+                .expectNext(first, second, third)
+                .verifyComplete();
+
+        verify(bookRepository, times(1)).findPageAfter(any(), anyInt());
+    }
+
+    @Test
+    void stopAfterFullBatchFollowedByEmptyOne() {
+        when(bookRepository.findPageAfter(first.getId(), 2)).thenReturn(Flux.just(second, third));
+        when(bookRepository.findPageAfter(third.getId(), 2)).thenReturn(Flux.empty());
+
+        StepVerifier.create(catalogExportService.export(first.getId()))
+                .expectNext(second, third)
+                .verifyComplete();
+
+        verify(bookRepository, never()).findFirstPage(anyInt());
+    }
+
+    @Test
+    void readAtMostOneBatchAheadOfTheClient() {
+        Book fourth = book();
+        Book fifth = book();
+        when(bookRepository.findFirstPage(2)).thenReturn(Flux.just(first, second));
+        when(bookRepository.findPageAfter(second.getId(), 2)).thenReturn(Flux.just(third, fourth));
+        when(bookRepository.findPageAfter(fourth.getId(), 2)).thenReturn(Flux.just(fifth));
+
+        StepVerifier.create(catalogExportService.export(null), 1)
+                .expectNext(first)
+                .then(() -> verify(bookRepository, never()).findPageAfter(fourth.getId(), 2))
+                .thenRequest(4)
+                .expectNext(second, third, fourth, fifth)
+                .verifyComplete();
+    }
+
+    private static Book book() {
+        return new Book(UUID.randomUUID(), "Title", "Author", true, 0L);
+    }
+}
@@ -0,0 +1,66 @@
+package com.vg.service;
+
+import com.vg.cache.CatalogVersions;
+import com.vg.config.BookSearchProperties;
+import com.vg.config.ETagProperties;
+import com.vg.config.IngestProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.search.BookSearchIndex;
+import com.vg.support.StatementCountingConfiguration.StatementCounter;
+import com.vg.support.StatementCountingConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({CatalogVersions.class, CatalogIngestService.class, BookSearchIndex.class, StatementCountingConfiguration.class})
+@EnableConfigurationProperties({ETagProperties.class, IngestProperties.class, BookSearchProperties.class})
+@TestPropertySource(properties = "library.ingest.chunk-size=500")
+public class CatalogIngestServiceIntTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogIngestService catalogIngestService;
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setup() {
+        bookRepository.deleteAll().block();
+    }
+
+    @Test
+    void ingestWritesOneMultiRowInsertPerChunk() {
+        Flux<Book> books = Flux.range(0, 1200)
+                .map(i -> new Book(null, "Book " + i, "Author " + i, true, null));
+
+        statementCounter.reset();
+        StepVerifier.create(catalogIngestService.ingest(books))
+                .expectNextMatches(p -> p.inserted() == 500)
+                .expectNextMatches(p -> p.inserted() == 500)
+                .expectNextMatches(p -> p.inserted() == 200 && p.totalInserted() == 1200 && p.totalFailed() == 0)
+                .verifyComplete();
+
+        assertThat(statementCounter.count()).isEqualTo(3);
+        assertThat(bookRepository.count().block()).isEqualTo(1200);
+        assertThat(bookRepository.findFirstPage(1).blockFirst().getVersion()).isZero();
+        assertThat(searchIndex.search("book 1199", 0, 10))
+                .singleElement()
+                .satisfies(id -> assertThat(bookRepository.findById(id).block().getTitle()).isEqualTo("Book 1199"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.vg.service;
+
+import com.vg.cache.CatalogVersions;
+import com.vg.cache.CatalogVersions;
+import com.vg.config.BookSearchProperties;
+import com.vg.config.ETagProperties;
+import com.vg.config.ETagProperties;
+import com.vg.config.IngestProperties;
+import com.vg.model.Book;
+import com.vg.repository.BookRepository;
+import com.vg.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CatalogIngestServiceTest {
+
+    private BookRepository bookRepository;
+    private BookSearchIndex searchIndex;
+    private CatalogIngestService catalogIngestService;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        searchIndex = new BookSearchIndex(bookRepository, new BookSearchProperties(1000, 10));
+        catalogIngestService = new CatalogIngestService(bookRepository, searchIndex,
+                new CatalogVersions(new ETagProperties(true, 100)), new IngestProperties(2));
+    }
+
+    @Test
+    void ingestBooksInChunks() {
+        when(bookRepository.insertAll(anyList()))
+                .thenAnswer(invocation -> Mono.just((long) invocation.<List<Book>>getArgument(0).size()));
+
+        StepVerifier.create(catalogIngestService.ingest(books(5)))
+                .expectNextMatches(p -> p.chunk() == 1 && p.inserted() == 2 && p.totalInserted() == 2)
+                .expectNextMatches(p -> p.chunk() == 2 && p.inserted() == 2 && p.totalInserted() == 4)
+                .expectNextMatches(p -> p.chunk() == 3 && p.inserted() == 1 && p.totalInserted() == 5 && p.error() == null)
+                .verifyComplete();
+
+        verify(bookRepository, times(3)).insertAll(anyList());
+    }
+
+    @Test
+    void assignFreshIdentityToIngestedBooks() {
+        Book book = new Book(null, "Title", "Author", false, 7L);
+        when(bookRepository.insertAll(anyList())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(catalogIngestService.ingest(Flux.just(book)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(book.getId()).isNotNull();
+        assertThat(book.isAvailable()).isTrue();
+        assertThat(book.getVersion()).isZero();
+    }
+
+    @Test
+    void rejectBooksWithoutTitleOrAuthor() {
+        when(bookRepository.insertAll(anyList()))
+                .thenAnswer(invocation -> Mono.just((long) invocation.<List<Book>>getArgument(0).size()));
+
+        Flux<Book> books = Flux.just(
+                new Book(null, "Title", "Author", true, null),
+                new Book(null, " ", "Author", true, null));
+
+        StepVerifier.create(catalogIngestService.ingest(books))
+                .expectNextMatches(p -> p.inserted() == 1 && p.failed() == 1 && p.error() != null)
+                .verifyComplete();
+    }
+
+    @Test
+    void indexOnlyStoredBooksForSearch() {
+        when(bookRepository.insertAll(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("constraint violated")))
+                .thenReturn(Mono.just(1L));
+
+        Flux<Book> books = Flux.just(
+                new Book(null, "Lost Book", "Author", true, null),
+                new Book(null, "Lost Cause", "Author", true, null),
+                new Book(null, "Stored Book", "Author", true, null));
+
+        StepVerifier.create(catalogIngestService.ingest(books))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertThat(searchIndex.search("lost", 0, 10)).isEmpty();
+        assertThat(searchIndex.search("stored", 0, 10)).hasSize(1);
+    }
+
+    @Test
+    void reportFailedChunkAndContinue() {
+        when(bookRepository.insertAll(anyList()))
+                .thenReturn(Mono.error(new IllegalStateException("constraint violated")))
+                .thenReturn(Mono.just(2L));
+
+        StepVerifier.create(catalogIngestService.ingest(books(4)))
+                .expectNextMatches(p -> p.inserted() == 0 && p.failed() == 2 && "constraint violated".equals(p.error()))
+                .expectNextMatches(p -> p.inserted() == 2 && p.totalInserted() == 2 && p.totalFailed() == 2)
+                .verifyComplete();
+    }
+
+    private Flux<Book> books(int count) {
+        return Flux.range(0, count)
+                .map(i -> new Book(UUID.randomUUID(), "Book " + i, "Author", true, null));
+    }
+}
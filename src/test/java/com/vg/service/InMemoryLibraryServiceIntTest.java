@@ -0,0 +1,20 @@
+package com.vg.service;
+
+import com.vg.repository.memory.InMemoryBookRepository;
+import com.vg.repository.memory.InMemoryBorrowedBookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("in-memory")
+public class InMemoryLibraryServiceIntTest extends AbstractLibraryServiceIntTest {
+
+    @Test
+    void runsOnInMemoryRepositories() {
+        assertThat(bookRepository).isInstanceOf(InMemoryBookRepository.class);
+        assertThat(borrowedBookRepository).isInstanceOf(InMemoryBorrowedBookRepository.class);
+    }
+}
@@ -0,0 +1,58 @@
+package com.vg.service;
+
+import com.vg.exception.BookUnavailableException;
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.repository.jdbc.JdbcBookRepository;
+import com.vg.repository.jdbc.JdbcBorrowedBookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("jdbc")
+public class JdbcLibraryServiceIntTest extends AbstractLibraryServiceIntTest {
+
+    @Test
+    void runsOnJdbcRepositories() {
+        assertThat(bookRepository).isInstanceOf(JdbcBookRepository.class);
+        assertThat(borrowedBookRepository).isInstanceOf(JdbcBorrowedBookRepository.class);
+    }
+
+    @Test
+    void failedBatchReturnRollsBackDeletedRecords() {
+        borrowedBookRepository.save(new BorrowedBook(UUID.randomUUID(), user1, bookId, LocalDateTime.now())).block();
+
+        StepVerifier.create(libraryService.returnBooks(List.of(bookId), user1))
+                .expectError(BookUnavailableException.class)
+                .verify();
+
+        assertThat(borrowedBookRepository.count().block()).isEqualTo(1);
+    }
+
+    @Test
+    void unsupportedQueriesFailWhenSubscribed() {
+        Flux<Book> unknownProperty = bookRepository.findAllBy(PageRequest.of(0, 10, Sort.by("isbn")));
+        Mono<Long> byExample = bookRepository.count(Example.of(book));
+
+        StepVerifier.create(unknownProperty)
+                .expectError(InvalidDataAccessApiUsageException.class)
+                .verify();
+        StepVerifier.create(byExample)
+                .expectError(InvalidDataAccessApiUsageException.class)
+                .verify();
+    }
+}
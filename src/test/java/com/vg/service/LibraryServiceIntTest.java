@@ -1,84 +1,103 @@
 package com.vg.service;
 
-import com.vg.exception.BookConcurrencyException;
-import com.vg.exception.BookUnavailableException;
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.cache.ReadCoalescer;
+import com.vg.command.DirectBookCommandExecutor;
+import com.vg.config.BookCacheProperties;
+import com.vg.config.BookSearchProperties;
+import com.vg.config.ETagProperties;
+import com.vg.config.FeedProperties;
+import com.vg.feed.BookAvailabilityFeed;
+import com.vg.journal.NoOpBorrowJournal;
 import com.vg.model.Book;
-import com.vg.repository.BookRepository;
-import com.vg.repository.BorrowedBookRepository;
-import org.junit.jupiter.api.BeforeEach;
+import com.vg.model.BookBatchResult.Status;
+import com.vg.model.BookBatchResult;
+import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
+import com.vg.search.BookSearchIndex;
+import com.vg.support.StatementCountingConfiguration.StatementCounter;
+import com.vg.support.StatementCountingConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.context.annotation.Import;
-import org.springframework.dao.OptimisticLockingFailureException;
-import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
-@DataR2dbcTest
-@Import(LibraryService.class)
-public class LibraryServiceIntTest {
-    @Autowired
-    private BookRepository bookRepository;
-
-    @Autowired
-    private BorrowedBookRepository borrowedBookRepository;
+import static org.assertj.core.api.Assertions.assertThat;
 
+@DataR2dbcTest
+@Import({CatalogVersions.class, LibraryService.class, DirectBookCommandExecutor.class, BookCache.class, ReadCoalescer.class, BookSearchIndex.class,
+        BookAvailabilityFeed.class, NoOpBorrowJournal.class, LibraryServiceMetrics.class, SimpleMeterRegistry.class,
+        StatementCountingConfiguration.class})
+@EnableConfigurationProperties({ETagProperties.class, BookCacheProperties.class, BookSearchProperties.class, FeedProperties.class})
+public class LibraryServiceIntTest extends AbstractLibraryServiceIntTest {
     @Autowired
-    private LibraryService libraryService;
+    private StatementCounter statementCounter;
 
-    private final UUID user1 = UUID.randomUUID();
-    private final UUID user2 = UUID.randomUUID();
-    private final UUID bookId = UUID.randomUUID();
+    @Test
+    void findBookReadsDatabaseOnceAndReflectsBorrow() {
+        statementCounter.reset();
+        libraryService.findBook(bookId).block();
+        libraryService.findBook(bookId).block();
+        assertThat(statementCounter.count()).isEqualTo(1);
 
-    private Book book;
+        libraryService.borrowBook(bookId, user1).block();
 
-    @BeforeEach
-    public void setup() {
-        book = new Book(bookId, "Concurrent Book", "Author", true, null);
-        bookRepository.deleteAll()
-                .then(borrowedBookRepository.deleteAll())
-                .then(bookRepository.save(book))
-                .block();
+        StepVerifier.create(libraryService.findBook(bookId))
+                .expectNextMatches(b -> !b.isAvailable())
+                .verifyComplete();
     }
 
     @Test
-    void throwErrorborrowDueToConcurrency() {
-        Mono<Book> firstBorrow = libraryService.borrowBook(bookId, user1).cache(); // caching first result
-        Mono<Book> secondBorrow = libraryService.borrowBook(bookId, user2);
+    void borrowSeveralBooksWithSetBasedStatementsAndReportEach() {
+        Book second = bookRepository.save(new Book(UUID.randomUUID(), "Second", "Author", true, null)).block();
+        Book taken = bookRepository.save(new Book(UUID.randomUUID(), "Taken", "Author", false, null)).block();
+        UUID unknown = UUID.randomUUID();
 
-        StepVerifier.create(firstBorrow)
-                .expectNextMatches(b -> !b.isAvailable() && b.getId().equals(bookId))
-                .verifyComplete();
+        statementCounter.reset();
+        List<BookBatchResult> results = libraryService
+                .borrowBooks(List.of(bookId, taken.getId(), unknown, second.getId()), user1)
+                .collectList()
+                .block();
 
-        StepVerifier.create(secondBorrow)
-                .expectErrorMatches(error ->
-                        (error instanceof BookUnavailableException &&
-                                "Book is already borrowed.".equals(error.getMessage())) ||
-                                (error instanceof BookConcurrencyException &&
-                                        "Book was just borrowed by another user.".equals(error.getMessage()))
-                )
-                .verify();
+        assertThat(results).extracting(BookBatchResult::bookId)
+                .containsExactly(bookId, taken.getId(), unknown, second.getId());
+        assertThat(results).extracting(BookBatchResult::status)
+                .containsExactly(Status.OK, Status.UNAVAILABLE, Status.NOT_FOUND, Status.OK);
+        assertThat(results.get(1).message()).isEqualTo("Book is already borrowed.");
+        // update, insert of borrow records, lookup of the two failures
+        assertThat(statementCounter.count()).isEqualTo(3);
+        assertThat(borrowedBookRepository.findByUserId(user1).map(BorrowedBook::getBookId).collectList().block())
+                .containsExactlyInAnyOrder(bookId, second.getId());
+        assertThat(bookRepository.findById(second.getId()).block().isAvailable()).isFalse();
     }
 
     @Test
-    void optimisticLockingDirectlyTest() {
-        Book book = new Book(bookId, "Title", "Author", true, 0L);
-        bookRepository.save(book).block();
-
-        // Simulate concurrent reads
-        Book first = bookRepository.findById(bookId).block();
-        Book second = bookRepository.findById(bookId).block();
+    void borrowedBooksLookupRunsOneStatementRegardlessOfLoanCount() {
+        List<Book> books = IntStream.range(0, 50)
+                .mapToObj(i -> new Book(UUID.randomUUID(), "Book " + i, "Author", false, null))
+                .toList();
+        bookRepository.saveAll(books).blockLast();
+        borrowedBookRepository.saveAll(books.stream()
+                        .map(b -> new BorrowedBook(UUID.randomUUID(), user1, b.getId(), LocalDateTime.now()))
+                        .toList())
+                .blockLast();
+        borrowedBookRepository.save(new BorrowedBook(UUID.randomUUID(), user1, UUID.randomUUID(), LocalDateTime.now()))
+                .block();
 
-        // First update
-        first.setAvailable(false);
-        bookRepository.save(first).block();
+        statementCounter.reset();
+        List<BorrowedBookDetails> borrowed = libraryService.findBorrowedBooksByUser(user1).collectList().block();
 
-        // Second update → version conflict
-        second.setAvailable(false);
-        StepVerifier.create(bookRepository.save(second))
-                .expectError(OptimisticLockingFailureException.class)
-                .verify();
+        assertThat(borrowed).hasSize(50).allMatch(details -> details.title() != null);
+        assertThat(statementCounter.count()).isEqualTo(1);
     }
+
 }
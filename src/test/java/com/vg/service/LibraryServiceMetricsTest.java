@@ -0,0 +1,84 @@
+package com.vg.service;
+
+import com.vg.exception.BookNotFoundException;
+import com.vg.exception.BookUnavailableException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryServiceMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private LibraryServiceMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new LibraryServiceMetrics(registry);
+    }
+
+    @Test
+    void timeSuccessfulMono() {
+        StepVerifier.create(metrics.timed("borrowBook", Mono.just("book"))).expectNext("book").verifyComplete();
+
+        Timer timer = registry.get("library.service").tag("operation", "borrowBook").tag("outcome", "success").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(outcomeCount("borrowBook", "success")).isEqualTo(1.0);
+    }
+
+    @Test
+    void timeSuccessfulFluxOnCompletion() {
+        StepVerifier.create(metrics.timed("findAllBooks", Flux.just(1, 2, 3))).expectNextCount(3).verifyComplete();
+
+        assertThat(registry.get("library.service").tag("operation", "findAllBooks").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countDomainErrorsByOutcome() {
+        metrics.timed("borrowBook", Mono.error(new BookNotFoundException("missing"))).onErrorComplete().block();
+        metrics.timed("borrowBook", Mono.error(new BookUnavailableException("taken"))).onErrorComplete().block();
+        metrics.timed("borrowBook", Mono.error(new BookUnavailableException("taken"))).onErrorComplete().block();
+        metrics.timed("borrowBook", Mono.error(new IllegalStateException("boom"))).onErrorComplete().block();
+
+        assertThat(outcomeCount("borrowBook", "not_found")).isEqualTo(1.0);
+        assertThat(outcomeCount("borrowBook", "unavailable")).isEqualTo(2.0);
+        assertThat(outcomeCount("borrowBook", "error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void publishPercentileHistogramToPrometheus() {
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new LibraryServiceMetrics(prometheus).timed("returnBook", Mono.just("book")).block();
+
+        assertThat(prometheus.scrape())
+                .contains("library_service_seconds_bucket{")
+                .contains("operation=\"returnBook\"")
+                .contains("outcome=\"success\"");
+    }
+
+    @Test
+    void startTimingOnSubscription() {
+        Mono<String> timed = metrics.timed("findBook", Mono.just("book"));
+
+        assertThat(registry.find("library.service").timer()).isNull();
+        timed.block();
+        timed.block();
+        assertThat(registry.get("library.service").tag("operation", "findBook").timer().count()).isEqualTo(2);
+    }
+
+    private double outcomeCount(String operation, String outcome) {
+        return registry.get("library.service.outcomes")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
@@ -1,38 +1,148 @@
 package com.vg.service;
 
-import com.vg.exception.BookConcurrencyException;
+import com.vg.cache.BookCache;
+import com.vg.cache.CatalogVersions;
+import com.vg.cache.ReadCoalescer;
+import com.vg.command.DirectBookCommandExecutor;
+import com.vg.config.BookCacheProperties;
+import com.vg.config.BookSearchProperties;
+import com.vg.config.ETagProperties;
+import com.vg.config.FeedProperties;
+import com.vg.dto.BookAvailabilityEventDTO.Change;
+import com.vg.dto.BookAvailabilityEventDTO;
 import com.vg.exception.BookNotFoundException;
 import com.vg.exception.BookUnavailableException;
+import com.vg.exception.InvalidPageRequestException;
+import com.vg.exception.SearchIndexNotReadyException;
+import com.vg.feed.BookAvailabilityFeed;
+import com.vg.journal.BorrowJournal;
+import com.vg.journal.JournalEntry;
+import com.vg.journal.NoOpBorrowJournal;
+import com.vg.mapper.BookPages;
 import com.vg.model.Book;
 import com.vg.model.BorrowedBook;
+import com.vg.model.BorrowedBookDetails;
 import com.vg.repository.BookRepository;
 import com.vg.repository.BorrowedBookRepository;
+import com.vg.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class LibraryServiceTest {
 
     private BookRepository bookRepository;
     private BorrowedBookRepository borrowedBookRepository;
+    private TransactionalOperator transactionalOperator;
+    private BookSearchIndex searchIndex;
+    private BookAvailabilityFeed availabilityFeed;
+    private CatalogVersions versions;
+    private SimpleMeterRegistry meterRegistry;
+    private ReadCoalescer coalescer;
+    private BookCache bookCache;
     private LibraryService libraryService;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
         bookRepository = mock(BookRepository.class);
         borrowedBookRepository = mock(BorrowedBookRepository.class);
-        libraryService = new LibraryService(bookRepository, borrowedBookRepository);
+        transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new ReadCoalescer(meterRegistry);
+        bookCache = new BookCache(bookRepository, coalescer, new BookCacheProperties(100, Duration.ofMinutes(5)));
+        searchIndex = new BookSearchIndex(bookRepository, new BookSearchProperties(1000, 10));
+        availabilityFeed = new BookAvailabilityFeed(new FeedProperties(16));
+        versions = new CatalogVersions(new ETagProperties(true, 100));
+        libraryService = new LibraryService(bookRepository, borrowedBookRepository, transactionalOperator,
+                new DirectBookCommandExecutor(), bookCache, coalescer, searchIndex, availabilityFeed, new NoOpBorrowJournal(),
+                versions, new LibraryServiceMetrics(meterRegistry));
+    }
+
+    @Test
+    void concurrentIdenticalPageReadsShareOneQuery() {
+        Book book = new Book(UUID.randomUUID(), "Title", "Author", true, 0L);
+        Sinks.Many<Book> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(bookRepository.findAllBy(PageRequest.of(0, 10, Sort.by("id")))).thenReturn(rows.asFlux());
+        when(bookRepository.findAllBy(PageRequest.of(1, 10, Sort.by("id")))).thenReturn(Flux.empty());
+        List<List<Book>> pages = new ArrayList<>();
+
+        libraryService.findAllBooks(0, 10).collectList().subscribe(pages::add);
+        libraryService.findAllBooks(0, 10).collectList().subscribe(pages::add);
+        libraryService.findAllBooks(1, 10).collectList().subscribe(pages::add);
+        rows.tryEmitNext(book);
+        rows.tryEmitComplete();
+
+        assertEquals(List.of(List.of(), List.of(book), List.of(book)), pages);
+        verify(bookRepository, times(1)).findAllBy(PageRequest.of(0, 10, Sort.by("id")));
+        assertEquals(1.0, meterRegistry.get("library.reads.coalesced").tag("operation", "findAllBooks").counter().count());
+    }
+
+    @Test
+    void pageReadsDoNotShareAQueryStartedBeforeACatalogChange() {
+        Sinks.Many<Book> before = Sinks.many().unicast().onBackpressureBuffer();
+        Book changed = new Book(UUID.randomUUID(), "Title", "Author", false, 1L);
+        when(bookRepository.findAllBy(PageRequest.of(0, 10, Sort.by("id"))))
+                .thenReturn(before.asFlux())
+                .thenReturn(Flux.just(changed));
+
+        Flux<Book> started = libraryService.findAllBooks(0, 10).replay().autoConnect(0);
+        versions.catalogChanged();
+
+        StepVerifier.create(libraryService.findAllBooks(0, 10))
+                .expectNext(changed)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        before.tryEmitComplete();
+        StepVerifier.create(started).verifyComplete();
+        verify(bookRepository, times(2)).findAllBy(PageRequest.of(0, 10, Sort.by("id")));
+    }
+
+    @Test
+    void findFirstPageWhenNoCursorGiven() {
+        Book book = new Book(UUID.randomUUID(), "Title", "Author", true, 0L);
+        when(bookRepository.findFirstPage(11)).thenReturn(Flux.just(book));
+
+        StepVerifier.create(libraryService.findBooksAfter(null, 11))
+                .expectNext(book)
+                .verifyComplete();
+
+        verify(bookRepository, never()).findPageAfter(any(), anyInt());
+    }
+
+    @Test
+    void findPageAfterCursor() {
+        UUID after = UUID.randomUUID();
+        Book book = new Book(UUID.randomUUID(), "Title", "Author", true, 0L);
+        when(bookRepository.findPageAfter(after, 11)).thenReturn(Flux.just(book));
+
+        StepVerifier.create(libraryService.findBooksAfter(after, 11))
+                .expectNext(book)
+                .verifyComplete();
     }
 
     @Test
@@ -50,20 +160,123 @@ class LibraryServiceTest {
         }).verifyComplete();
     }
 
+    @Test
+    void addedBookIsSearchableAndServedFromCache() {
+        when(bookRepository.findAll()).thenReturn(Flux.empty());
+        searchIndex.rebuild().block();
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        Book added = libraryService.addBook(new Book(null, "Refactoring", "Martin Fowler", true, null)).block();
+
+        StepVerifier.create(libraryService.searchBooks("fowler refact", 0, 10))
+                .expectNextMatches(book -> book.getId().equals(added.getId()))
+                .verifyComplete();
+        verify(bookRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void loadSearchHitsMissingFromCacheInOneQuery() {
+        Book first = new Book(UUID.randomUUID(), "Refactoring", "Martin Fowler", true, 0L);
+        Book second = new Book(UUID.randomUUID(), "Refactoring", "Scott Ambler", true, 0L);
+        when(bookRepository.findAll()).thenReturn(Flux.just(first, second));
+        searchIndex.rebuild().block();
+        when(bookRepository.findAllById(anyList())).thenReturn(Flux.just(second, first));
+
+        StepVerifier.create(libraryService.searchBooks("refactoring", 0, 10).map(Book::getId))
+                .expectNext(searchIndex.search("refactoring", 0, 10).toArray(UUID[]::new))
+                .verifyComplete();
+        verify(bookRepository, times(1)).findAllById(anyList());
+        verify(bookRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void refuseSearchesUntilIndexIsBuilt() {
+        StepVerifier.create(libraryService.searchBooks("refactoring", 0, 10))
+                .expectError(SearchIndexNotReadyException.class)
+                .verify();
+    }
+
+    @Test
+    void rejectNegativePageOrSizeBelowOne() {
+        when(bookRepository.findAll()).thenReturn(Flux.empty());
+        searchIndex.rebuild().block();
+
+        StepVerifier.create(libraryService.findAllBooks(-1, 10))
+                .expectError(InvalidPageRequestException.class).verify();
+        StepVerifier.create(libraryService.findAllBooks(0, 0))
+                .expectError(InvalidPageRequestException.class).verify();
+        StepVerifier.create(libraryService.searchBooks("refactoring", -1, 10))
+                .expectError(InvalidPageRequestException.class).verify();
+        StepVerifier.create(libraryService.searchBooks("refactoring", 0, -10))
+                .expectError(InvalidPageRequestException.class).verify();
+        verify(bookRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    void capPageSizeAndKeepFarOffsetsFromOverflowing() {
+        when(bookRepository.findAllBy(any(Pageable.class))).thenReturn(Flux.empty());
+        when(bookRepository.findAll()).thenReturn(Flux.empty());
+        searchIndex.rebuild().block();
+
+        StepVerifier.create(libraryService.findAllBooks(Integer.MAX_VALUE, Integer.MAX_VALUE)).verifyComplete();
+        StepVerifier.create(libraryService.searchBooks("refactoring", Integer.MAX_VALUE, Integer.MAX_VALUE))
+                .verifyComplete();
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(bookRepository).findAllBy(pageable.capture());
+        assertEquals(BookPages.MAX_SIZE, pageable.getValue().getPageSize());
+        assertEquals((long) Integer.MAX_VALUE * BookPages.MAX_SIZE, pageable.getValue().getOffset());
+    }
+
     @Test
     void returnBookSuccessfully() {
         UUID bookId = UUID.randomUUID();
         UUID userId = UUID.randomUUID();
-        Book book = new Book(bookId, "Title", "Author", false, null);
-        BorrowedBook borrowedBook = new BorrowedBook(UUID.randomUUID(), userId, bookId, LocalDateTime.now());
+        Book returned = new Book(bookId, "Title", "Author", true, 2L);
 
-        when(bookRepository.findById(bookId)).thenReturn(Mono.just(book));
-        when(bookRepository.save(any(Book.class))).thenReturn(Mono.just(book));
-        when(borrowedBookRepository.findByUserIdAndBookId(userId, bookId)).thenReturn(Flux.just(borrowedBook));
-        when(borrowedBookRepository.delete(any())).thenReturn(Mono.empty());
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(1));
+        when(bookRepository.markReturned(bookId)).thenReturn(Mono.just(returned));
 
         StepVerifier.create(libraryService.returnBook(bookId, userId))
-                .expectNext(book).verifyComplete();
+                .expectNext(returned).verifyComplete();
+
+        verify(bookRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void borrowAndReturnMoveTheUserAndCatalogTags() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
+        when(bookRepository.markReturned(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", true, 2L)));
+        when(borrowedBookRepository.save(any(BorrowedBook.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(1));
+        String userTag = versions.userTag(userId);
+        String catalogTag = versions.catalogTag();
+
+        libraryService.borrowBook(bookId, userId).block();
+        String borrowedUserTag = versions.userTag(userId);
+        libraryService.returnBook(bookId, userId).block();
+
+        assertNotEquals(userTag, borrowedUserTag);
+        assertNotEquals(borrowedUserTag, versions.userTag(userId));
+        assertNotEquals(catalogTag, versions.catalogTag());
+    }
+
+    @Test
+    void failedBorrowKeepsTheUserTag() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.empty());
+        when(bookRepository.findById(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
+        String userTag = versions.userTag(userId);
+
+        StepVerifier.create(libraryService.borrowBook(bookId, userId))
+                .expectError(BookUnavailableException.class)
+                .verify();
+
+        assertEquals(userTag, versions.userTag(userId));
     }
 
     @Test
@@ -72,90 +285,258 @@ class LibraryServiceTest {
         UUID userId = UUID.randomUUID();
         Book book = new Book(bookId, "Title", "Author", true, null);
 
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(0));
         when(bookRepository.findById(bookId)).thenReturn(Mono.just(book));
 
         StepVerifier.create(libraryService.returnBook(bookId, userId))
                 .expectError(BookUnavailableException.class).verify();
+
+        verify(bookRepository, never()).markReturned(any());
     }
 
     @Test
-    void findBorrowedBooksByUser() {
-        UUID userId = UUID.randomUUID();
+    void throwWhenReturningBookBorrowedByAnotherUser() {
         UUID bookId = UUID.randomUUID();
-        BorrowedBook borrowedBook = new BorrowedBook(UUID.randomUUID(), userId, bookId, LocalDateTime.now());
+        UUID userId = UUID.randomUUID();
         Book book = new Book(bookId, "Title", "Author", false, null);
 
-        when(borrowedBookRepository.findByUserId(userId)).thenReturn(Flux.just(borrowedBook));
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(0));
         when(bookRepository.findById(bookId)).thenReturn(Mono.just(book));
 
+        StepVerifier.create(libraryService.returnBook(bookId, userId))
+                .expectErrorMatches(error -> error instanceof BookUnavailableException
+                        && "No borrow record found.".equals(error.getMessage()))
+                .verify();
+    }
+
+    @Test
+    void throwWhenReturnBookNotFound() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(0));
+        when(bookRepository.findById(bookId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(libraryService.returnBook(bookId, userId))
+                .expectError(BookNotFoundException.class).verify();
+    }
+
+    @Test
+    void findBorrowedBooksByUser() {
+        UUID userId = UUID.randomUUID();
+        BorrowedBookDetails details = new BorrowedBookDetails(
+                UUID.randomUUID(), UUID.randomUUID(), "Title", "Author", LocalDateTime.now(), false);
+
+        when(borrowedBookRepository.findDetailsByUserId(userId)).thenReturn(Flux.just(details));
+
         StepVerifier.create(libraryService.findBorrowedBooksByUser(userId))
-                .expectNextMatches(tuple ->
-                        tuple.getT1().equals(borrowedBook) && tuple.getT2().equals(book))
+                .expectNext(details)
                 .verifyComplete();
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void skipOrphanedBorrowRecords() {
+        UUID userId = UUID.randomUUID();
+        BorrowedBookDetails details = new BorrowedBookDetails(
+                UUID.randomUUID(), UUID.randomUUID(), "Title", "Author", LocalDateTime.now(), false);
+        BorrowedBookDetails orphan = new BorrowedBookDetails(
+                UUID.randomUUID(), UUID.randomUUID(), null, null, LocalDateTime.now(), true);
+
+        when(borrowedBookRepository.findDetailsByUserId(userId)).thenReturn(Flux.just(orphan, details));
+
+        StepVerifier.create(libraryService.findBorrowedBooksByUser(userId))
+                .expectNext(details)
+                .verifyComplete();
+    }
+
+    @Test
+    void publishOnlySuccessfulChangesToFeed() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(bookRepository.markBorrowed(bookId))
+                .thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)))
+                .thenReturn(Mono.empty());
+        when(bookRepository.findById(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
+        when(borrowedBookRepository.save(any(BorrowedBook.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(availabilityFeed.subscribe(List.of(bookId)))
+                .then(() -> libraryService.borrowBook(bookId, userId).block())
+                .expectNext(new BookAvailabilityEventDTO(bookId, Change.BORROWED, false, 1L))
+                .then(() -> libraryService.borrowBook(bookId, userId).onErrorComplete().block())
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void borrowNoBooksWithoutTouchingDatabase() {
+        StepVerifier.create(libraryService.borrowBooks(List.of(), UUID.randomUUID()))
+                .verifyComplete();
+
+        verifyNoInteractions(bookRepository, borrowedBookRepository);
+    }
+
+    @Test
+    void failWholeReturnBatchWhenLedgerIsOutOfSync() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(borrowedBookRepository.deleteAllForUser(userId, List.of(bookId))).thenReturn(Flux.just(bookId));
+        when(bookRepository.markAllReturned(List.of(bookId))).thenReturn(Flux.empty());
+
+        StepVerifier.create(libraryService.returnBooks(List.of(bookId), userId))
+                .expectError(BookUnavailableException.class)
+                .verify();
     }
 
     @Test
     void borrowBookSuccessfully() {
         UUID bookId = UUID.randomUUID();
         UUID userId = UUID.randomUUID();
-        Book book = new Book(bookId, "Title", "Author", true, null);
+        Book borrowed = new Book(bookId, "Title", "Author", false, 1L);
 
-        ArgumentCaptor<Book> bookCaptor = ArgumentCaptor.forClass(Book.class);
-        Book savedBook = new Book(bookId, "Title", "Author", false, null); // expected state after borrow
+        ArgumentCaptor<BorrowedBook> borrowCaptor = ArgumentCaptor.forClass(BorrowedBook.class);
 
-        when(bookRepository.findById(bookId)).thenReturn(Mono.just(book));
-        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> {
-            Book toSave = invocation.getArgument(0);
-            return Mono.just(toSave); // simulate saving modified book
-        });
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.just(borrowed));
         when(borrowedBookRepository.save(any(BorrowedBook.class)))
-                .thenReturn(Mono.just(mock(BorrowedBook.class)));
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
         StepVerifier.create(libraryService.borrowBook(bookId, userId)).assertNext(result -> {
             assertFalse(result.isAvailable(), "Book should be marked as not available");
             assertEquals(bookId, result.getId());
         }).verifyComplete();
 
-        verify(bookRepository).save(bookCaptor.capture());
-        assertFalse(bookCaptor.getValue().isAvailable(), "Saved book should be unavailable");
+        verify(borrowedBookRepository).save(borrowCaptor.capture());
+        assertEquals(userId, borrowCaptor.getValue().getUserId());
+        assertEquals(bookId, borrowCaptor.getValue().getBookId());
+        verify(bookRepository, never()).findById(any(UUID.class));
     }
 
     @Test
-    void throwWhenBorrowBookNotFound() {
+    void borrowAndReturnAreJournaledAndAnsweredOnceSynced() {
         UUID bookId = UUID.randomUUID();
         UUID userId = UUID.randomUUID();
+        BorrowJournal journal = mock(BorrowJournal.class);
+        List<JournalEntry> appended = new ArrayList<>();
+        when(journal.append(ArgumentMatchers.<List<JournalEntry>>any())).thenAnswer(invocation -> {
+            appended.addAll(invocation.getArgument(0));
+            return Mono.empty();
+        });
+        when(journal.sync()).thenReturn(Mono.empty());
+        LibraryService journaled = new LibraryService(bookRepository, borrowedBookRepository, transactionalOperator,
+                new DirectBookCommandExecutor(), bookCache, coalescer, searchIndex, availabilityFeed, journal,
+                versions, new LibraryServiceMetrics(meterRegistry));
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
+        when(bookRepository.markReturned(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", true, 2L)));
+        when(borrowedBookRepository.save(any(BorrowedBook.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(1));
+
+        journaled.borrowBook(bookId, userId).block();
+        journaled.returnBook(bookId, userId).block();
+
+        ArgumentCaptor<BorrowedBook> record = ArgumentCaptor.forClass(BorrowedBook.class);
+        verify(borrowedBookRepository).save(record.capture());
+        assertEquals(2, appended.size());
+        assertEquals(JournalEntry.Type.BORROWED, appended.get(0).type());
+        assertEquals(record.getValue().getBorrowedAt(),
+                LocalDateTime.ofInstant(appended.get(0).at(), ZoneId.systemDefault()));
+        assertEquals(JournalEntry.Type.RETURNED, appended.get(1).type());
+        assertEquals(userId, appended.get(1).userId());
+        verify(journal, times(2)).sync();
+    }
+
+    @Test
+    void failedBorrowIsNotJournaled() {
+        UUID bookId = UUID.randomUUID();
+        BorrowJournal journal = mock(BorrowJournal.class);
+        LibraryService journaled = new LibraryService(bookRepository, borrowedBookRepository, transactionalOperator,
+                new DirectBookCommandExecutor(), bookCache, coalescer, searchIndex, availabilityFeed, journal,
+                versions, new LibraryServiceMetrics(meterRegistry));
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
+        when(borrowedBookRepository.save(any(BorrowedBook.class)))
+                .thenReturn(Mono.error(new IllegalStateException("insert failed")));
+
+        StepVerifier.create(journaled.borrowBook(bookId, UUID.randomUUID()))
+                .expectError(IllegalStateException.class)
+                .verify();
 
+        verifyNoInteractions(journal);
+    }
+
+    @Test
+    void findBookIsServedFromCacheAfterBorrow() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
+        when(borrowedBookRepository.save(any(BorrowedBook.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        libraryService.borrowBook(bookId, userId).block();
+
+        StepVerifier.create(libraryService.findBook(bookId))
+                .expectNextMatches(book -> !book.isAvailable() && book.getVersion() == 1L)
+                .verifyComplete();
+        verify(bookRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void throwWhenFindingUnknownBook() {
+        UUID bookId = UUID.randomUUID();
+        when(bookRepository.findById(bookId)).thenReturn(Mono.empty());
+
+        StepVerifier.create(libraryService.findBook(bookId))
+                .expectError(BookNotFoundException.class).verify();
+    }
+
+    @Test
+    void borrowAndReturnRunInsideTransaction() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.empty());
+        when(borrowedBookRepository.deleteByUserIdAndBookId(userId, bookId)).thenReturn(Mono.just(0));
         when(bookRepository.findById(bookId)).thenReturn(Mono.empty());
 
         StepVerifier.create(libraryService.borrowBook(bookId, userId))
                 .expectError(BookNotFoundException.class).verify();
+        StepVerifier.create(libraryService.returnBook(bookId, userId))
+                .expectError(BookNotFoundException.class).verify();
+
+        verify(transactionalOperator, times(2)).transactional(ArgumentMatchers.<Mono<Book>>any());
+        verify(bookRepository).markBorrowed(bookId);
+        verify(borrowedBookRepository).deleteByUserIdAndBookId(userId, bookId);
     }
 
     @Test
-    void throwWhenBookAlreadyBorrowed() {
+    void throwWhenBorrowBookNotFound() {
         UUID bookId = UUID.randomUUID();
         UUID userId = UUID.randomUUID();
-        Book book = new Book(bookId, "Title", "Author", false, null);
 
-        when(bookRepository.findById(bookId)).thenReturn(Mono.just(book));
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.empty());
+        when(bookRepository.findById(bookId)).thenReturn(Mono.empty());
 
         StepVerifier.create(libraryService.borrowBook(bookId, userId))
-                .expectError(BookUnavailableException.class).verify();
+                .expectError(BookNotFoundException.class).verify();
     }
 
     @Test
-    void shouldThrowConcurrencyExceptionWhenBookBorrowedConcurrently() {
+    void throwWhenBookAlreadyBorrowed() {
         UUID bookId = UUID.randomUUID();
         UUID userId = UUID.randomUUID();
 
-        Book book = new Book(bookId, "Title", "Author", true, null);
-        when(bookRepository.findById(bookId)).thenReturn(Mono.just(book));
-        when(bookRepository.save(any(Book.class)))
-                .thenReturn(Mono.error(new OptimisticLockingFailureException("Concurrent update")));
-        when(borrowedBookRepository.save(any())).thenReturn(Mono.empty());
+        when(bookRepository.markBorrowed(bookId)).thenReturn(Mono.empty());
+        when(bookRepository.findById(bookId)).thenReturn(Mono.just(new Book(bookId, "Title", "Author", false, 1L)));
 
         StepVerifier.create(libraryService.borrowBook(bookId, userId))
-                .expectError(BookConcurrencyException.class).verify();
+                .expectError(BookUnavailableException.class).verify();
+
+        verify(borrowedBookRepository, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("library.service.outcomes")
+                .tag("operation", "borrowBook").tag("outcome", "unavailable").counter().count());
     }
 
 }
\ No newline at end of file
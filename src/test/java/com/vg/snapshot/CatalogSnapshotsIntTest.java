@@ -0,0 +1,135 @@
+package com.vg.snapshot;
+
+import com.vg.config.SnapshotProperties;
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import com.vg.repository.BookRepository;
+import com.vg.repository.BorrowedBookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+class CatalogSnapshotsIntTest {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowedBookRepository borrowedBookRepository;
+
+    @TempDir
+    Path directory;
+
+    private CatalogSnapshots snapshots;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = new CatalogSnapshots(databaseClient,
+                new SnapshotProperties(directory.resolve("catalog.snapshot"), true, 100));
+        clear();
+    }
+
+    @AfterEach
+    void clear() {
+        borrowedBookRepository.deleteAll().then(bookRepository.deleteAll()).block();
+    }
+
+    @Test
+    void dumpAndLoadRestoreBothTables() {
+        List<Book> books = seed(250, 30);
+        List<BorrowedBook> records = borrowedBookRepository.findAll().collectList().block();
+
+        CatalogSnapshots.SnapshotSummary dumped = snapshots.dump().block();
+        assertThat(dumped.books()).isEqualTo(250);
+        assertThat(dumped.borrowedBooks()).isEqualTo(30);
+        assertThat(snapshots.available()).isTrue();
+        assertThat(directory.resolve("catalog.snapshot.tmp")).doesNotExist();
+
+        clear();
+        snapshots.load().block();
+
+        assertThat(bookRepository.findAll().collectList().block())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(books);
+        assertThat(borrowedBookRepository.findAll().collectList().block())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("isNew")
+                .containsExactlyInAnyOrderElementsOf(records);
+    }
+
+    @Test
+    void initializerLoadsSnapshotInsteadOfDataScript() {
+        seed(10, 3);
+        snapshots.dump().block();
+        clear();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new SnapshotDatabaseInitializer(connectionFactory, initializationProperties(), snapshots,
+                new SnapshotProperties(directory.resolve("catalog.snapshot"), true, 100), registry)
+                .initializeDatabase();
+
+        assertThat(bookRepository.count().block()).isEqualTo(10);
+        assertThat(borrowedBookRepository.count().block()).isEqualTo(3);
+        assertThat(bookRepository.existsById(UUID.fromString("11111111-1111-1111-1111-111111111111")).block()).isFalse();
+        assertThat(registry.get(SnapshotDatabaseInitializer.SEED).tag("source", "snapshot").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void initializerFallsBackToDataScriptWithoutSnapshot() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new SnapshotDatabaseInitializer(connectionFactory, initializationProperties(), snapshots,
+                new SnapshotProperties(directory.resolve("missing.snapshot"), true, 100), registry)
+                .initializeDatabase();
+
+        assertThat(bookRepository.existsById(UUID.fromString("11111111-1111-1111-1111-111111111111")).block()).isTrue();
+        assertThat(registry.get(SnapshotDatabaseInitializer.SEED).tag("source", "sql").timer().count()).isEqualTo(1);
+    }
+
+    private List<Book> seed(int bookCount, int loans) {
+        List<Book> books = IntStream.range(0, bookCount)
+                .mapToObj(i -> new Book(UUID.randomUUID(), i % 7 == 0 ? null : "Book " + i, "Author " + i, i >= loans, (long) i))
+                .sorted(Comparator.comparing(Book::getId))
+                .toList();
+        bookRepository.insertAll(books).block();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        borrowedBookRepository.saveAll(books.stream()
+                        .filter(book -> !book.isAvailable())
+                        .map(book -> new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), book.getId(), now))
+                        .toList())
+                .blockLast();
+        return books;
+    }
+
+    private static SqlInitializationProperties initializationProperties() {
+        SqlInitializationProperties properties = new SqlInitializationProperties();
+        properties.setSchemaLocations(List.of("classpath:schema.sql"));
+        properties.setDataLocations(List.of("classpath:data.sql"));
+        properties.setMode(DatabaseInitializationMode.ALWAYS);
+        return properties;
+    }
+}
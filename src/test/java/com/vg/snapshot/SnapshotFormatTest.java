@@ -0,0 +1,76 @@
+package com.vg.snapshot;
+
+import com.vg.model.Book;
+import com.vg.model.BorrowedBook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotFormatTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void booksAndBorrowRecordsSurviveRoundTrip() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        Book book = new Book(UUID.randomUUID(), "Ἰλιάς — Όμηρος", "Homer", false, 7L);
+        Book untitled = new Book(UUID.randomUUID(), null, null, true, null);
+        BorrowedBook record = new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), book.getId(),
+                LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_456_000));
+        BorrowedBook undated = new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), untitled.getId(), null);
+
+        long bytes;
+        try (SnapshotFormat.Writer writer = new SnapshotFormat.Writer(file)) {
+            writer.write(book);
+            writer.write(untitled);
+            writer.write(record);
+            writer.write(undated);
+            bytes = writer.finish();
+        }
+
+        assertThat(bytes).isEqualTo(Files.size(file));
+        SnapshotFormat.Reader reader = new SnapshotFormat.Reader(file);
+        assertThat(reader.books()).isEqualTo(2);
+        assertThat(reader.borrowedBooks()).isEqualTo(2);
+
+        List<Book> books = new ArrayList<>();
+        reader.bookIterator().forEachRemaining(books::add);
+        List<BorrowedBook> records = new ArrayList<>();
+        reader.borrowedBookIterator().forEachRemaining(records::add);
+
+        assertThat(books).usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(book, new Book(untitled.getId(), null, null, true, 0L));
+        assertThat(records).usingRecursiveFieldByFieldElementComparatorIgnoringFields("isNew")
+                .containsExactly(record, undated);
+    }
+
+    @Test
+    void borrowRecordsComeAfterBooks() throws IOException {
+        try (SnapshotFormat.Writer writer = new SnapshotFormat.Writer(directory.resolve("catalog.snapshot"))) {
+            writer.write(new BorrowedBook(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), null));
+
+            assertThatThrownBy(() -> writer.write(new Book(UUID.randomUUID(), "Late", "Author", true, 0L)))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void rejectFilesThatAreNotSnapshots() throws IOException {
+        Path file = Files.writeString(directory.resolve("data.sql"), "INSERT INTO book VALUES (1, 2, 3, 4, 5);");
+
+        assertThatThrownBy(() -> new SnapshotFormat.Reader(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a catalog snapshot");
+    }
+}
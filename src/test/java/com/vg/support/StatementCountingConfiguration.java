@@ -0,0 +1,59 @@
+package com.vg.support;
+
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps the application {@link ConnectionFactory} with r2dbc-proxy so tests can
+ * assert how many SQL statements an operation sends to the database.
+ */
+@TestConfiguration
+public class StatementCountingConfiguration {
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor statementCountingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory connectionFactory) {
+                    return ProxyConnectionFactory.builder(connectionFactory)
+                            .listener(StatementCounter.LISTENER)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    public static class StatementCounter {
+
+        private static final AtomicInteger COUNT = new AtomicInteger();
+
+        private static final ProxyExecutionListener LISTENER = new ProxyExecutionListener() {
+            @Override
+            public void afterQuery(QueryExecutionInfo execInfo) {
+                COUNT.addAndGet(execInfo.getQueries().size());
+            }
+        };
+
+        public void reset() {
+            COUNT.set(0);
+        }
+
+        public int count() {
+            return COUNT.get();
+        }
+    }
+}